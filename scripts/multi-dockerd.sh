@@ -0,0 +1,77 @@
+#!/bin/sh
+# 在本机启动多个独立的Docker守护进程（docker:dind），用于测试多守护进程调度
+# 每个守护进程的socket位于 $BASE_DIR/dockerd-<序号>/docker.sock，启动后打印对应的 codesandbox.docker.endpoints 配置
+#
+# 用法：
+#   scripts/multi-dockerd.sh start [数量]   启动守护进程，默认2个
+#   scripts/multi-dockerd.sh stop           停止并删除所有守护进程
+#
+# 需要宿主机的Docker支持 --privileged；守护进程内的镜像相互独立，沙箱启动时会在每个守护进程上分别拉取或构建镜像
+
+set -e
+
+BASE_DIR=${BASE_DIR:-/tmp/codesandbox-dockerd}
+DIND_IMAGE=${DIND_IMAGE:-docker:24-dind}
+NAME_PREFIX=codesandbox-dockerd-
+
+start() {
+    count=${1:-2}
+    i=1
+    while [ "$i" -le "$count" ]; do
+        dir="$BASE_DIR/dockerd-$i"
+        mkdir -p "$dir"
+        docker rm -f "$NAME_PREFIX$i" >/dev/null 2>&1 || true
+        docker run -d --privileged --name "$NAME_PREFIX$i" \
+            -v "$dir:/run/codesandbox" \
+            -v "$NAME_PREFIX$i-data:/var/lib/docker" \
+            "$DIND_IMAGE" dockerd --host=unix:///run/codesandbox/docker.sock >/dev/null
+        i=$((i + 1))
+    done
+    # 等待socket就绪，并放开权限供沙箱进程访问
+    i=1
+    while [ "$i" -le "$count" ]; do
+        sock="$BASE_DIR/dockerd-$i/docker.sock"
+        n=0
+        until docker exec "$NAME_PREFIX$i" docker -H unix:///run/codesandbox/docker.sock info >/dev/null 2>&1; do
+            n=$((n + 1))
+            if [ "$n" -gt 60 ]; then
+                echo "守护进程启动超时：$NAME_PREFIX$i" >&2
+                exit 1
+            fi
+            sleep 1
+        done
+        docker exec "$NAME_PREFIX$i" chmod 666 /run/codesandbox/docker.sock
+        i=$((i + 1))
+    done
+    echo "codesandbox:"
+    echo "  docker:"
+    echo "    endpoints:"
+    i=1
+    while [ "$i" -le "$count" ]; do
+        echo "      - name: dockerd-$i"
+        echo "        host: unix://$BASE_DIR/dockerd-$i/docker.sock"
+        echo "        max-in-flight: 16"
+        i=$((i + 1))
+    done
+}
+
+stop() {
+    for name in $(docker ps -a --format '{{.Names}}' | grep "^$NAME_PREFIX" || true); do
+        docker rm -f "$name" >/dev/null
+        docker volume rm "$name-data" >/dev/null 2>&1 || true
+        echo "已删除：$name"
+    done
+}
+
+case "$1" in
+    start)
+        start "$2"
+        ;;
+    stop)
+        stop
+        ;;
+    *)
+        echo "用法：$0 start [数量] | stop" >&2
+        exit 1
+        ;;
+esac
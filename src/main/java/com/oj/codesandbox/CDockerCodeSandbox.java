@@ -0,0 +1,31 @@
+package com.oj.codesandbox;
+
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.compile.GccToolchain.GccLanguage;
+
+/**
+ * c代码沙箱
+ */
+@Component
+public class CDockerCodeSandbox extends GccDockerCodeSandbox {
+
+    private static final String GLOBAL_CODE_NAME = "main.c";
+
+    private static final String LANGUAGE = "c";
+
+    @Override
+    protected String getLanguage() {
+        return LANGUAGE;
+    }
+
+    @Override
+    protected GccLanguage getGccLanguage() {
+        return GccLanguage.C;
+    }
+
+    @Override
+    protected String getCodeFileName() {
+        return GLOBAL_CODE_NAME;
+    }
+}
@@ -1,5 +1,10 @@
 package com.oj.codesandbox;
 
+import java.util.List;
+
+import com.oj.codesandbox.execute.CaseListener;
+import com.oj.codesandbox.model.CaseEvent;
+import com.oj.codesandbox.model.CaseVerdict;
 import com.oj.codesandbox.model.ExecuteCodeRequest;
 import com.oj.codesandbox.model.ExecuteCodeResponse;
 
@@ -15,4 +20,32 @@ public interface CodeSandbox {
      * @return
      */
     ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest);
+
+    /**
+     * 执行代码，并把每个用例的结果通知监听器
+     * 默认实现在全部用例执行完成后依次通知，支持逐个用例执行的沙箱在用例完成时立即通知
+     *
+     * @param executeCodeRequest
+     * @param caseListener       为null时与 {@link #executeCode(ExecuteCodeRequest)} 相同
+     * @return
+     */
+    default ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest, CaseListener caseListener) {
+        ExecuteCodeResponse executeCodeResponse = executeCode(executeCodeRequest);
+        if (caseListener == null || executeCodeResponse.getCaseVerdictList() == null) {
+            return executeCodeResponse;
+        }
+        List<CaseVerdict> caseVerdictList = executeCodeResponse.getCaseVerdictList();
+        List<String> outputList = executeCodeResponse.getOutputList();
+        for (int i = 0; i < caseVerdictList.size(); i++) {
+            CaseEvent caseEvent = CaseEvent.of(i, null, caseVerdictList.get(i));
+            // 输出列表只包含正常运行完成的用例，按顺序对应
+            if (outputList != null && i < outputList.size()) {
+                caseEvent.setOutput(outputList.get(i));
+            }
+            if (!caseListener.onCase(caseEvent)) {
+                break;
+            }
+        }
+        return executeCodeResponse;
+    }
 }
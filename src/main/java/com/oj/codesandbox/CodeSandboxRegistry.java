@@ -0,0 +1,50 @@
+package com.oj.codesandbox;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 编程语言 => 代码沙箱，收集所有Docker代码沙箱，新增语言只需新增沙箱组件
+ */
+@Component
+public class CodeSandboxRegistry {
+
+    private final Map<String, DockerCodeSandboxTemplate> codeSandboxMap = new LinkedHashMap<>();
+
+    public CodeSandboxRegistry(List<DockerCodeSandboxTemplate> codeSandboxList) {
+        for (DockerCodeSandboxTemplate codeSandbox : codeSandboxList) {
+            DockerCodeSandboxTemplate existing = codeSandboxMap.putIfAbsent(codeSandbox.getLanguage(), codeSandbox);
+            if (existing != null) {
+                throw new IllegalStateException("编程语言重复：" + codeSandbox.getLanguage());
+            }
+        }
+    }
+
+    /**
+     * 获取编程语言对应的代码沙箱
+     *
+     * @param language
+     * @return
+     */
+    public CodeSandbox getCodeSandbox(String language) {
+        CodeSandbox codeSandbox = language == null ? null : codeSandboxMap.get(language);
+        if (codeSandbox == null) {
+            throw new RuntimeException("编程语言不符合要求");
+        }
+        return codeSandbox;
+    }
+
+    /**
+     * 支持的编程语言
+     *
+     * @return
+     */
+    public Set<String> getLanguages() {
+        return Collections.unmodifiableSet(codeSandboxMap.keySet());
+    }
+}
@@ -0,0 +1,31 @@
+package com.oj.codesandbox;
+
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.compile.GccToolchain.GccLanguage;
+
+/**
+ * c++代码沙箱
+ */
+@Component
+public class CppDockerCodeSandbox extends GccDockerCodeSandbox {
+
+    private static final String GLOBAL_CODE_NAME = "main.cpp";
+
+    private static final String LANGUAGE = "cpp";
+
+    @Override
+    protected String getLanguage() {
+        return LANGUAGE;
+    }
+
+    @Override
+    protected GccLanguage getGccLanguage() {
+        return GccLanguage.CPP;
+    }
+
+    @Override
+    protected String getCodeFileName() {
+        return GLOBAL_CODE_NAME;
+    }
+}
@@ -0,0 +1,880 @@
+package com.oj.codesandbox;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.command.StatsCmd;
+import com.github.dockerjava.api.model.Statistics;
+import com.github.dockerjava.core.InvocationBuilder.AsyncResultCallback;
+import com.oj.codesandbox.checker.AnswerChecker;
+import com.oj.codesandbox.config.ContainerPoolProperties;
+import com.oj.codesandbox.config.ExecuteProperties;
+import com.oj.codesandbox.docker.CgroupMeter;
+import com.oj.codesandbox.docker.ContainerPool;
+import com.oj.codesandbox.docker.ContainerPoolManager;
+import com.oj.codesandbox.docker.DockerEndpoint;
+import com.oj.codesandbox.docker.DockerEndpointManager;
+import com.oj.codesandbox.docker.ExecOutputSink;
+import com.oj.codesandbox.docker.ImageManager;
+import com.oj.codesandbox.docker.PooledContainer;
+import com.oj.codesandbox.docker.Workspace;
+import com.oj.codesandbox.execute.CaseListener;
+import com.oj.codesandbox.execute.ExecutionDeadline;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+import com.oj.codesandbox.model.CaseEvent;
+import com.oj.codesandbox.model.CaseVerdict;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.model.ExecuteMessage;
+import com.oj.codesandbox.model.JudgeInfo;
+
+import cn.hutool.core.date.StopWatch;
+import cn.hutool.core.util.ArrayUtil;
+import cn.hutool.core.util.StrUtil;
+
+/**
+ * Docker代码沙箱模板，各语言只需提供镜像、代码文件名、编译和运行命令
+ */
+@SuppressWarnings("deprecation")
+public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
+
+    @Resource
+    private DockerEndpointManager dockerEndpointManager;
+
+    @Resource
+    private ImageManager imageManager;
+
+    @Resource
+    private ContainerPoolManager containerPoolManager;
+
+    @Resource
+    private ExecuteProperties executeProperties;
+
+    @Resource
+    private ContainerPoolProperties containerPoolProperties;
+
+    @Resource
+    private ExecutorService caseExecutor;
+
+    @Resource
+    private CgroupMeter cgroupMeter;
+
+    @Resource
+    protected SandboxMetrics sandboxMetrics;
+
+    /**
+     * 沙箱对应的编程语言
+     *
+     * @return
+     */
+    protected abstract String getLanguage();
+
+    /**
+     * 沙箱使用的镜像
+     *
+     * @return
+     */
+    protected abstract String getImage();
+
+    /**
+     * 用户代码保存的文件名
+     *
+     * @return
+     */
+    protected abstract String getCodeFileName();
+
+    /**
+     * 在容器中运行代码的命令
+     *
+     * @param inputArgsArray
+     * @return
+     */
+    protected abstract String[] getRunCmd(String[] inputArgsArray);
+
+    /**
+     * 将代码写入工作目录并编译，工作目录中只需留下容器运行时用到的文件
+     * 默认不需要编译，直接保存源代码
+     *
+     * @param code
+     * @param workspace
+     * @return 编译信息，不需要编译时返回null
+     */
+    protected ExecuteMessage compileCode(String code, Workspace workspace) {
+        workspace.writeString(getCodeFileName(), code);
+        return null;
+    }
+
+    /**
+     * 编译成功后写入运行时需要的其他文件（如启动参数），默认不需要
+     *
+     * @param executeCodeRequest
+     * @param workspace
+     */
+    protected void prepareWorkspace(ExecuteCodeRequest executeCodeRequest, Workspace workspace) {
+    }
+
+    /**
+     * 注册沙箱镜像和对应的容器池，镜像在启动时统一检查，容器由健康检查任务在后台预热
+     */
+    @PostConstruct
+    public void initContainerPool() {
+        registerImage(imageManager);
+        containerPoolManager.register(getImage(), getMemoryLimit());
+    }
+
+    /**
+     * 沙箱容器的内存限制（字节），默认使用容器池配置
+     *
+     * @return
+     */
+    protected Long getMemoryLimit() {
+        return null;
+    }
+
+    /**
+     * 向镜像管理注册沙箱镜像，默认从镜像仓库拉取
+     *
+     * @param imageManager
+     */
+    protected void registerImage(ImageManager imageManager) {
+        imageManager.register(getImage());
+    }
+
+    @Override
+    public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest) {
+        return executeCode(executeCodeRequest, null);
+    }
+
+    /**
+     * 执行代码，每个用例执行完成后立即通知监听器；监听器返回false时取消提交，不再执行剩余用例
+     * 有监听器时用例的输出在通知后即释放，返回结果中不包含输出列表
+     *
+     * @param executeCodeRequest
+     * @param caseListener       为null时与 {@link #executeCode(ExecuteCodeRequest)} 相同
+     * @return
+     */
+    @Override
+    public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest, CaseListener caseListener) {
+        long totalStartTime = sandboxMetrics.start();
+        ExecuteCodeResponse executeCodeResponse = null;
+        try {
+            executeCodeResponse = doExecuteCode(executeCodeRequest, caseListener);
+            return executeCodeResponse;
+        } finally {
+            sandboxMetrics.recordPhase("total", getLanguage(), getOutcome(executeCodeResponse), totalStartTime);
+        }
+    }
+
+    private ExecuteCodeResponse doExecuteCode(ExecuteCodeRequest executeCodeRequest, CaseListener caseListener) {
+        List<String> inputList = executeCodeRequest.getInputList();
+        String code = executeCodeRequest.getCode();
+        AnswerChecker answerChecker = AnswerChecker.of(executeCodeRequest);
+
+        // 1）为用户代码创建隔离的工作目录，文件只保存在内存中
+        Workspace workspace = sandboxMetrics.timePhase("workspace", getLanguage(), this::createWorkspace);
+
+        // 2）保存并编译代码
+        long startTime = sandboxMetrics.start();
+        ExecuteMessage compileMessage;
+        try {
+            compileMessage = compileCode(code, workspace);
+        } catch (Exception e) {
+            sandboxMetrics.recordPhase("compile", getLanguage(), SandboxMetrics.OUTCOME_ERROR, startTime);
+            return getErrorResponse(e);
+        }
+        if (compileMessage != null && compileMessage.getValue() != 0) {
+            sandboxMetrics.recordPhase("compile", getLanguage(), "compile_error", startTime);
+            return getCompileErrorResponse(compileMessage);
+        }
+        sandboxMetrics.recordPhase("compile", getLanguage(), SandboxMetrics.OUTCOME_SUCCESS, startTime);
+        try {
+            prepareWorkspace(executeCodeRequest, workspace);
+        } catch (Exception e) {
+            return getErrorResponse(e);
+        }
+
+        // 3）选择执行中操作最少的Docker守护进程，从其容器池中租借容器执行代码
+        DockerEndpoint endpoint = dockerEndpointManager.acquire();
+        ContainerPool containerPool = containerPoolManager.getPool(endpoint, getImage());
+        List<ExecuteMessage> executeMessages;
+        RuntimeException error = null;
+        try {
+            PooledContainer pooledContainer = sandboxMetrics.timePhase("lease", getLanguage(), containerPool::lease);
+            try {
+                sandboxMetrics.timePhase("upload", getLanguage(), () -> {
+                    containerPool.attachWorkspace(pooledContainer, workspace);
+                    return null;
+                });
+                ExecutionDeadline deadline = new ExecutionDeadline(executeProperties.getCaseTimeout(),
+                        executeProperties.getSubmissionTimeout());
+                executeMessages = runFile(containerPool, pooledContainer, workspace, inputList, answerChecker,
+                        deadline, caseListener);
+            } finally {
+                sandboxMetrics.timePhase("release", getLanguage(), () -> {
+                    containerPool.release(pooledContainer);
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            // 用户代码的错误体现在执行结果中，只有守护进程返回错误或通信失败才计为守护进程出错
+            dockerEndpointManager.release(endpoint, error);
+        }
+
+        // 4）封装结果，编译耗时与运行耗时分开统计
+        ExecuteCodeResponse executeCodeResponse = sandboxMetrics.timePhase("aggregate", getLanguage(),
+                () -> getOutputResponse(executeMessages, answerChecker));
+        if (compileMessage != null) {
+            executeCodeResponse.getJudgeInfo().setCompileTime(compileMessage.getTime());
+        }
+        if (caseListener != null) {
+            // 输出已随用例推送
+            executeCodeResponse.setOutputList(null);
+        }
+        return executeCodeResponse;
+    }
+
+    private static String getOutcome(ExecuteCodeResponse executeCodeResponse) {
+        if (executeCodeResponse == null || executeCodeResponse.getStatus() == null) {
+            return SandboxMetrics.OUTCOME_ERROR;
+        }
+        switch (executeCodeResponse.getStatus()) {
+            case 1:
+                return SandboxMetrics.OUTCOME_SUCCESS;
+            case 3:
+                return "user_error";
+            default:
+                return SandboxMetrics.OUTCOME_ERROR;
+        }
+    }
+
+    /**
+     * 创建用户代码的工作目录
+     *
+     * @return
+     */
+    public Workspace createWorkspace() {
+        return new Workspace(containerPoolProperties.getWorkspaceMaxBytes());
+    }
+
+    /**
+     * 单次提交最多同时使用的容器数，默认使用语言的并行度配置
+     *
+     * @return 小于等于1时串行执行
+     */
+    protected int getParallelism() {
+        return executeProperties.getParallelism(getLanguage());
+    }
+
+    /**
+     * 执行所有输入用例，开启并行执行时把用例分配到多个容器中同时执行
+     * 每个容器同一时间只执行一个用例，保证每个用例的耗时和内存统计互不干扰；结果顺序与输入顺序一致
+     * 提供比对器时，出现未通过的用例后不再领取新的用例；整个提交的时间预算耗尽后同样不再领取，未执行的用例结果为null
+     * 用例结果按输入顺序判定和通知，停在序号最小的未通过用例处，之后已执行完的用例结果同样丢弃，与串行执行的结果一致
+     *
+     * @param containerPool
+     * @param pooledContainer 已租借并写入工作目录的容器
+     * @param workspace
+     * @param inputList
+     * @param answerChecker   没有期望输出时为null
+     * @param deadline
+     * @param caseListener    不需要逐个通知用例结果时为null
+     * @return
+     */
+    public List<ExecuteMessage> runFile(ContainerPool containerPool, PooledContainer pooledContainer,
+            Workspace workspace, List<String> inputList, AnswerChecker answerChecker, ExecutionDeadline deadline,
+            CaseListener caseListener) {
+        int parallelism = getParallelism();
+        if (parallelism <= 1 || inputList.size() <= 1) {
+            return runFile(pooledContainer, inputList, answerChecker, deadline, caseListener);
+        }
+        parallelism = Math.min(parallelism, inputList.size());
+        AtomicInteger nextIndex = new AtomicInteger(0);
+        CaseProgress caseProgress = new CaseProgress(inputList.size(), answerChecker, deadline, caseListener);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < parallelism; i++) {
+            futures.add(caseExecutor.submit(() -> {
+                // 额外的容器只在有空闲时使用，容器紧张时由已有的容器完成剩余用例
+                PooledContainer extraContainer = containerPool.tryLease();
+                if (extraContainer == null) {
+                    return;
+                }
+                try {
+                    containerPool.attachWorkspace(extraContainer, workspace);
+                    runCases(extraContainer, inputList, nextIndex, deadline, caseProgress);
+                } finally {
+                    containerPool.release(extraContainer);
+                }
+            }));
+        }
+        runCases(pooledContainer, inputList, nextIndex, deadline, caseProgress);
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("并行执行用例异常", e.getCause());
+            }
+        }
+        return caseProgress.getResults();
+    }
+
+    /**
+     * 在容器中依次执行每个输入用例，提供比对器时在第一个未通过的用例处停止，整个提交的时间预算耗尽时同样停止
+     *
+     * @param pooledContainer
+     * @param inputList
+     * @param answerChecker   没有期望输出时为null
+     * @param deadline
+     * @param caseListener    不需要逐个通知用例结果时为null
+     * @return 未执行的用例结果为null
+     */
+    public List<ExecuteMessage> runFile(PooledContainer pooledContainer, List<String> inputList,
+            AnswerChecker answerChecker, ExecutionDeadline deadline, CaseListener caseListener) {
+        List<ExecuteMessage> executeMessages = new ArrayList<>();
+        for (int i = 0; i < inputList.size(); i++) {
+            ExecuteMessage executeMessage = runCase(pooledContainer, inputList.get(i), deadline);
+            executeMessages.add(executeMessage);
+            if (onCaseFinished(i, executeMessage, answerChecker, deadline, caseListener) || deadline.isExpired()) {
+                break;
+            }
+        }
+        while (executeMessages.size() < inputList.size()) {
+            executeMessages.add(null);
+        }
+        return executeMessages;
+    }
+
+    /**
+     * 从共享的用例序号中依次领取用例执行，直到所有用例都被领取、已有用例未通过或时间预算耗尽
+     */
+    private void runCases(PooledContainer pooledContainer, List<String> inputList, AtomicInteger nextIndex,
+            ExecutionDeadline deadline, CaseProgress caseProgress) {
+        int index;
+        while (!caseProgress.isStopped() && (index = nextIndex.getAndIncrement()) < inputList.size()) {
+            caseProgress.finish(index, runCase(pooledContainer, inputList.get(index), deadline));
+        }
+    }
+
+    /**
+     * 在整个提交剩余的时间预算内执行单个用例，预算已耗尽时不再执行，直接判为超时
+     *
+     * @param pooledContainer
+     * @param inputArgs
+     * @param deadline
+     * @return
+     */
+    protected ExecuteMessage runCase(PooledContainer pooledContainer, String inputArgs, ExecutionDeadline deadline) {
+        long timeoutMillis = deadline.nextCaseTimeout();
+        if (timeoutMillis <= 0) {
+            System.out.println("提交的时间预算已耗尽，不再执行剩余用例");
+            return getDeadlineExceededMessage();
+        }
+        return runCase(pooledContainer, inputArgs, timeoutMillis);
+    }
+
+    /**
+     * 时间预算耗尽后未执行的用例结果
+     *
+     * @return
+     */
+    protected ExecuteMessage getDeadlineExceededMessage() {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setTime(0L);
+        executeMessage.setMemory(0L);
+        executeMessage.setTimeout(true);
+        return executeMessage;
+    }
+
+    /**
+     * 用例执行完成：判定结果并通知监听器，判定结果记录在执行信息中，汇总时不再重复比对输出
+     * 监听器要求停止时取消整个提交；通知后释放用例的标准输出，避免保存所有用例的输出
+     *
+     * @param index
+     * @param executeMessage
+     * @param answerChecker  没有期望输出时为null
+     * @param deadline
+     * @param caseListener   为null时只判断是否需要停止
+     * @return 是否停止执行剩余用例
+     */
+    protected boolean onCaseFinished(int index, ExecuteMessage executeMessage, AnswerChecker answerChecker,
+            ExecutionDeadline deadline, CaseListener caseListener) {
+        if (caseListener == null || executeMessage == null) {
+            return isFailFast(index, executeMessage, answerChecker);
+        }
+        CaseVerdict caseVerdict = judgeCase(index, executeMessage, answerChecker);
+        executeMessage.setVerdict(caseVerdict);
+        if (deadline.isCancelled()) {
+            return true;
+        }
+        if (!caseListener.onCase(CaseEvent.of(index, executeMessage, caseVerdict))) {
+            System.out.println("用例结果接收方已断开，取消剩余用例");
+            deadline.cancel();
+            return true;
+        }
+        executeMessage.setMessage(null);
+        return answerChecker != null && caseVerdict != CaseVerdict.ACCEPTED;
+    }
+
+    /**
+     * 提供比对器时，用例未通过则停止执行剩余用例
+     *
+     * @param index
+     * @param executeMessage
+     * @param answerChecker
+     * @return
+     */
+    protected boolean isFailFast(int index, ExecuteMessage executeMessage, AnswerChecker answerChecker) {
+        return answerChecker != null && judgeCase(index, executeMessage, answerChecker) != CaseVerdict.ACCEPTED;
+    }
+
+    /**
+     * 判定单个用例的结果
+     *
+     * @param index
+     * @param executeMessage 未执行的用例为null
+     * @param answerChecker  没有期望输出时为null，只判断是否正常运行完成
+     * @return
+     */
+    protected CaseVerdict judgeCase(int index, ExecuteMessage executeMessage, AnswerChecker answerChecker) {
+        if (executeMessage == null) {
+            return CaseVerdict.SKIPPED;
+        }
+        if (executeMessage.getVerdict() != null) {
+            return executeMessage.getVerdict();
+        }
+        if (executeMessage.isOutputLimitExceeded()) {
+            return CaseVerdict.OUTPUT_LIMIT_EXCEEDED;
+        }
+        if (isTimeLimitExceeded(executeMessage)) {
+            return CaseVerdict.TIME_LIMIT_EXCEEDED;
+        }
+        if (StrUtil.isNotBlank(executeMessage.getErrorMessage())) {
+            return CaseVerdict.RUNTIME_ERROR;
+        }
+        if (answerChecker != null && !answerChecker.check(index, executeMessage.getMessage())) {
+            return CaseVerdict.WRONG_ANSWER;
+        }
+        return CaseVerdict.ACCEPTED;
+    }
+
+    /**
+     * 在容器中执行单个输入用例，超过执行期限时强制结束容器中的进程
+     *
+     * @param pooledContainer
+     * @param inputArgs
+     * @param timeoutMillis   执行期限（毫秒）
+     * @return
+     */
+    public ExecuteMessage runCase(PooledContainer pooledContainer, String inputArgs, long timeoutMillis) {
+        String containerId = pooledContainer.getContainerId();
+        DockerClient dockerClient = pooledContainer.getEndpoint().getDockerClient();
+        // docker exec keen_blackwell java -cp /app Main 1 3
+        StopWatch stopWatch = new StopWatch();
+        String[] inputArgsArray = inputArgs.split(" ");
+        String[] cmdArray = getRunCmd(inputArgsArray);
+        System.out.println("指令：" + ArrayUtil.join(cmdArray, " "));
+        // 向容器输入指令
+        ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
+                .withCmd(cmdArray)
+                .withAttachStderr(true)
+                .withAttachStdin(true)
+                .withAttachStdout(true)
+                .exec();
+        System.out.println("创建执行命令：" + execCreateCmdResponse);
+
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        long time = 0L;
+        // 判断使用的内存
+        final long[] maxMemory = { 0L };
+        String execId = execCreateCmdResponse.getId();
+        ExecOutputSink execOutputSink = new ExecOutputSink(executeProperties.getOutputLimit());
+
+        // 优先直接读取cgroup统计内存峰值，不可用时退回docker stats采样
+        CgroupMeter.Measurement measurement = cgroupMeter.start(pooledContainer);
+        StatsCmd statsCmd = null;
+        if (measurement == null || !measurement.isMemoryTracked()) {
+            statsCmd = dockerClient.statsCmd(containerId);
+            statsCmd.exec(new AsyncResultCallback<Statistics>() {
+
+                @Override
+                public void onNext(Statistics object) {
+                    maxMemory[0] = Math.max(object.getMemoryStats().getUsage(), maxMemory[0]);
+                }
+
+            });
+        }
+        long execStartTime = sandboxMetrics.start();
+        try {
+            System.out.println("开始执行");
+            stopWatch.start();
+            dockerClient.execStartCmd(execId)
+                    .exec(execOutputSink)
+                    .awaitCompletion(timeoutMillis, TimeUnit.MILLISECONDS);
+            stopWatch.stop();
+            time = stopWatch.getLastTaskTimeMillis();
+            System.out.println("执行结束");
+        } catch (InterruptedException e) {
+            System.out.println("程序执行异常");
+            throw new RuntimeException(e);
+        } finally {
+            if (statsCmd != null) {
+                statsCmd.close();
+            }
+            if (measurement != null) {
+                measurement.finish();
+                if (measurement.isMemoryTracked()) {
+                    maxMemory[0] = measurement.getPeakMemory() == null ? 0L : measurement.getPeakMemory();
+                }
+                executeMessage.setCpuTime(measurement.getCpuTime());
+            }
+        }
+        String outcome = SandboxMetrics.OUTCOME_SUCCESS;
+        if (execOutputSink.isOutputLimitExceeded()) {
+            outcome = "output_limit";
+        } else if (!execOutputSink.isCompleted()) {
+            outcome = "timeout";
+            sandboxMetrics.timeout(getLanguage());
+        }
+        sandboxMetrics.recordPhase("exec", getLanguage(), outcome, execStartTime);
+        if (!execOutputSink.isCompleted()) {
+            // 超时或输出超限被中断的进程仍在容器中运行，立即结束，该容器不再复用
+            terminate(pooledContainer, execOutputSink);
+            executeMessage.setTimeout(!execOutputSink.isOutputLimitExceeded());
+        }
+        executeMessage.setTime(time);
+        executeMessage.setMessage(execOutputSink.getStdout());
+        executeMessage.setErrorMessage(execOutputSink.getStderr());
+        executeMessage.setOutputLimitExceeded(execOutputSink.isOutputLimitExceeded());
+        executeMessage.setMemory(maxMemory[0]);
+        return executeMessage;
+    }
+
+    /**
+     * 在容器中执行命令，写入标准输入并收集完整的标准输出
+     *
+     * @param pooledContainer
+     * @param cmdArray
+     * @param stdin
+     * @param timeoutMillis
+     * @param outputLimit   标准输出和标准错误合计的最大字节数
+     * @return 标准输出，超时或输出超限时返回已收到的部分
+     */
+    protected String execAndCollectOutput(PooledContainer pooledContainer, String[] cmdArray, byte[] stdin,
+            long timeoutMillis, long outputLimit) {
+        DockerClient dockerClient = pooledContainer.getEndpoint().getDockerClient();
+        ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(pooledContainer.getContainerId())
+                .withCmd(cmdArray)
+                .withAttachStdin(true)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .exec();
+        ExecOutputSink execOutputSink = new ExecOutputSink(outputLimit);
+        long execStartTime = sandboxMetrics.start();
+        try {
+            boolean finished = dockerClient.execStartCmd(execCreateCmdResponse.getId())
+                    .withStdIn(new ByteArrayInputStream(stdin))
+                    .exec(execOutputSink)
+                    .awaitCompletion(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (!finished || !execOutputSink.isCompleted()) {
+                // 超时或输出超限被中断的进程仍在容器中运行，立即结束，该容器不再复用
+                terminate(pooledContainer, execOutputSink);
+            }
+            sandboxMetrics.recordPhase("exec_batch", getLanguage(),
+                    execOutputSink.isCompleted() ? SandboxMetrics.OUTCOME_SUCCESS : "interrupted", execStartTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        String output = execOutputSink.getStdout();
+        return output == null ? "" : output;
+    }
+
+    /**
+     * 选择Docker守护进程并从其容器池中租借一个容器，写入工作目录后执行命令并收集标准输出，用于在容器中编译代码
+     *
+     * @param workspace
+     * @param cmdArray
+     * @param timeoutMillis
+     * @param outputLimit
+     * @return 标准输出，超时或输出超限时返回已收到的部分
+     */
+    protected String execInWorkspace(Workspace workspace, String[] cmdArray, long timeoutMillis, long outputLimit) {
+        DockerEndpoint endpoint = dockerEndpointManager.acquire();
+        RuntimeException error = null;
+        try {
+            ContainerPool containerPool = containerPoolManager.getPool(endpoint, getImage());
+            PooledContainer pooledContainer = containerPool.lease();
+            try {
+                containerPool.attachWorkspace(pooledContainer, workspace);
+                return execAndCollectOutput(pooledContainer, cmdArray, new byte[0], timeoutMillis, outputLimit);
+            } finally {
+                containerPool.release(pooledContainer);
+            }
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            dockerEndpointManager.release(endpoint, error);
+        }
+    }
+
+    /**
+     * 结束容器中仍在运行的用户进程，并关闭命令的输出流
+     *
+     * @param pooledContainer
+     * @param execOutputSink
+     */
+    private void terminate(PooledContainer pooledContainer, ExecOutputSink execOutputSink) {
+        containerPoolManager.getPool(pooledContainer.getEndpoint(), pooledContainer.getImage())
+                .killProcesses(pooledContainer);
+        try {
+            execOutputSink.close();
+        } catch (IOException e) {
+            System.out.println("关闭执行输出失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 单个用例的执行期限
+     *
+     * @return
+     */
+    protected long getCaseTimeout() {
+        return executeProperties.getCaseTimeout();
+    }
+
+    /**
+     * 单个用例的输出上限
+     *
+     * @return
+     */
+    protected long getOutputLimit() {
+        return executeProperties.getOutputLimit();
+    }
+
+    /**
+     * 封装执行结果
+     * 输出列表只包含第一个运行失败（运行错误、超时、输出超限）的用例之前的输出；答案错误的用例照常返回输出
+     *
+     * @param executeMessages 未执行的用例为null
+     * @param answerChecker   没有期望输出时为null
+     * @return
+     */
+    public ExecuteCodeResponse getOutputResponse(List<ExecuteMessage> executeMessages, AnswerChecker answerChecker) {
+        ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
+        List<String> outputList = new ArrayList<>();
+        List<CaseVerdict> caseVerdictList = new ArrayList<>();
+        Integer firstFailedIndex = null;
+        boolean runFailed = false;
+        // 取用时最大值，便于判断是否超时以及是否超出内存限制
+        long maxTime = 0;
+        long maxMemory = 0L;
+        Long maxCpuTime = null;
+        String judgeMessage = null;
+        for (int i = 0; i < executeMessages.size(); i++) {
+            ExecuteMessage executeMessage = executeMessages.get(i);
+            CaseVerdict caseVerdict = judgeCase(i, executeMessage, answerChecker);
+            caseVerdictList.add(caseVerdict);
+            if (caseVerdict == CaseVerdict.SKIPPED) {
+                continue;
+            }
+            Long time = executeMessage.getTime();
+            if (time != null) {
+                maxTime = Math.max(maxTime, time);
+            }
+            Long memory = executeMessage.getMemory();
+            if (memory != null) {
+                maxMemory = Math.max(maxMemory, memory);
+            }
+            Long cpuTime = executeMessage.getCpuTime();
+            if (cpuTime != null) {
+                maxCpuTime = maxCpuTime == null ? cpuTime : Math.max(maxCpuTime, cpuTime);
+            }
+            if (caseVerdict != CaseVerdict.ACCEPTED && firstFailedIndex == null) {
+                firstFailedIndex = i;
+            }
+            if (runFailed) {
+                continue;
+            }
+            switch (caseVerdict) {
+                case OUTPUT_LIMIT_EXCEEDED:
+                    executeCodeResponse.setMessage("输出超出限制：" + executeProperties.getOutputLimit() + "字节");
+                    judgeMessage = "输出超限";
+                    runFailed = true;
+                    break;
+                case TIME_LIMIT_EXCEEDED:
+                    executeCodeResponse.setMessage("超出时间限制：" + executeProperties.getTimeLimit() + "ms");
+                    judgeMessage = "超出时间限制";
+                    runFailed = true;
+                    break;
+                case RUNTIME_ERROR:
+                    // 用户提交的代码执行中存在错误
+                    executeCodeResponse.setMessage(executeMessage.getErrorMessage());
+                    runFailed = true;
+                    break;
+                case WRONG_ANSWER:
+                    if (judgeMessage == null) {
+                        judgeMessage = "答案错误";
+                    }
+                    outputList.add(executeMessage.getMessage());
+                    break;
+                default:
+                    outputList.add(executeMessage.getMessage());
+                    break;
+            }
+        }
+        // 用户代码运行失败时状态为3，否则为正常运行完成（答案错误也属于正常运行完成）
+        executeCodeResponse.setStatus(runFailed ? 3 : 1);
+        executeCodeResponse.setOutputList(outputList);
+        executeCodeResponse.setCaseVerdictList(caseVerdictList);
+        executeCodeResponse.setFirstFailedIndex(firstFailedIndex);
+        JudgeInfo judgeInfo = new JudgeInfo();
+        judgeInfo.setMessage(judgeMessage);
+        judgeInfo.setTime(maxTime);
+        judgeInfo.setMemory(maxMemory);
+        judgeInfo.setCpuTime(maxCpuTime);
+
+        executeCodeResponse.setJudgeInfo(judgeInfo);
+        return executeCodeResponse;
+    }
+
+    /**
+     * 判断用例是否超时，按配置使用CPU时间或墙钟时间；无法统计CPU时间时使用墙钟时间
+     * 超过执行期限被强制结束的用例（如长时间阻塞）无论按哪种时间判断都视为超时
+     *
+     * @param executeMessage
+     * @return
+     */
+    protected boolean isTimeLimitExceeded(ExecuteMessage executeMessage) {
+        if (executeMessage.isTimeout()) {
+            return true;
+        }
+        Long time = executeMessage.getTime();
+        Long judgedTime = time;
+        if (executeProperties.getTimeLimitBasis() == ExecuteProperties.TimeLimitBasis.CPU
+                && executeMessage.getCpuTime() != null) {
+            judgedTime = executeMessage.getCpuTime();
+        }
+        return judgedTime != null && judgedTime > executeProperties.getTimeLimit();
+    }
+
+    /**
+     * 获取编译错误响应
+     *
+     * @param compileMessage
+     * @return
+     */
+    protected ExecuteCodeResponse getCompileErrorResponse(ExecuteMessage compileMessage) {
+        ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
+        executeCodeResponse.setOutputList(new ArrayList<>());
+        executeCodeResponse.setMessage(compileMessage.getErrorMessage());
+        // 用户提交的代码编译失败
+        executeCodeResponse.setStatus(3);
+        executeCodeResponse.setJudgeInfo(new JudgeInfo("编译错误", 0L, 0L, 0L, compileMessage.getTime()));
+        return executeCodeResponse;
+    }
+
+    /**
+     * 获取错误响应
+     *
+     * @param e
+     * @return
+     */
+    protected ExecuteCodeResponse getErrorResponse(Throwable e) {
+        ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
+        executeCodeResponse.setOutputList(new ArrayList<>());
+        executeCodeResponse.setMessage(e.getMessage());
+        // 表示代码沙箱错误
+        executeCodeResponse.setStatus(2);
+        executeCodeResponse.setJudgeInfo(new JudgeInfo());
+        return executeCodeResponse;
+    }
+
+    /**
+     * 并行执行时的用例进度：用例可能乱序完成，按输入顺序依次判定和通知，
+     * 在第一个未通过（或执行后时间预算耗尽）的用例处停止，与串行执行的结果一致
+     */
+    private class CaseProgress {
+
+        private final ExecuteMessage[] executeMessages;
+
+        private final AnswerChecker answerChecker;
+
+        private final ExecutionDeadline deadline;
+
+        private final CaseListener caseListener;
+
+        /**
+         * 下一个按顺序判定的用例序号
+         */
+        private int nextFinishIndex = 0;
+
+        /**
+         * 停止处的用例序号，未停止时为-1
+         */
+        private volatile int stopIndex = -1;
+
+        CaseProgress(int caseCount, AnswerChecker answerChecker, ExecutionDeadline deadline,
+                CaseListener caseListener) {
+            this.executeMessages = new ExecuteMessage[caseCount];
+            this.answerChecker = answerChecker;
+            this.deadline = deadline;
+            this.caseListener = caseListener;
+        }
+
+        boolean isStopped() {
+            return stopIndex >= 0;
+        }
+
+        /**
+         * 记录用例结果，并判定之前的用例都已完成的连续用例
+         *
+         * @param index
+         * @param executeMessage
+         */
+        synchronized void finish(int index, ExecuteMessage executeMessage) {
+            executeMessages[index] = executeMessage;
+            while (stopIndex < 0 && nextFinishIndex < executeMessages.length
+                    && executeMessages[nextFinishIndex] != null) {
+                int finishIndex = nextFinishIndex++;
+                if (onCaseFinished(finishIndex, executeMessages[finishIndex], answerChecker, deadline, caseListener)
+                        || deadline.isExpired()) {
+                    stopIndex = finishIndex;
+                }
+            }
+        }
+
+        /**
+         * 所有容器都已停止领取用例后获取结果，停止处之后的用例结果为null
+         *
+         * @return
+         */
+        synchronized List<ExecuteMessage> getResults() {
+            List<ExecuteMessage> results = new ArrayList<>(Arrays.asList(executeMessages));
+            if (stopIndex >= 0) {
+                for (int i = stopIndex + 1; i < results.size(); i++) {
+                    results.set(i, null);
+                }
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.oj.codesandbox;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.annotation.Resource;
+
+import com.oj.codesandbox.compile.CompileCache;
+import com.oj.codesandbox.compile.GccToolchain;
+import com.oj.codesandbox.compile.GccToolchain.GccLanguage;
+import com.oj.codesandbox.compile.GccToolchain.GccOutput;
+import com.oj.codesandbox.docker.ImageManager;
+import com.oj.codesandbox.docker.PooledContainer;
+import com.oj.codesandbox.docker.Workspace;
+import com.oj.codesandbox.model.ExecuteMessage;
+
+import cn.hutool.core.date.StopWatch;
+import cn.hutool.core.util.ArrayUtil;
+
+/**
+ * c/c++代码沙箱，在沙箱容器中编译，可执行文件按源代码缓存，相同的代码不再重复编译
+ */
+public abstract class GccDockerCodeSandbox extends DockerCodeSandboxTemplate {
+
+    @Resource
+    private GccToolchain gccToolchain;
+
+    @Resource
+    private CompileCache compileCache;
+
+    /**
+     * 沙箱使用的编译器
+     *
+     * @return
+     */
+    protected abstract GccLanguage getGccLanguage();
+
+    @Override
+    protected String getImage() {
+        return gccToolchain.getImage();
+    }
+
+    /**
+     * 启用预编译头时在基础镜像上构建镜像，否则直接拉取基础镜像
+     *
+     * @param imageManager
+     */
+    @Override
+    protected void registerImage(ImageManager imageManager) {
+        if (gccToolchain.isPchEnabled()) {
+            imageManager.registerBuild(getImage(), gccToolchain::createImageBuildContext);
+            return;
+        }
+        super.registerImage(imageManager);
+    }
+
+    @Override
+    protected Long getMemoryLimit() {
+        return gccToolchain.getMemoryLimit();
+    }
+
+    /**
+     * 在容器中编译，只把可执行文件写入工作目录
+     * 相同的代码命中编译缓存时直接使用缓存的可执行文件，编译耗时记为0
+     *
+     * @param code
+     * @param workspace
+     * @return
+     */
+    @Override
+    protected ExecuteMessage compileCode(String code, Workspace workspace) {
+        String language = getLanguage();
+        String toolchainVersion = gccToolchain.getToolchainVersion(getGccLanguage());
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        Map<String, byte[]> cachedFiles = compileCache.get(language, toolchainVersion, code);
+        if (cachedFiles != null && cachedFiles.containsKey(GccToolchain.EXECUTABLE_NAME)) {
+            System.out.println("命中编译缓存");
+            sandboxMetrics.compileCacheHit(language);
+            workspace.writeExecutable(GccToolchain.EXECUTABLE_NAME, cachedFiles.get(GccToolchain.EXECUTABLE_NAME));
+            executeMessage.setValue(0);
+            executeMessage.setTime(0L);
+            return executeMessage;
+        }
+        sandboxMetrics.compileCacheMiss(language);
+        // 编译用的工作目录只包含源代码，编译产物不超过容器池的工作目录上限
+        Workspace compileWorkspace = createWorkspace();
+        compileWorkspace.writeString(getCodeFileName(), code);
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        String output = execInWorkspace(compileWorkspace,
+                gccToolchain.getCompileCmd(getGccLanguage(), getCodeFileName()), gccToolchain.getCompileTimeout(),
+                gccToolchain.getCompileOutputLimit());
+        stopWatch.stop();
+        executeMessage.setTime(stopWatch.getLastTaskTimeMillis());
+        GccOutput gccOutput = GccToolchain.parseOutput(output);
+        if (gccOutput == null) {
+            executeMessage.setValue(1);
+            executeMessage.setErrorMessage("编译超时或编译产物超出限制");
+        } else if (gccOutput.getExitCode() != 0) {
+            executeMessage.setValue(gccOutput.getExitCode());
+            executeMessage.setErrorMessage(new String(gccOutput.getPayload(), StandardCharsets.UTF_8));
+        } else {
+            executeMessage.setValue(0);
+            workspace.writeExecutable(GccToolchain.EXECUTABLE_NAME, gccOutput.getPayload());
+            compileCache.putAsync(language, toolchainVersion, code,
+                    Collections.singletonMap(GccToolchain.EXECUTABLE_NAME, gccOutput.getPayload()));
+        }
+        System.out.println("编译" + (executeMessage.getValue() == 0 ? "成功" : "失败") + "，耗时："
+                + executeMessage.getTime());
+        return executeMessage;
+    }
+
+    @Override
+    protected String[] getRunCmd(String[] inputArgsArray) {
+        // docker exec keen_blackwell /app/main 1 3
+        return ArrayUtil.append(new String[] { PooledContainer.WORK_DIR + "/" + GccToolchain.EXECUTABLE_NAME },
+                inputArgsArray);
+    }
+}
@@ -1,55 +1,56 @@
 package com.oj.codesandbox;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 
 import org.springframework.stereotype.Component;
 
-import com.github.dockerjava.api.DockerClient;
-import com.github.dockerjava.api.command.CreateContainerCmd;
-import com.github.dockerjava.api.command.CreateContainerResponse;
-import com.github.dockerjava.api.command.ExecCreateCmdResponse;
-import com.github.dockerjava.api.command.PullImageCmd;
-import com.github.dockerjava.api.command.PullImageResultCallback;
-import com.github.dockerjava.api.command.StatsCmd;
-import com.github.dockerjava.api.model.Bind;
-import com.github.dockerjava.api.model.Frame;
-import com.github.dockerjava.api.model.HostConfig;
-import com.github.dockerjava.api.model.PullResponseItem;
-import com.github.dockerjava.api.model.Statistics;
-import com.github.dockerjava.api.model.StreamType;
-import com.github.dockerjava.api.model.Volume;
-import com.github.dockerjava.core.DockerClientBuilder;
-import com.github.dockerjava.core.InvocationBuilder.AsyncResultCallback;
-import com.github.dockerjava.core.command.ExecStartResultCallback;
+import com.oj.codesandbox.checker.AnswerChecker;
+import com.oj.codesandbox.compile.CompileCache;
+import com.oj.codesandbox.compile.CompileResult;
+import com.oj.codesandbox.compile.JavaCompileService;
+import com.oj.codesandbox.config.ExecuteProperties;
+import com.oj.codesandbox.docker.ImageManager;
+import com.oj.codesandbox.docker.PooledContainer;
+import com.oj.codesandbox.docker.Workspace;
+import com.oj.codesandbox.execute.CaseListener;
+import com.oj.codesandbox.execute.ExecutionDeadline;
+import com.oj.codesandbox.harness.JudgeHarnessSupport;
+import com.oj.codesandbox.harness.JudgeHarnessSupport.HarnessCaseResult;
+import com.oj.codesandbox.harness.JvmLauncher;
+import com.oj.codesandbox.jvm.JvmProfileService;
 import com.oj.codesandbox.model.ExecuteCodeRequest;
-import com.oj.codesandbox.model.ExecuteCodeResponse;
 import com.oj.codesandbox.model.ExecuteMessage;
-import com.oj.codesandbox.model.JudgeInfo;
-import com.oj.codesandbox.utils.ProcessUtils;
 
-import cn.hutool.core.date.StopWatch;
-import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.io.resource.ResourceUtil;
-import cn.hutool.core.lang.UUID;
 import cn.hutool.core.util.ArrayUtil;
 import cn.hutool.core.util.StrUtil;
 
 @Component
-public class JavaDockerCodeSandbox implements CodeSandbox {
-
-    private static final String GLOBAL_CODE_DIR_NAME = "tmpCode";
+public class JavaDockerCodeSandbox extends DockerCodeSandboxTemplate {
 
     private static final String GLOBAL_JAVA_CLASS_NAME = "Main.java";
 
-    private static final long TIME_OUT = 5L;
+    private static final String MAIN_CLASS_NAME = "Main";
+
+    private static final String IMAGE = "openjdk:17-jdk-alpine";
+
+    private static final String LANGUAGE = "java";
+
+    @Resource
+    private JavaCompileService javaCompileService;
+
+    @Resource
+    private CompileCache compileCache;
 
-    private static final Boolean FIRST_INIT = true;
+    @Resource
+    private ExecuteProperties executeProperties;
+
+    @Resource
+    private JvmProfileService jvmProfileService;
 
     // public static void main(String[] args) {
     // JavaDockerCodeSandbox javaNativeCodeSandbox = new JavaDockerCodeSandbox();
@@ -64,225 +65,236 @@ public class JavaDockerCodeSandbox implements CodeSandbox {
     // System.out.println("代码沙箱结果：" + executeCodeResponse);
     // }
 
-    @SuppressWarnings("deprecation")
     @Override
-    public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest) {
-        List<String> inputList = executeCodeRequest.getInputList();
-        String code = executeCodeRequest.getCode();
-        String language = executeCodeRequest.getLanguage();
-
-        // 1）将用户提交的代码保存为文件
-        String userDir = System.getProperty("user.dir");
-        String globalCodePathName = userDir + File.separator + GLOBAL_CODE_DIR_NAME;
-        if (!FileUtil.exist(globalCodePathName)) {
-            // 文件夹不存在，新建文件夹
-            FileUtil.mkdir(globalCodePathName);
-        }
+    protected String getLanguage() {
+        return LANGUAGE;
+    }
 
-        // 把用户的代码隔离存放
-        String userCodeParentPath = globalCodePathName + File.separator + UUID.randomUUID();
-        String userCodePath = userCodeParentPath + File.separator + GLOBAL_JAVA_CLASS_NAME;
-        File userCodeFile = FileUtil.writeString(code, userCodePath, StandardCharsets.UTF_8);
+    /**
+     * 启用JVM启动配置时使用带CDS归档的镜像
+     *
+     * @return
+     */
+    @Override
+    protected String getImage() {
+        return jvmProfileService.isEnabled() ? jvmProfileService.getImage() : IMAGE;
+    }
 
-        // 2）编译java文件得到class文件
-        String compileCmd = String.format("javac -encoding utf-8 %s", userCodeFile.getAbsolutePath());
-        try {
-            Process compileProcess = Runtime.getRuntime().exec(compileCmd);
-            ExecuteMessage runProcessAndGetMessage = ProcessUtils.runProcessAndGetMessage(compileProcess, "编译");
-            System.out.println(runProcessAndGetMessage);
-        } catch (IOException e) {
-            return getErrorResponse(e);
+    @Override
+    protected void registerImage(ImageManager imageManager) {
+        if (jvmProfileService.isEnabled()) {
+            imageManager.registerBuild(getImage(), jvmProfileService::createImageBuildContext);
+            return;
         }
+        super.registerImage(imageManager);
+    }
 
-        // 3）创建Docker容器
-        DockerClient dockerClient = DockerClientBuilder.getInstance().build();
-
-        // 拉取镜像
-        String image = "openjdk:17-jdk-alpine";
-        if (FIRST_INIT) {
-            PullImageCmd pullImageCmd = dockerClient.pullImageCmd(image);
-            PullImageResultCallback pullImageResultCallback = new PullImageResultCallback() {
-                @Override
-                public void onNext(PullResponseItem item) {
-                    System.out.println("下载镜像：" + item.getStatus());
-                    super.onNext(item);
-                }
-            };
-            try {
-                pullImageCmd
-                        .exec(pullImageResultCallback)
-                        .awaitCompletion();
-            } catch (InterruptedException e) {
-                System.out.println("拉取镜像异常");
-                throw new RuntimeException(e);
-            }
+    /**
+     * 同时开启单JVM执行器和java并行执行时以执行器为准，启动时提示一次
+     */
+    @PostConstruct
+    public void checkHarnessConfig() {
+        if (executeProperties.isJavaHarnessEnabled() && executeProperties.getParallelism(LANGUAGE) > 1) {
+            System.out.println("已开启单JVM执行器，java提交忽略并行执行配置，用例在一个容器中串行执行");
         }
-        System.out.println("下载完成");
+    }
 
-        // 创建容器
-        CreateContainerCmd containerCmd = dockerClient.createContainerCmd(image);
-        // 此处使用配置信息进行代码沙箱的安全设置
-        HostConfig hostConfig = new HostConfig();
-        // 限制内存大小
-        hostConfig.withMemory(100 * 1000 * 1000l);
-        hostConfig.withMemorySwap(0L);
-        hostConfig.withCpuCount(1L);
+    /**
+     * 开启单JVM执行器时串行执行，由执行器在一个JVM中执行所有用例
+     *
+     * @return
+     */
+    @Override
+    protected int getParallelism() {
+        return executeProperties.isJavaHarnessEnabled() ? 1 : super.getParallelism();
+    }
 
-        // 指定文件路径映射，将编译好的文件映射到容器中
-        hostConfig.setBinds(new Bind(userCodeParentPath, new Volume("/app")));
+    @Override
+    protected String getCodeFileName() {
+        return GLOBAL_JAVA_CLASS_NAME;
+    }
 
-        // 此处限制容器的网络功能和写功能
-        CreateContainerResponse createContainerResponse = containerCmd.withHostConfig(hostConfig)
-                .withNetworkDisabled(true)
-                .withReadonlyRootfs(true)
-                .withAttachStdin(true)
-                .withAttachStderr(true)
-                .withAttachStdout(true)
-                .withTty(true)
-                .exec();
-        System.out.println("创建容器：" + createContainerResponse);
-        // 获取创建的容器的id
-        String containerId = createContainerResponse.getId();
+    /**
+     * 在沙箱JVM内编译java代码，只把class文件写入工作目录
+     * 相同的代码命中编译缓存时直接使用缓存的class文件
+     *
+     * @param code
+     * @param workspace
+     * @return
+     */
+    @Override
+    protected ExecuteMessage compileCode(String code, Workspace workspace) {
+        if (executeProperties.isJavaHarnessEnabled()) {
+            workspace.writeFiles(JudgeHarnessSupport.getHarnessClassFiles());
+        }
+        String toolchainVersion = javaCompileService.getToolchainVersion();
+        Map<String, byte[]> cachedClassFiles = compileCache.get(LANGUAGE, toolchainVersion, code);
+        if (cachedClassFiles != null) {
+            System.out.println("命中编译缓存");
+            sandboxMetrics.compileCacheHit(LANGUAGE);
+            workspace.writeFiles(cachedClassFiles);
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setValue(0);
+            executeMessage.setTime(0L);
+            return executeMessage;
+        }
+        sandboxMetrics.compileCacheMiss(LANGUAGE);
+        CompileResult compileResult = javaCompileService.compile(MAIN_CLASS_NAME, code);
+        System.out.println("编译" + (compileResult.isSuccess() ? "成功" : "失败") + "，耗时：" + compileResult.getTime());
+        if (compileResult.isSuccess()) {
+            workspace.writeFiles(compileResult.getClassFiles());
+            compileCache.putAsync(LANGUAGE, toolchainVersion, code, compileResult.getClassFiles());
+        }
+        return compileResult.toExecuteMessage();
+    }
 
-        // 启动容器
-        dockerClient.startContainerCmd(containerId).exec();
+    /**
+     * 启用JVM启动配置时写入启动参数文件和用户程序入口
+     *
+     * @param executeCodeRequest
+     * @param workspace
+     */
+    @Override
+    protected void prepareWorkspace(ExecuteCodeRequest executeCodeRequest, Workspace workspace) {
+        if (jvmProfileService.isEnabled()) {
+            jvmProfileService.writeLaunchFiles(workspace, executeCodeRequest.getJvmProfile());
+        }
+    }
 
+    @Override
+    protected String[] getRunCmd(String[] inputArgsArray) {
+        if (jvmProfileService.isEnabled()) {
+            // java @/app/jvm.options -cp /app JvmLauncher 发起时间 Main 1 3
+            return ArrayUtil.append(new String[] { "java", "@" + JvmProfileService.ARG_FILE, "-cp",
+                    PooledContainer.WORK_DIR, JudgeHarnessSupport.LAUNCHER_CLASS_NAME,
+                    String.valueOf(System.currentTimeMillis()), MAIN_CLASS_NAME }, inputArgsArray);
+        }
         // docker exec keen_blackwell java -cp /app Main 1 3
-        List<ExecuteMessage> executeMessages = new ArrayList<>();
-        for (String inputArgs : inputList) {
-            StopWatch stopWatch = new StopWatch();
-            String[] inputArgsArray = inputArgs.split(" ");
-            String[] cmdArray = ArrayUtil.append(new String[] { "java", "-cp", "/app", "Main" }, inputArgsArray);
-            System.out.println("指令：" + cmdArray);
-            // 向容器输入指令
-            ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
-                    .withCmd(cmdArray)
-                    .withAttachStderr(true)
-                    .withAttachStdin(true)
-                    .withAttachStdout(true)
-                    .exec();
-            System.out.println("创建执行命令：" + execCreateCmdResponse);
-
-            ExecuteMessage executeMessage = new ExecuteMessage();
-            final String[] message = { null };
-            final String[] errorMessage = { null };
-            long time = 0L;
-            // 判断是否超时以及使用的内存
-            final boolean[] timeout = { true };
-            final long[] maxMemory = { 0L };
-            String execId = execCreateCmdResponse.getId();
-            ExecStartResultCallback execStartResultCallback = new ExecStartResultCallback() {
+        return ArrayUtil.append(new String[] { "java", "-cp", PooledContainer.WORK_DIR, MAIN_CLASS_NAME },
+                inputArgsArray);
+    }
 
-                @Override
-                public void onNext(Frame frame) {
-                    StreamType streamType = frame.getStreamType();
-                    if (streamType.equals(StreamType.STDERR)) {
-                        errorMessage[0] = new String(frame.getPayload());
-                        System.out.println("输出错误结果：" + errorMessage[0]);
-                    } else if (streamType.equals(StreamType.STDOUT)) {
-                        message[0] = new String(frame.getPayload());
-                        System.out.println("输出结果：" + message[0]);
-                    } else {
-                        System.out.println("出错了");
-                    }
-                    super.onNext(frame);
-                }
+    /**
+     * 启用JVM启动配置时从标准错误的第一行取出启动耗时并记录
+     *
+     * @param pooledContainer
+     * @param inputArgs
+     * @param timeoutMillis
+     * @return
+     */
+    @Override
+    public ExecuteMessage runCase(PooledContainer pooledContainer, String inputArgs, long timeoutMillis) {
+        ExecuteMessage executeMessage = super.runCase(pooledContainer, inputArgs, timeoutMillis);
+        String errorMessage = executeMessage.getErrorMessage();
+        if (!jvmProfileService.isEnabled() || errorMessage == null
+                || !errorMessage.startsWith(JvmLauncher.STARTUP_PREFIX)) {
+            return executeMessage;
+        }
+        int lineEnd = errorMessage.indexOf('\n');
+        String startupLine = lineEnd < 0 ? errorMessage : errorMessage.substring(0, lineEnd);
+        String[] fields = startupLine.substring(JvmLauncher.STARTUP_PREFIX.length()).trim().split(" ");
+        try {
+            long startupTime = Long.parseLong(fields[0]);
+            executeMessage.setStartupTime(startupTime);
+            sandboxMetrics.jvmStartup(fields.length > 1 ? fields[1] : null, startupTime);
+            System.out.println("JVM启动耗时：" + startupTime + "ms");
+        } catch (NumberFormatException e) {
+            return executeMessage;
+        }
+        executeMessage.setErrorMessage(lineEnd < 0 ? null : StrUtil.emptyToNull(errorMessage.substring(lineEnd + 1)));
+        return executeMessage;
+    }
 
-                @Override
-                public void onComplete() {
-                    timeout[0] = false;
-                    super.onComplete();
+    /**
+     * 开启单JVM执行器时，一个JVM依次执行所有用例，省去每个用例启动JVM的开销
+     * 执行器崩溃时（如用户代码直接退出JVM）崩溃的用例单独启动JVM重新执行，随后从下一个用例重启执行器
+     * 执行器一次执行完剩余的所有用例，提供比对器时丢弃第一个未通过的用例之后的结果，并不再重启执行器
+     * 执行器的执行期限不超过整个提交剩余的时间预算，预算耗尽时被强制结束，剩余用例判为超时
+     *
+     * @param pooledContainer
+     * @param inputList
+     * @param answerChecker
+     * @param deadline
+     * @param caseListener
+     * @return
+     */
+    @Override
+    public List<ExecuteMessage> runFile(PooledContainer pooledContainer, List<String> inputList,
+            AnswerChecker answerChecker, ExecutionDeadline deadline, CaseListener caseListener) {
+        if (!executeProperties.isJavaHarnessEnabled()) {
+            return super.runFile(pooledContainer, inputList, answerChecker, deadline, caseListener);
+        }
+        ExecuteMessage[] executeMessages = new ExecuteMessage[inputList.size()];
+        int restarts = 0;
+        int index = 0;
+        while (index < inputList.size()) {
+            if (deadline.isExpired()) {
+                executeMessages[index] = getDeadlineExceededMessage();
+                onCaseFinished(index, executeMessages[index], answerChecker, deadline, caseListener);
+                break;
+            }
+            if (restarts > executeProperties.getJavaHarnessMaxRestarts() || pooledContainer.isBroken()) {
+                executeMessages[index] = runCase(pooledContainer, inputList.get(index), deadline);
+                if (onCaseFinished(index, executeMessages[index], answerChecker, deadline, caseListener)) {
+                    break;
                 }
-            };
-
-            AsyncResultCallback<Statistics> asyncResultCallback = new AsyncResultCallback<Statistics>() {
-
-                @Override
-                public void onNext(Statistics object) {
-                    System.out.println("内存占用：" + object.getMemoryStats().getUsage());
-                    maxMemory[0] = Math.max(object.getMemoryStats().getUsage(), maxMemory[0]);
+                index++;
+                continue;
+            }
+            String[] cmdArray = { "java", "-cp", PooledContainer.WORK_DIR, JudgeHarnessSupport.HARNESS_CLASS_NAME,
+                    PooledContainer.WORK_DIR, MAIN_CLASS_NAME, String.valueOf(getCaseTimeout()),
+                    String.valueOf(index) };
+            if (jvmProfileService.isEnabled()) {
+                // 执行器同样使用启动配置的JVM参数
+                cmdArray = ArrayUtil.insert(cmdArray, 1, "@" + JvmProfileService.ARG_FILE);
+            }
+            // 执行器的用例超时后自行退出，额外留出每个用例1秒的余量
+            long harnessTimeout = Math.min((inputList.size() - index) * (getCaseTimeout() + 1000),
+                    deadline.getRemaining());
+            // 执行器的输出经过Base64编码，按每个用例输出上限的两倍放宽
+            long harnessOutputLimit = Math.min((inputList.size() - index) * getOutputLimit() * 2,
+                    Integer.MAX_VALUE - 8);
+            String nonce = JudgeHarnessSupport.newNonce();
+            String harnessOutput = execAndCollectOutput(pooledContainer, cmdArray,
+                    JudgeHarnessSupport.encodeCases(nonce, inputList, index), harnessTimeout, harnessOutputLimit);
+            Map<Integer, HarnessCaseResult> resultMap = JudgeHarnessSupport.parseResults(nonce, harnessOutput);
+            HarnessCaseResult lastResult = null;
+            boolean failed = false;
+            while (index < inputList.size() && resultMap.containsKey(index)) {
+                lastResult = resultMap.get(index);
+                executeMessages[index] = checkOutputLimit(lastResult.getExecuteMessage());
+                failed = onCaseFinished(index, executeMessages[index], answerChecker, deadline, caseListener);
+                index++;
+                if (failed) {
+                    break;
                 }
-
-            };
-            StatsCmd statsCmd = dockerClient.statsCmd(containerId);
-            try {
-                System.out.println("开始执行");
-                statsCmd.exec(asyncResultCallback);
-                stopWatch.start();
-                dockerClient.execStartCmd(execId)
-                        .exec(execStartResultCallback)
-                        .awaitCompletion(TIME_OUT, TimeUnit.SECONDS);
-                stopWatch.stop();
-                time = stopWatch.getLastTaskTimeMillis();
-                statsCmd.close();
-                System.out.println("执行结束");
-            } catch (InterruptedException e) {
-                System.out.println("程序执行异常");
-                throw new RuntimeException(e);
             }
-            executeMessage.setTime(time);
-            executeMessage.setMessage(message[0]);
-            executeMessage.setErrorMessage(errorMessage[0]);
-            executeMessage.setMemory(maxMemory[0]);
-            executeMessages.add(executeMessage);
-        }
-
-        // 4、封装结果，跟原生实现方式完全一致
-        ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
-        List<String> outputList = new ArrayList<>();
-        // 取用时最大值，便于判断是否超时以及是否超出内存限制
-        long maxTime = 0;
-        long maxMemory = 0L;
-        for (ExecuteMessage executeMessage : executeMessages) {
-            String errorMessage = executeMessage.getErrorMessage();
-            if (StrUtil.isNotBlank(errorMessage)) {
-                executeCodeResponse.setMessage(errorMessage);
-                // 用户提交的代码执行中存在错误
-                executeCodeResponse.setStatus(3);
+            if (failed) {
                 break;
             }
-            outputList.add(executeMessage.getMessage());
-            Long time = executeMessage.getTime();
-            if (time != null) {
-                maxTime = Math.max(maxTime, time);
+            if (index >= inputList.size() || (lastResult != null && lastResult.isTimeout())) {
+                // 全部完成，或上一个用例超时后执行器主动退出，从下一个用例继续
+                continue;
             }
-            Long memory = executeMessage.getMemory();
-            if (memory != null) {
-                maxMemory = Math.max(maxMemory, memory);
+            System.out.println("单JVM执行器在用例" + index + "处崩溃，改为单独执行该用例");
+            executeMessages[index] = runCase(pooledContainer, inputList.get(index), deadline);
+            if (onCaseFinished(index, executeMessages[index], answerChecker, deadline, caseListener)) {
+                break;
             }
+            index++;
+            restarts++;
         }
-        // 正常运行完成
-        if (outputList.size() == executeMessages.size()) {
-            executeCodeResponse.setStatus(1);
-        }
-        executeCodeResponse.setOutputList(outputList);
-        JudgeInfo judgeInfo = new JudgeInfo();
-        judgeInfo.setTime(maxTime);
-        judgeInfo.setMemory(maxMemory);
-
-        executeCodeResponse.setJudgeInfo(judgeInfo);
-
-        // 5. 文件清理
-        if (userCodeFile.getParentFile() != null) {
-            boolean del = FileUtil.del(userCodeParentPath);
-            System.out.println("删除" + (del ? "成功" : "失败"));
-        }
-        return executeCodeResponse;
+        return Arrays.asList(executeMessages);
     }
 
-    /**
-     * 获取错误响应
-     *
-     * @param e
-     * @return
-     */
-    private ExecuteCodeResponse getErrorResponse(Throwable e) {
-        ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
-        executeCodeResponse.setOutputList(new ArrayList<>());
-        executeCodeResponse.setMessage(e.getMessage());
-        // 表示代码沙箱错误
-        executeCodeResponse.setStatus(2);
-        executeCodeResponse.setJudgeInfo(new JudgeInfo());
-        return executeCodeResponse;
+    private ExecuteMessage checkOutputLimit(ExecuteMessage executeMessage) {
+        long outputSize = StrUtil.utf8Bytes(StrUtil.nullToEmpty(executeMessage.getMessage())).length
+                + StrUtil.utf8Bytes(StrUtil.nullToEmpty(executeMessage.getErrorMessage())).length;
+        if (outputSize > getOutputLimit()) {
+            executeMessage.setMessage(null);
+            executeMessage.setErrorMessage(null);
+            executeMessage.setOutputLimitExceeded(true);
+        }
+        return executeMessage;
     }
 }
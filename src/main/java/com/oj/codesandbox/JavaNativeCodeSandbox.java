@@ -6,34 +6,89 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.compile.CompileResult;
+import com.oj.codesandbox.compile.JavaCompileService;
+import com.oj.codesandbox.config.CompileProperties;
+import com.oj.codesandbox.execute.ExecutionDeadline;
 import com.oj.codesandbox.model.ExecuteCodeRequest;
 import com.oj.codesandbox.model.ExecuteCodeResponse;
 import com.oj.codesandbox.model.ExecuteMessage;
 import com.oj.codesandbox.model.JudgeInfo;
+import com.oj.codesandbox.security.CodeScanner;
+import com.oj.codesandbox.security.JavaCodeScanner;
+import com.oj.codesandbox.security.ScanViolation;
 import com.oj.codesandbox.utils.ProcessUtils;
+import com.oj.codesandbox.worker.JvmWorkerPool;
 
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.io.resource.ResourceUtil;
 import cn.hutool.core.lang.UUID;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.dfa.FoundWord;
-import cn.hutool.dfa.WordTree;
 
+/**
+ * 本地java代码沙箱，直接在宿主机上执行用户代码
+ * 启用常驻java执行进程池时在预先启动的JVM中执行用例，用户代码不能修改会留到后续用例的进程状态（见 WorkerHarness）
+ */
+@Component
 public class JavaNativeCodeSandbox implements CodeSandbox {
 
     private static final String GLOBAL_CODE_DIR_NAME = "tmpCode";
 
-    private static final String GLOBAL_JAVA_CLASS_NAME = "Main.java";
+    private static final String MAIN_CLASS_NAME = "Main";
 
-    private static final List<String> blackList = Arrays.asList("Files", "exec");
+    /**
+     * 单个用例的执行期限（毫秒）
+     */
+    private static final long CASE_TIME_OUT = 5000L;
 
-    private static final WordTree WORD_TREE;
+    /**
+     * 整个提交的执行时间预算（毫秒）
+     */
+    private static final long SUBMISSION_TIME_OUT = 60000L;
+
+    /**
+     * 禁止使用的类和包（全限定名），匹配规则见 {@link CodeScanner}
+     */
+    private static final List<String> blackList = Arrays.asList(
+            // 文件操作
+            "java.nio.file", "java.io.File", "java.io.FileInputStream", "java.io.FileOutputStream",
+            "java.io.FileReader", "java.io.FileWriter", "java.io.RandomAccessFile",
+            // 执行命令
+            "java.lang.Runtime", "java.lang.ProcessBuilder", "java.lang.ProcessHandle",
+            // 反射
+            "java.lang.reflect", "java.lang.invoke", "java.lang.Class.forName", "sun.misc.Unsafe",
+            // 网络
+            "java.net",
+            // 退出JVM
+            "java.lang.System.exit");
+
+    private static final CodeScanner CODE_SCANNER = new JavaCodeScanner(blackList);
+
+    private final JavaCompileService javaCompileService;
+
+    /**
+     * 常驻java执行进程池，未启用时为null，每个用例单独启动java进程
+     */
+    private final JvmWorkerPool jvmWorkerPool;
 
-    static {
-        // 初始化字典树
-        WORD_TREE = new WordTree();
-        WORD_TREE.addWords(blackList);
+    /**
+     * 不经过Spring容器使用时，不启用常驻java执行进程池
+     */
+    public JavaNativeCodeSandbox() {
+        this(new JavaCompileService(new CompileProperties()), null);
+    }
+
+    @Autowired
+    public JavaNativeCodeSandbox(JavaCompileService javaCompileService, @Nullable JvmWorkerPool jvmWorkerPool) {
+        this.javaCompileService = javaCompileService;
+        this.jvmWorkerPool = jvmWorkerPool;
     }
 
     public static void main(String[] args) {
@@ -53,10 +108,10 @@ public class JavaNativeCodeSandbox implements CodeSandbox {
         String code = executeCodeRequest.getCode();
         String language = executeCodeRequest.getLanguage();
 
-        // 使用字典树查看用户提交的代码中是否有禁止的操作（如：执行新命令，删除文件等）
-        FoundWord foundWord = WORD_TREE.matchWord(code);
-        if (foundWord != null) {
-            System.out.println("包含禁止词：" + foundWord.getFoundWord());
+        // 扫描用户提交的代码中是否有禁止的操作（如：执行新命令，删除文件等）
+        List<ScanViolation> violations = CODE_SCANNER.scan(code);
+        if (!violations.isEmpty()) {
+            System.out.println("包含禁止词：" + StrUtil.join("，", violations));
             return null;
         }
 
@@ -70,39 +125,73 @@ public class JavaNativeCodeSandbox implements CodeSandbox {
 
         // 把用户的代码隔离存放
         String userCodeParentPath = globalCodePathName + File.separator + UUID.randomUUID();
-        String userCodePath = userCodeParentPath + File.separator + GLOBAL_JAVA_CLASS_NAME;
-        File userCodeFile = FileUtil.writeString(code, userCodePath, StandardCharsets.UTF_8);
+        File userCodeDir = FileUtil.mkdir(userCodeParentPath);
 
-        // 2）编译java文件得到class文件
-        String compileCmd = String.format("javac -encoding utf-8 %s", userCodeFile.getAbsolutePath());
+        // 2）在进程内编译java代码，只把class文件写入目录
+        CompileResult compileResult;
         try {
-            Process compileProcess = Runtime.getRuntime().exec(compileCmd);
-            ExecuteMessage runProcessAndGetMessage = ProcessUtils.runProcessAndGetMessage(compileProcess, "编译");
-            System.out.println(runProcessAndGetMessage);
-        } catch (IOException e) {
+            compileResult = javaCompileService.compile(MAIN_CLASS_NAME, code);
+        } catch (RuntimeException e) {
+            // 编译队列已满或编译超时，属于沙箱错误
+            FileUtil.del(userCodeDir);
             return getErrorResponse(e);
         }
+        System.out.println(compileResult.toExecuteMessage());
+        if (!compileResult.isSuccess()) {
+            FileUtil.del(userCodeDir);
+            ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
+            executeCodeResponse.setOutputList(new ArrayList<>());
+            executeCodeResponse.setMessage(compileResult.getDiagnosticMessage());
+            executeCodeResponse.setStatus(3);
+            executeCodeResponse.setJudgeInfo(new JudgeInfo("编译错误", 0L, 0L, 0L, compileResult.getTime()));
+            return executeCodeResponse;
+        }
+        compileResult.writeClassFiles(userCodeDir);
 
         // 3）执行代码，得到输出结果
         List<ExecuteMessage> executeMessageList = new ArrayList<>();
+        ExecutionDeadline deadline = new ExecutionDeadline(CASE_TIME_OUT, SUBMISSION_TIME_OUT);
         for (String inputArgs : inputList) {
+            long timeoutMillis = deadline.nextCaseTimeout();
+            if (timeoutMillis <= 0) {
+                // 整个提交的时间预算已耗尽，不再执行剩余用例
+                ExecuteMessage executeMessage = new ExecuteMessage();
+                executeMessage.setTimeout(true);
+                executeMessageList.add(executeMessage);
+                break;
+            }
+            if (jvmWorkerPool != null) {
+                // 在预先启动的JVM中执行，用例使用独立的类加载器
+                ExecuteMessage executeMessage = jvmWorkerPool.execute(userCodeParentPath, MAIN_CLASS_NAME, inputArgs,
+                        timeoutMillis);
+                executeMessageList.add(executeMessage);
+                System.out.println(executeMessage);
+                continue;
+            }
             // 使用Xmax限制java进程的JVM最大堆空间
             // 还可以使用安全管理器进行用户权限限制，但是java17以弃用，故不再使用
             String runCmd = String.format("java -Xmx256m -cp %s Main %s", userCodeParentPath,
                     inputArgs);
             try {
                 Process runProcess = Runtime.getRuntime().exec(runCmd);
-                // 超时控制，另起一个进程，使用该进程控制原进程的最大运行时间
-                new Thread(() -> {
+                // 超时控制，另起一个线程，超过执行期限后强制结束进程及其子进程
+                AtomicBoolean timeout = new AtomicBoolean(false);
+                Thread watchdog = new Thread(() -> {
                     try {
-                        Thread.sleep(5000l);
-                        System.out.println("超时了");
-                        runProcess.destroy();
+                        if (!runProcess.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                            System.out.println("超时了");
+                            timeout.set(true);
+                            ProcessUtils.destroyProcessTree(runProcess);
+                        }
                     } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
+                        Thread.currentThread().interrupt();
                     }
                 });
+                watchdog.setDaemon(true);
+                watchdog.start();
                 ExecuteMessage runProcessAndGetMessage = ProcessUtils.runProcessAndGetMessage(runProcess, "运行");
+                watchdog.interrupt();
+                runProcessAndGetMessage.setTimeout(timeout.get());
                 executeMessageList.add(runProcessAndGetMessage);
                 System.out.println(runProcessAndGetMessage);
             } catch (IOException e) {
@@ -115,7 +204,14 @@ public class JavaNativeCodeSandbox implements CodeSandbox {
         List<String> outputList = new ArrayList<>();
         // 取用时最大值，便于判断是否超时
         long maxTime = 0;
+        String judgeMessage = null;
         for (ExecuteMessage executeMessage : executeMessageList) {
+            if (executeMessage.isTimeout()) {
+                executeCodeResponse.setMessage("超出时间限制：" + CASE_TIME_OUT + "ms");
+                executeCodeResponse.setStatus(3);
+                judgeMessage = "超出时间限制";
+                break;
+            }
             String errorMessage = executeMessage.getErrorMessage();
             if (StrUtil.isNotBlank(errorMessage)) {
                 executeCodeResponse.setMessage(errorMessage);
@@ -131,15 +227,15 @@ public class JavaNativeCodeSandbox implements CodeSandbox {
         }
         executeCodeResponse.setOutputList(outputList);
         JudgeInfo judgeInfo = new JudgeInfo();
+        judgeInfo.setMessage(judgeMessage);
         judgeInfo.setTime(maxTime);
+        judgeInfo.setCompileTime(compileResult.getTime());
         // 暂时不实现获取内存
         executeCodeResponse.setJudgeInfo(judgeInfo);
 
         // 5）清理文件
-        if (userCodeFile.getParentFile() != null) {
-            boolean del = FileUtil.del(userCodeParentPath);
-            System.out.println("删除" + (del ? "成功" : "失败"));
-        }
+        boolean del = FileUtil.del(userCodeDir);
+        System.out.println("删除" + (del ? "成功" : "失败"));
 
         return executeCodeResponse;
     }
@@ -0,0 +1,123 @@
+package com.oj.codesandbox.checker;
+
+import java.util.List;
+
+import com.oj.codesandbox.model.CheckerMode;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+
+/**
+ * 用例输出比对器，按请求中的期望输出和比对方式判断用例是否通过
+ */
+public class AnswerChecker {
+
+    public static final double DEFAULT_FLOAT_TOLERANCE = 1e-6;
+
+    private static final String[] EMPTY_TOKENS = new String[0];
+
+    private final List<String> expectedOutputList;
+
+    private final CheckerMode checkerMode;
+
+    private final double floatTolerance;
+
+    public AnswerChecker(List<String> expectedOutputList, CheckerMode checkerMode, double floatTolerance) {
+        this.expectedOutputList = expectedOutputList;
+        this.checkerMode = checkerMode == null ? CheckerMode.EXACT : checkerMode;
+        this.floatTolerance = floatTolerance;
+    }
+
+    /**
+     * 根据请求创建比对器
+     *
+     * @param executeCodeRequest
+     * @return 请求中没有期望输出时返回null
+     */
+    public static AnswerChecker of(ExecuteCodeRequest executeCodeRequest) {
+        if (CollUtil.isEmpty(executeCodeRequest.getExpectedOutputList())) {
+            return null;
+        }
+        Double floatTolerance = executeCodeRequest.getFloatTolerance();
+        return new AnswerChecker(executeCodeRequest.getExpectedOutputList(), executeCodeRequest.getCheckerMode(),
+                floatTolerance == null ? DEFAULT_FLOAT_TOLERANCE : floatTolerance);
+    }
+
+    /**
+     * 判断用例的输出是否与期望输出一致
+     *
+     * @param index  用例序号
+     * @param output 用例的标准输出
+     * @return 没有该用例的期望输出时视为通过
+     */
+    public boolean check(int index, String output) {
+        if (index >= expectedOutputList.size() || expectedOutputList.get(index) == null) {
+            return true;
+        }
+        String expected = expectedOutputList.get(index);
+        String actual = StrUtil.nullToEmpty(output);
+        switch (checkerMode) {
+            case IGNORE_WHITESPACE:
+                return matchTokens(expected, actual, false);
+            case FLOAT:
+                return matchTokens(expected, actual, true);
+            case EXACT:
+            default:
+                return normalize(expected).equals(normalize(actual));
+        }
+    }
+
+    /**
+     * 统一换行符并去掉末尾的空行
+     */
+    private static String normalize(String text) {
+        String normalized = text.replace("\r\n", "\n");
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '\n') {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    private boolean matchTokens(String expected, String actual, boolean floatCompare) {
+        String[] expectedTokens = split(expected);
+        String[] actualTokens = split(actual);
+        if (expectedTokens.length != actualTokens.length) {
+            return false;
+        }
+        for (int i = 0; i < expectedTokens.length; i++) {
+            if (expectedTokens[i].equals(actualTokens[i])) {
+                continue;
+            }
+            if (!floatCompare || !matchNumber(expectedTokens[i], actualTokens[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] split(String text) {
+        String trimmed = text.trim();
+        return trimmed.isEmpty() ? EMPTY_TOKENS : trimmed.split("\\s+");
+    }
+
+    /**
+     * 两个数字的绝对误差或相对误差不超过允许误差时视为相等
+     */
+    private boolean matchNumber(String expected, String actual) {
+        double expectedValue;
+        double actualValue;
+        try {
+            expectedValue = Double.parseDouble(expected);
+            actualValue = Double.parseDouble(actual);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Double.isNaN(expectedValue) || Double.isNaN(actualValue)) {
+            return false;
+        }
+        double diff = Math.abs(expectedValue - actualValue);
+        return diff <= floatTolerance || diff <= floatTolerance * Math.abs(expectedValue);
+    }
+}
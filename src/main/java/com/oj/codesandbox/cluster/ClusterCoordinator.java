@@ -0,0 +1,234 @@
+package com.oj.codesandbox.cluster;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oj.codesandbox.config.ClusterProperties;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.scheduler.AdmissionRejectedException;
+
+import cn.hutool.http.ContentType;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+
+/**
+ * 协调节点：记录沙箱节点上报的状态，把提交转发给负载最低的节点
+ * 节点的负载取执行槽位占用率和CPU占用率中较高的一个，相同时优先空闲预热容器多的节点；
+ * 两次上报之间转发的提交计入节点的占用，避免所有提交都转发到同一个节点
+ * 节点无法连接、繁忙（429/503）或正在下线时改由其他节点执行；代码执行没有副作用，重新执行是安全的
+ * 请求已发出后等待结果超时或连接中断时，节点可能仍在执行该提交，不再转发给其他节点，该提交直接失败
+ */
+@Component
+public class ClusterCoordinator {
+
+    private static final String AUTH_REQUEST_HEADER = "auth";
+
+    private final ClusterProperties clusterProperties;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 节点id => 节点
+     */
+    private final Map<String, Node> nodeMap = new ConcurrentHashMap<>();
+
+    public ClusterCoordinator(ClusterProperties clusterProperties, ObjectMapper objectMapper) {
+        this.clusterProperties = clusterProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return clusterProperties.getMode() == ClusterProperties.Mode.COORDINATOR;
+    }
+
+    /**
+     * 记录节点上报的状态，新节点在第一次上报时加入集群
+     *
+     * @param nodeStatus
+     */
+    public void heartbeat(NodeStatus nodeStatus) {
+        nodeStatus.setUpdateTime(System.currentTimeMillis());
+        nodeMap.compute(nodeStatus.getNodeId(), (nodeId, node) -> {
+            if (node == null) {
+                System.out.println("沙箱节点加入：" + nodeId + "，地址：" + nodeStatus.getUrl());
+                node = new Node();
+            }
+            node.status = nodeStatus;
+            node.dispatched.set(0);
+            return node;
+        });
+    }
+
+    /**
+     * 把提交转发给负载最低的节点执行，失败时依次尝试其他节点
+     *
+     * @param executeCodeRequest
+     * @param authHeader         原样转发的鉴权请求头
+     * @return
+     * @throws AdmissionRejectedException 没有可用的节点、所有节点都执行失败，或请求发出后节点没有返回结果
+     */
+    public ExecuteCodeResponse execute(ExecuteCodeRequest executeCodeRequest, String authHeader) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(executeCodeRequest);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("序列化请求失败", e);
+        }
+        Set<String> excludedNodeIds = new HashSet<>();
+        for (int i = 0; i < clusterProperties.getMaxAttempts(); i++) {
+            Node node = selectNode(executeCodeRequest.getLanguage(), excludedNodeIds);
+            if (node == null) {
+                break;
+            }
+            NodeStatus nodeStatus = node.status;
+            excludedNodeIds.add(nodeStatus.getNodeId());
+            node.dispatched.incrementAndGet();
+            try (HttpResponse httpResponse = HttpRequest.post(nodeStatus.getUrl() + "/executeCode")
+                    .header(AUTH_REQUEST_HEADER, authHeader)
+                    .contentType(ContentType.JSON.getValue())
+                    .body(body)
+                    .timeout(clusterProperties.getForwardTimeout())
+                    .execute()) {
+                int status = httpResponse.getStatus();
+                if (httpResponse.isOk()) {
+                    return objectMapper.readValue(httpResponse.bodyBytes(), ExecuteCodeResponse.class);
+                }
+                if (status == 403) {
+                    throw new AdmissionRejectedException(403, "鉴权失败");
+                }
+                // 节点繁忙、正在下线或内部错误，改由其他节点执行
+                System.out.println("节点执行失败：" + nodeStatus.getNodeId() + "，状态码：" + status);
+            } catch (AdmissionRejectedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (isConnectFailure(e)) {
+                    // 节点无法连接，移出集群，恢复后重新上报时再加入
+                    System.out.println("节点连接失败，移出集群：" + nodeStatus.getNodeId() + "，" + e.getMessage());
+                    nodeMap.remove(nodeStatus.getNodeId(), node);
+                    continue;
+                }
+                // 请求已发出，节点可能仍在执行，重新转发会让同一个提交执行多次
+                System.out.println("节点没有返回结果：" + nodeStatus.getNodeId() + "，" + e.getMessage());
+                if (findCause(e, SocketTimeoutException.class) != null) {
+                    throw new AdmissionRejectedException(504, "沙箱节点执行超时");
+                }
+                throw new AdmissionRejectedException(502, "沙箱节点连接中断");
+            }
+        }
+        throw new AdmissionRejectedException(503, "没有可用的沙箱节点");
+    }
+
+    /**
+     * 是否在建立连接时失败，此时请求还没有发给节点
+     *
+     * @param e
+     * @return
+     */
+    private static boolean isConnectFailure(Throwable e) {
+        if (findCause(e, ConnectException.class) != null || findCause(e, NoRouteToHostException.class) != null
+                || findCause(e, UnknownHostException.class) != null) {
+            return true;
+        }
+        // 连接超时和读取超时是同一个异常类型，只能按消息区分
+        SocketTimeoutException timeoutException = findCause(e, SocketTimeoutException.class);
+        return timeoutException != null && timeoutException.getMessage() != null
+                && timeoutException.getMessage().toLowerCase().contains("connect");
+    }
+
+    private static <T extends Throwable> T findCause(Throwable e, Class<T> type) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return type.cast(cause);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 选择负载最低的可用节点
+     *
+     * @param language
+     * @param excludedNodeIds 本次提交已经尝试过的节点
+     * @return 没有可用节点时返回null
+     */
+    Node selectNode(String language, Set<String> excludedNodeIds) {
+        long expireTime = System.currentTimeMillis() - clusterProperties.getNodeTtl();
+        return nodeMap.values().stream()
+                .filter(node -> {
+                    NodeStatus nodeStatus = node.status;
+                    return nodeStatus.getUpdateTime() >= expireTime && !nodeStatus.isDraining()
+                            && !excludedNodeIds.contains(nodeStatus.getNodeId())
+                            && (nodeStatus.getLanguages() == null || nodeStatus.getLanguages().contains(language));
+                })
+                .min(Comparator.comparingDouble(Node::getLoad)
+                        .thenComparing(node -> -node.status.getIdleContainers()))
+                .orElse(null);
+    }
+
+    /**
+     * 集群中所有节点的状态
+     *
+     * @return
+     */
+    public List<NodeStatus> getNodes() {
+        List<NodeStatus> nodes = new ArrayList<>();
+        for (Node node : nodeMap.values()) {
+            nodes.add(node.status);
+        }
+        nodes.sort(Comparator.comparing(NodeStatus::getNodeId));
+        return nodes;
+    }
+
+    /**
+     * 定时移除长时间未上报状态的节点
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.cluster.node-ttl:6000}")
+    public void removeExpiredNodes() {
+        long expireTime = System.currentTimeMillis() - clusterProperties.getNodeTtl();
+        nodeMap.values().removeIf(node -> {
+            boolean expired = node.status.getUpdateTime() < expireTime;
+            if (expired) {
+                System.out.println("沙箱节点失联，移出集群：" + node.status.getNodeId());
+            }
+            return expired;
+        });
+    }
+
+    /**
+     * 集群中的节点：最近一次上报的状态和之后转发给它的提交数
+     */
+    static class Node {
+
+        volatile NodeStatus status;
+
+        final AtomicInteger dispatched = new AtomicInteger(0);
+
+        /**
+         * 节点负载：执行槽位占用率（含排队和上报后新转发的提交）与CPU占用率中较高的一个
+         *
+         * @return
+         */
+        double getLoad() {
+            NodeStatus nodeStatus = status;
+            double slotLoad = (double) (nodeStatus.getRunning() + nodeStatus.getWaiting() + dispatched.get())
+                    / Math.max(1, nodeStatus.getMaxConcurrent());
+            return Math.max(slotLoad, 1 - nodeStatus.getCpuHeadroom());
+        }
+    }
+}
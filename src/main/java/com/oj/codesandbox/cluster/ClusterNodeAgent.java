@@ -0,0 +1,151 @@
+package com.oj.codesandbox.cluster;
+
+import java.lang.management.ManagementFactory;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oj.codesandbox.CodeSandboxRegistry;
+import com.oj.codesandbox.config.AdmissionProperties;
+import com.oj.codesandbox.config.ClusterProperties;
+import com.oj.codesandbox.docker.ContainerPoolManager;
+import com.oj.codesandbox.scheduler.ExecutionScheduler;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.ContentType;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+
+/**
+ * 沙箱节点：定时向协调节点上报本节点的空闲容器、排队数和CPU余量
+ * 下线时先上报下线状态，协调节点不再转发新的提交，已接收的提交正常执行完成
+ */
+@Component
+public class ClusterNodeAgent {
+
+    /**
+     * 上报状态时携带的鉴权请求头，与接口鉴权一致
+     */
+    private static final String AUTH_REQUEST_HEADER = "auth";
+
+    private static final String AUTH_REQUEST_SECRET = "secretKey";
+
+    /**
+     * 上报状态的超时时间（毫秒）
+     */
+    private static final int HEARTBEAT_TIMEOUT = 1000;
+
+    @Resource
+    private ClusterProperties clusterProperties;
+
+    @Resource
+    private AdmissionProperties admissionProperties;
+
+    @Resource
+    private ExecutionScheduler executionScheduler;
+
+    @Resource
+    private ContainerPoolManager containerPoolManager;
+
+    @Resource
+    private CodeSandboxRegistry codeSandboxRegistry;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    private volatile boolean draining = false;
+
+    public boolean isEnabled() {
+        return clusterProperties.getMode() == ClusterProperties.Mode.NODE;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * 本节点当前的状态
+     *
+     * @return
+     */
+    public NodeStatus getStatus() {
+        NodeStatus nodeStatus = new NodeStatus();
+        nodeStatus.setNodeId(StrUtil.blankToDefault(clusterProperties.getNodeId(), clusterProperties.getAdvertiseUrl()));
+        nodeStatus.setUrl(clusterProperties.getAdvertiseUrl());
+        nodeStatus.setLanguages(codeSandboxRegistry.getLanguages());
+        nodeStatus.setIdleContainers(containerPoolManager.getIdleCount());
+        nodeStatus.setTotalContainers(containerPoolManager.getTotalCount());
+        nodeStatus.setRunning(executionScheduler.getRunningCount());
+        nodeStatus.setWaiting(executionScheduler.getWaitingCount());
+        nodeStatus.setMaxConcurrent(admissionProperties.getMaxConcurrent());
+        nodeStatus.setCpuHeadroom(getCpuHeadroom());
+        nodeStatus.setDraining(draining);
+        return nodeStatus;
+    }
+
+    /**
+     * 定时上报状态，协调节点暂时不可用时等待下一次上报
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.cluster.heartbeat-interval:2000}")
+    public void heartbeat() {
+        if (!isEnabled()) {
+            return;
+        }
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(getStatus());
+        } catch (JsonProcessingException e) {
+            System.out.println("序列化节点状态失败：" + e.getMessage());
+            return;
+        }
+        try (HttpResponse httpResponse = HttpRequest.post(clusterProperties.getCoordinatorUrl() + "/cluster/heartbeat")
+                .header(AUTH_REQUEST_HEADER, AUTH_REQUEST_SECRET)
+                .contentType(ContentType.JSON.getValue())
+                .body(body)
+                .timeout(HEARTBEAT_TIMEOUT)
+                .execute()) {
+            if (!httpResponse.isOk()) {
+                System.out.println("上报节点状态失败，状态码：" + httpResponse.getStatus());
+            }
+        } catch (Exception e) {
+            System.out.println("上报节点状态失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 下线本节点：立即上报下线状态，之后收到的提交直接拒绝，由协调节点转发给其他节点
+     */
+    public void drain() {
+        draining = true;
+        System.out.println("节点开始下线");
+        heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (isEnabled() && !draining) {
+            drain();
+        }
+    }
+
+    /**
+     * 宿主机的CPU余量
+     *
+     * @return 0~1，无法统计时为1
+     */
+    private static double getCpuHeadroom() {
+        java.lang.management.OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            double cpuLoad = ((com.sun.management.OperatingSystemMXBean) osBean).getCpuLoad();
+            if (cpuLoad >= 0) {
+                return Math.max(0, 1 - cpuLoad);
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,67 @@
+package com.oj.codesandbox.cluster;
+
+import java.util.Set;
+
+import lombok.Data;
+
+/**
+ * 沙箱节点上报的状态
+ */
+@Data
+public class NodeStatus {
+
+    /**
+     * 节点id
+     */
+    private String nodeId;
+
+    /**
+     * 节点地址，协调节点通过该地址转发提交
+     */
+    private String url;
+
+    /**
+     * 节点支持的编程语言
+     */
+    private Set<String> languages;
+
+    /**
+     * 空闲的预热容器数
+     */
+    private int idleContainers;
+
+    /**
+     * 容器总数
+     */
+    private int totalContainers;
+
+    /**
+     * 正在执行的提交数
+     */
+    private int running;
+
+    /**
+     * 排队等待的提交数
+     */
+    private int waiting;
+
+    /**
+     * 同时执行的提交数上限
+     */
+    private int maxConcurrent;
+
+    /**
+     * CPU余量（0~1），无法统计时为1
+     */
+    private double cpuHeadroom;
+
+    /**
+     * 是否正在下线，下线中的节点不再接收新的提交
+     */
+    private boolean draining;
+
+    /**
+     * 协调节点收到状态的时间
+     */
+    private Long updateTime;
+}
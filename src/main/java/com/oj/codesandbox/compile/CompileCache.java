@@ -0,0 +1,223 @@
+package com.oj.codesandbox.compile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.config.CompileProperties;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.UUID;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.crypto.digest.DigestUtil;
+
+/**
+ * 编译产物缓存
+ * 以 语言 + 工具链版本 + 源代码 的哈希为键，把编译产物保存在本地磁盘，相同代码直接复用编译结果；
+ * 总大小超过上限时按最近最少使用淘汰；判题流程中通过 {@link #putAsync} 在后台写入，不占用提交的执行时间
+ */
+@Component
+public class CompileCache {
+
+    private static final String TEMP_DIR_PREFIX = ".tmp-";
+
+    /**
+     * 等待写入的缓存数上限，超出后丢弃，下次编译相同代码时再写入
+     */
+    private static final int WRITE_QUEUE_CAPACITY = 64;
+
+    private final CompileProperties compileProperties;
+
+    private final File cacheDir;
+
+    /**
+     * 缓存键 => 占用空间，按访问顺序排列
+     */
+    private final LinkedHashMap<String, Long> entryMap = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalSize = 0L;
+
+    /**
+     * 后台写入缓存的单个线程
+     */
+    private final ThreadPoolExecutor writeExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(WRITE_QUEUE_CAPACITY),
+            ThreadFactoryBuilder.create().setNamePrefix("compile-cache-").setDaemon(true).build(),
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    public CompileCache(CompileProperties compileProperties) {
+        this.compileProperties = compileProperties;
+        File dir = new File(compileProperties.getCacheDir());
+        if (!dir.isAbsolute()) {
+            dir = new File(System.getProperty("user.dir"), compileProperties.getCacheDir());
+        }
+        this.cacheDir = dir;
+        if (compileProperties.isCacheEnabled()) {
+            loadEntries();
+        }
+    }
+
+    /**
+     * 获取缓存的编译产物
+     *
+     * @param language
+     * @param toolchainVersion
+     * @param code
+     * @return 相对路径 => 文件内容，未命中返回null
+     */
+    public Map<String, byte[]> get(String language, String toolchainVersion, String code) {
+        if (!compileProperties.isCacheEnabled()) {
+            return null;
+        }
+        String key = getKey(language, toolchainVersion, code);
+        synchronized (this) {
+            if (entryMap.get(key) == null) {
+                return null;
+            }
+        }
+        File entryDir = new File(cacheDir, key);
+        try {
+            Map<String, byte[]> files = new LinkedHashMap<>();
+            for (File file : FileUtil.loopFiles(entryDir)) {
+                files.put(entryDir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/'),
+                        Files.readAllBytes(file.toPath()));
+            }
+            if (files.isEmpty()) {
+                return null;
+            }
+            // 记录访问时间，重启后按此恢复淘汰顺序
+            entryDir.setLastModified(System.currentTimeMillis());
+            return files;
+        } catch (IOException | UncheckedIOException e) {
+            // 读取过程中被淘汰，视为未命中
+            return null;
+        }
+    }
+
+    /**
+     * 缓存编译产物
+     *
+     * @param language
+     * @param toolchainVersion
+     * @param code
+     * @param files            相对路径 => 文件内容
+     */
+    public void put(String language, String toolchainVersion, String code, Map<String, byte[]> files) {
+        if (!compileProperties.isCacheEnabled() || files.isEmpty()) {
+            return;
+        }
+        long size = files.values().stream().mapToLong(bytes -> bytes.length).sum();
+        if (size > compileProperties.getCacheMaxSize()) {
+            return;
+        }
+        String key = getKey(language, toolchainVersion, code);
+        synchronized (this) {
+            if (entryMap.containsKey(key)) {
+                return;
+            }
+        }
+        // 先写入临时目录再整体重命名，避免读到写了一半的缓存
+        File tempDir = new File(cacheDir, TEMP_DIR_PREFIX + UUID.fastUUID());
+        try {
+            files.forEach((path, bytes) -> FileUtil.writeBytes(bytes, new File(tempDir, path)));
+            Files.move(tempDir.toPath(), new File(cacheDir, key).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            // 其他线程已写入相同的缓存或磁盘异常，放弃本次缓存
+            FileUtil.del(tempDir);
+            return;
+        }
+        synchronized (this) {
+            entryMap.put(key, size);
+            totalSize += size;
+            evict();
+        }
+    }
+
+    /**
+     * 在后台线程中缓存编译产物，写入队列已满时放弃本次缓存
+     *
+     * @param language
+     * @param toolchainVersion
+     * @param code
+     * @param files            相对路径 => 文件内容，提交后不能再修改
+     */
+    public void putAsync(String language, String toolchainVersion, String code, Map<String, byte[]> files) {
+        if (!compileProperties.isCacheEnabled() || files.isEmpty()) {
+            return;
+        }
+        writeExecutor.execute(() -> put(language, toolchainVersion, code, files));
+    }
+
+    /**
+     * 当前缓存条目数
+     *
+     * @return
+     */
+    public synchronized int size() {
+        return entryMap.size();
+    }
+
+    /**
+     * 当前缓存占用空间
+     *
+     * @return
+     */
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entryMap.entrySet().iterator();
+        while (totalSize > compileProperties.getCacheMaxSize() && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+            totalSize -= entry.getValue();
+            FileUtil.del(new File(cacheDir, entry.getKey()));
+        }
+    }
+
+    /**
+     * 启动时从磁盘恢复缓存索引，按最后访问时间排列
+     */
+    private synchronized void loadEntries() {
+        FileUtil.mkdir(cacheDir);
+        File[] entryDirs = cacheDir.listFiles(File::isDirectory);
+        if (entryDirs == null) {
+            return;
+        }
+        Arrays.sort(entryDirs, Comparator.comparingLong(File::lastModified));
+        for (File entryDir : entryDirs) {
+            if (entryDir.getName().startsWith(TEMP_DIR_PREFIX)) {
+                FileUtil.del(entryDir);
+                continue;
+            }
+            long size = FileUtil.loopFiles(entryDir).stream().mapToLong(File::length).sum();
+            entryMap.put(entryDir.getName(), size);
+            totalSize += size;
+        }
+        evict();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeExecutor.shutdown();
+    }
+
+    private static String getKey(String language, String toolchainVersion, String code) {
+        return DigestUtil.sha256Hex(language + '\0' + toolchainVersion + '\0' + code);
+    }
+}
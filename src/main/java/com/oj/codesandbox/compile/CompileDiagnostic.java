@@ -0,0 +1,39 @@
+package com.oj.codesandbox.compile;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 编译诊断信息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompileDiagnostic {
+
+    /**
+     * 诊断类型（ERROR、WARNING等）
+     */
+    private String kind;
+
+    /**
+     * 行号，从1开始，未知时为-1
+     */
+    private Long line;
+
+    /**
+     * 列号，从1开始，未知时为-1
+     */
+    private Long column;
+
+    /**
+     * 诊断内容
+     */
+    private String message;
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d:%d: %s", kind, line, column, message);
+    }
+}
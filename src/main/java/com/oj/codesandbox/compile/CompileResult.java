@@ -0,0 +1,96 @@
+package com.oj.codesandbox.compile;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.oj.codesandbox.model.ExecuteMessage;
+
+import cn.hutool.core.io.FileUtil;
+import lombok.Data;
+
+/**
+ * 编译结果
+ */
+@Data
+public class CompileResult {
+
+    /**
+     * 是否编译成功
+     */
+    private boolean success;
+
+    /**
+     * 编译诊断信息
+     */
+    private List<CompileDiagnostic> diagnostics = new ArrayList<>();
+
+    /**
+     * 编译得到的class文件，类的全限定名 => 字节码
+     */
+    private Map<String, byte[]> classBytes = new LinkedHashMap<>();
+
+    /**
+     * 编译耗时（毫秒）
+     */
+    private long time;
+
+    /**
+     * 编译失败的结果
+     *
+     * @param message
+     * @return
+     */
+    public static CompileResult failure(String message) {
+        CompileResult compileResult = new CompileResult();
+        compileResult.setSuccess(false);
+        compileResult.getDiagnostics().add(new CompileDiagnostic("ERROR", -1L, -1L, message));
+        return compileResult;
+    }
+
+    /**
+     * 诊断信息拼接为文本
+     *
+     * @return
+     */
+    public String getDiagnosticMessage() {
+        return diagnostics.stream().map(CompileDiagnostic::toString).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * 获取class文件，相对路径 => 字节码
+     *
+     * @return
+     */
+    public Map<String, byte[]> getClassFiles() {
+        Map<String, byte[]> classFiles = new LinkedHashMap<>();
+        classBytes.forEach((className, bytes) -> classFiles.put(className.replace('.', '/') + ".class", bytes));
+        return classFiles;
+    }
+
+    /**
+     * 将class文件写入目录
+     *
+     * @param dir
+     */
+    public void writeClassFiles(File dir) {
+        getClassFiles().forEach((path, bytes) -> FileUtil.writeBytes(bytes, new File(dir, path)));
+    }
+
+    /**
+     * 转换为执行信息
+     *
+     * @return
+     */
+    public ExecuteMessage toExecuteMessage() {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setValue(success ? 0 : 1);
+        executeMessage.setMessage("");
+        executeMessage.setErrorMessage(getDiagnosticMessage());
+        executeMessage.setTime(time);
+        return executeMessage;
+    }
+}
@@ -0,0 +1,202 @@
+package com.oj.codesandbox.compile;
+
+import java.util.Base64;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.config.GccProperties;
+import com.oj.codesandbox.docker.PooledContainer;
+import com.oj.codesandbox.docker.Workspace;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import lombok.Data;
+
+/**
+ * c/c++工具链：沙箱镜像、预编译头和容器内的编译命令
+ * 编译在沙箱自己的容器中进行（禁用网络、只读根文件系统），编译产物通过标准输出取回，
+ * 之后与其他语言一样写入内存中的工作目录并复用编译缓存
+ */
+@Component
+public class GccToolchain {
+
+    /**
+     * 镜像中预编译头所在的目录，编译c++时加入头文件搜索路径
+     */
+    public static final String PCH_DIR = "/opt/pch";
+
+    /**
+     * 编译产物的文件名
+     */
+    public static final String EXECUTABLE_NAME = "main";
+
+    /**
+     * 编译输出的结束标记，缺少时说明编译超时或输出超限
+     */
+    static final String END_MARK = "#END";
+
+    /**
+     * 构建上下文的大小上限（字节）
+     */
+    private static final long BUILD_CONTEXT_MAX_BYTES = 64 * 1024L;
+
+    @Resource
+    private GccProperties gccProperties;
+
+    /**
+     * 沙箱镜像，启用预编译头时镜像标签随基础镜像和c++编译参数变化，参数修改后重新构建
+     *
+     * @return
+     */
+    public String getImage() {
+        if (!gccProperties.isPchEnabled()) {
+            return gccProperties.getBaseImage();
+        }
+        String tag = DigestUtil.sha256Hex(gccProperties.getBaseImage() + '\0'
+                + String.join(" ", gccProperties.getGxxFlags())).substring(0, 12);
+        return gccProperties.getImageRepository() + ":" + tag;
+    }
+
+    public boolean isPchEnabled() {
+        return gccProperties.isPchEnabled();
+    }
+
+    /**
+     * 创建镜像的构建上下文：找到编译器自带的 bits/stdc++.h，复制到单独的目录后用c++编译参数预编译
+     * 预编译头只在编译参数一致且是源代码中第一个包含的头文件时生效，否则编译器会忽略它并正常解析头文件
+     *
+     * @return
+     */
+    public Workspace createImageBuildContext() {
+        Workspace buildContext = new Workspace(BUILD_CONTEXT_MAX_BYTES);
+        String header = PCH_DIR + "/bits/stdc++.h";
+        String dockerfile = "FROM " + gccProperties.getBaseImage() + "\n"
+                + "RUN mkdir -p " + PCH_DIR + "/bits"
+                + " && cp \"$(echo '#include <bits/stdc++.h>' | g++ -x c++ -H -fsyntax-only - 2>&1"
+                + " | grep -m1 'bits/stdc++.h' | awk '{print $2}')\" " + header
+                + " && g++ " + String.join(" ", gccProperties.getGxxFlags()) + " -x c++-header " + header
+                + " -o " + header + ".gch\n";
+        buildContext.writeString("Dockerfile", dockerfile);
+        return buildContext;
+    }
+
+    /**
+     * 工具链版本，作为编译缓存键的一部分，镜像或编译参数变化后不再命中旧的缓存
+     *
+     * @param language
+     * @return
+     */
+    public String getToolchainVersion(GccLanguage language) {
+        return getImage() + " " + String.join(" ", getFlags(language)) + " "
+                + String.join(" ", gccProperties.getLdFlags());
+    }
+
+    /**
+     * 在容器中编译的命令
+     * 临时文件写入工作目录（根文件系统只读）；输出第一行为编译器退出码，第二行为Base64编码的可执行文件（成功）或编译日志（失败）
+     *
+     * @param language
+     * @param codeFileName
+     * @return
+     */
+    public String[] getCompileCmd(GccLanguage language, String codeFileName) {
+        String workDir = PooledContainer.WORK_DIR;
+        StringBuilder compile = new StringBuilder(language.getCompiler());
+        for (String flag : getFlags(language)) {
+            compile.append(' ').append(flag);
+        }
+        if (language == GccLanguage.CPP && gccProperties.isPchEnabled()) {
+            compile.append(" -I").append(PCH_DIR);
+        }
+        compile.append(" -o ").append(EXECUTABLE_NAME).append(' ').append(codeFileName);
+        for (String flag : gccProperties.getLdFlags()) {
+            compile.append(' ').append(flag);
+        }
+        String script = "export TMPDIR=" + workDir + "/.tmp; mkdir -p $TMPDIR; cd " + workDir
+                + " && " + compile + " > compile.log 2>&1; rc=$?; echo $rc;"
+                + " if [ $rc -eq 0 ]; then base64 -w0 " + EXECUTABLE_NAME + "; else base64 -w0 compile.log; fi;"
+                + " echo; echo '" + END_MARK + "'";
+        return new String[] { "sh", "-c", script };
+    }
+
+    /**
+     * 编译命令输出的最大字节数：可执行文件Base64编码后的大小加上余量
+     *
+     * @return
+     */
+    public long getCompileOutputLimit() {
+        return gccProperties.getMaxBinarySize() / 3 * 4 + 1024;
+    }
+
+    public long getCompileTimeout() {
+        return gccProperties.getCompileTimeout();
+    }
+
+    public long getMemoryLimit() {
+        return gccProperties.getMemoryLimit();
+    }
+
+    /**
+     * 解析编译命令的输出
+     *
+     * @param output
+     * @return 输出不完整时返回null
+     */
+    public static GccOutput parseOutput(String output) {
+        String[] lines = output.split("\n");
+        if (lines.length < 3 || !END_MARK.equals(lines[lines.length - 1].trim())) {
+            return null;
+        }
+        GccOutput gccOutput = new GccOutput();
+        try {
+            gccOutput.setExitCode(Integer.parseInt(lines[0].trim()));
+            gccOutput.setPayload(Base64.getDecoder().decode(lines[1].trim()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return gccOutput;
+    }
+
+    private List<String> getFlags(GccLanguage language) {
+        return language == GccLanguage.CPP ? gccProperties.getGxxFlags() : gccProperties.getGccFlags();
+    }
+
+    /**
+     * 工具链支持的语言
+     */
+    public enum GccLanguage {
+
+        C("gcc"),
+
+        CPP("g++");
+
+        private final String compiler;
+
+        GccLanguage(String compiler) {
+            this.compiler = compiler;
+        }
+
+        public String getCompiler() {
+            return compiler;
+        }
+    }
+
+    /**
+     * 编译命令的输出
+     */
+    @Data
+    public static class GccOutput {
+
+        /**
+         * 编译器退出码
+         */
+        private int exitCode;
+
+        /**
+         * 成功时为可执行文件，失败时为编译日志
+         */
+        private byte[] payload;
+    }
+}
@@ -0,0 +1,390 @@
+package com.oj.codesandbox.compile;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.config.CompileProperties;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+import cn.hutool.core.date.StopWatch;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+
+/**
+ * 进程内java编译服务
+ * 使用javax.tools在沙箱JVM内编译，编译器和各编译线程的文件管理器常驻复用，省去每次启动javac进程的开销
+ * 等待编译的队列有上限，队列已满时直接拒绝；编译超时从编译线程开始执行时计算，排队时间不计入，
+ * 排队过久同样放弃；队列已满、排队过久和编译超时都属于沙箱繁忙或异常，抛出异常而不是作为用户代码的编译错误返回
+ * javac不响应中断，超时的编译只能在下一个编译阶段开始时中止，
+ * 在此之前该线程移出线程池，由新的线程补上，避免病态代码长时间占住所有编译线程
+ */
+@Component
+public class JavaCompileService {
+
+    private static final String WARM_UP_CODE = "public class Main { public static void main(String[] args) { "
+            + "java.util.List<Integer> list = new java.util.ArrayList<>(); System.out.println(list); } }";
+
+    private final CompileProperties compileProperties;
+
+    private final JavaCompiler javaCompiler;
+
+    private final ThreadPoolExecutor compileExecutor;
+
+    /**
+     * 超时后仍在编译、已移出线程池的线程数
+     */
+    private final AtomicInteger retiredCount = new AtomicInteger(0);
+
+    /**
+     * 每个编译线程常驻一个标准文件管理器，复用其中缓存的平台类索引
+     */
+    private final ThreadLocal<StandardJavaFileManager> fileManagerHolder;
+
+    public JavaCompileService(CompileProperties compileProperties) {
+        this.compileProperties = compileProperties;
+        this.javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (javaCompiler == null) {
+            throw new IllegalStateException("当前运行环境没有java编译器，请使用JDK启动");
+        }
+        this.fileManagerHolder = ThreadLocal.withInitial(
+                () -> javaCompiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8));
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(compileProperties.getThreads(),
+                compileProperties.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(compileProperties.getQueueCapacity()),
+                ThreadFactoryBuilder.create().setNamePrefix("java-compile-").setDaemon(true).build());
+        threadPoolExecutor.prestartAllCoreThreads();
+        this.compileExecutor = threadPoolExecutor;
+        warmUp();
+    }
+
+    /**
+     * 编译java代码
+     *
+     * @param className 主类名，如 Main
+     * @param code      源代码
+     * @return
+     * @throws RuntimeException 等待编译的队列已满、排队超时或编译超时
+     */
+    public CompileResult compile(String className, String code) {
+        if (code == null || code.length() > compileProperties.getMaxSourceLength()) {
+            return CompileResult.failure("源代码为空或超过长度限制");
+        }
+        long timeout = compileProperties.getTimeout();
+        CompileTask compileTask = new CompileTask(className, code, timeout);
+        Future<CompileResult> future;
+        try {
+            future = compileExecutor.submit(compileTask);
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("编译队列已满，请稍后重试");
+        }
+        try {
+            // 排队最多等待一个编译超时时间
+            if (!compileTask.awaitStart(timeout) && compileTask.abandon()) {
+                future.cancel(false);
+                compileExecutor.remove((Runnable) future);
+                throw new RuntimeException("编译排队超时，请稍后重试");
+            }
+            long remaining = compileTask.getDeadline() - System.nanoTime();
+            return future.get(Math.max(remaining, 0L), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            compileTask.retire();
+            throw new RuntimeException("编译超时");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CompileAbortException) {
+                throw (CompileAbortException) e.getCause();
+            }
+            throw new RuntimeException("编译异常", e.getCause());
+        }
+    }
+
+    /**
+     * 编译工具链版本，用于区分编译缓存
+     *
+     * @return
+     */
+    public String getToolchainVersion() {
+        return "javac-" + Runtime.version() + "-release-" + compileProperties.getRelease();
+    }
+
+    private CompileResult doCompile(String className, String code, long deadline) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
+        MemoryJavaFileManager memoryJavaFileManager = new MemoryJavaFileManager(fileManagerHolder.get());
+        List<String> options = Arrays.asList("--release", compileProperties.getRelease(), "-proc:none",
+                "-Xlint:none", "-encoding", "UTF-8");
+        JavacTask javacTask = (JavacTask) javaCompiler.getTask(null, memoryJavaFileManager, diagnosticCollector,
+                options, null, Collections.singletonList(MemoryJavaFileManager.sourceOf(className, code)));
+        javacTask.addTaskListener(new CompileGuard(deadline, compileProperties.getMaxAllocatedBytes()));
+
+        CompileResult compileResult = new CompileResult();
+        try {
+            compileResult.setSuccess(Boolean.TRUE.equals(javacTask.call()));
+        } catch (RuntimeException e) {
+            CompileAbortException abortException = findAbortException(e);
+            if (abortException == null) {
+                throw e;
+            }
+            if (abortException.isTimeout()) {
+                // 与等待结果超时一样按沙箱异常处理
+                throw abortException;
+            }
+            return CompileResult.failure(abortException.getMessage());
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnosticCollector.getDiagnostics()) {
+            compileResult.getDiagnostics().add(new CompileDiagnostic(diagnostic.getKind().name(),
+                    diagnostic.getLineNumber(), diagnostic.getColumnNumber(),
+                    diagnostic.getMessage(Locale.ROOT)));
+        }
+        if (compileResult.isSuccess()) {
+            compileResult.setClassBytes(memoryJavaFileManager.getClassBytes());
+        }
+        stopWatch.stop();
+        compileResult.setTime(stopWatch.getLastTaskTimeMillis());
+        return compileResult;
+    }
+
+    /**
+     * 启动时在每个编译线程上编译一次，提前加载编译器和平台类索引
+     */
+    private void warmUp() {
+        for (int i = 0; i < compileProperties.getThreads(); i++) {
+            compileExecutor.submit(() -> doCompile("Main", WARM_UP_CODE, Long.MAX_VALUE));
+        }
+    }
+
+    private static CompileAbortException findAbortException(Throwable e) {
+        while (e != null) {
+            if (e instanceof CompileAbortException) {
+                return (CompileAbortException) e;
+            }
+            e = e.getCause();
+        }
+        return null;
+    }
+
+    /**
+     * 当前的编译线程数（含补上超时线程的新线程）
+     *
+     * @return
+     */
+    int getPoolSize() {
+        return compileExecutor.getPoolSize();
+    }
+
+    /**
+     * 按超时未结束的编译线程数调整线程池大小，最多额外补上配置的线程数，超出后不再补充
+     */
+    private synchronized void resizePool() {
+        int threads = compileProperties.getThreads();
+        int size = threads + Math.min(retiredCount.get(), threads);
+        if (size > compileExecutor.getMaximumPoolSize()) {
+            compileExecutor.setMaximumPoolSize(size);
+            compileExecutor.setCorePoolSize(size);
+            compileExecutor.prestartAllCoreThreads();
+        } else if (size < compileExecutor.getMaximumPoolSize()) {
+            compileExecutor.setCorePoolSize(size);
+            compileExecutor.setMaximumPoolSize(size);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compileExecutor.shutdownNow();
+    }
+
+    /**
+     * 单次编译，开始执行时计算超时时间，超时后把执行编译的线程移出线程池
+     */
+    private class CompileTask implements Callable<CompileResult> {
+
+        private final String className;
+
+        private final String code;
+
+        private final long timeoutMillis;
+
+        private final CountDownLatch startLatch = new CountDownLatch(1);
+
+        private volatile long deadline;
+
+        private boolean started;
+
+        private boolean finished;
+
+        private boolean retired;
+
+        /**
+         * 排队超时，调用方已放弃
+         */
+        private boolean abandoned;
+
+        CompileTask(String className, String code, long timeoutMillis) {
+            this.className = className;
+            this.code = code;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public CompileResult call() {
+            synchronized (this) {
+                if (abandoned) {
+                    return null;
+                }
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                started = true;
+            }
+            startLatch.countDown();
+            try {
+                return doCompile(className, code, deadline);
+            } finally {
+                boolean wasRetired;
+                synchronized (this) {
+                    finished = true;
+                    wasRetired = retired;
+                }
+                if (wasRetired) {
+                    // 编译器状态可能不完整，丢弃该线程的文件管理器
+                    fileManagerHolder.remove();
+                    retiredCount.decrementAndGet();
+                    resizePool();
+                }
+            }
+        }
+
+        /**
+         * 等待编译线程开始执行
+         *
+         * @param timeoutMillis
+         * @return 已开始执行时返回true
+         * @throws InterruptedException
+         */
+        boolean awaitStart(long timeoutMillis) throws InterruptedException {
+            return startLatch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * 排队超时后放弃编译
+         *
+         * @return 还没有开始执行时返回true，之后不会再执行；已开始执行时返回false，按正常的编译等待结果
+         */
+        synchronized boolean abandon() {
+            if (started) {
+                return false;
+            }
+            abandoned = true;
+            return true;
+        }
+
+        long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * 编译超时：仍在编译时线程池补上一个新线程，编译中止后恢复原来的大小
+         */
+        void retire() {
+            synchronized (this) {
+                if (!started || finished || retired) {
+                    return;
+                }
+                retired = true;
+            }
+            System.out.println("编译超时，补充编译线程，当前超时未结束的编译数：" + retiredCount.incrementAndGet());
+            resizePool();
+        }
+    }
+
+    /**
+     * 编译各阶段检查是否超时、分配的内存是否超限，超出则中止编译
+     */
+    private static class CompileGuard implements TaskListener {
+
+        private final long deadline;
+
+        private final long maxAllocatedBytes;
+
+        private final long startAllocatedBytes;
+
+        CompileGuard(long deadline, long maxAllocatedBytes) {
+            this.deadline = deadline;
+            this.maxAllocatedBytes = maxAllocatedBytes;
+            this.startAllocatedBytes = currentAllocatedBytes();
+        }
+
+        @Override
+        public void started(TaskEvent e) {
+            check();
+        }
+
+        @Override
+        public void finished(TaskEvent e) {
+            check();
+        }
+
+        private void check() {
+            if (Thread.currentThread().isInterrupted() || System.nanoTime() > deadline) {
+                throw new CompileAbortException("编译超时", true);
+            }
+            if (startAllocatedBytes >= 0 && currentAllocatedBytes() - startAllocatedBytes > maxAllocatedBytes) {
+                throw new CompileAbortException("编译内存超出限制", false);
+            }
+        }
+
+        private static long currentAllocatedBytes() {
+            java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) threadMXBean)
+                        .getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+            return -1L;
+        }
+    }
+
+    private static class CompileAbortException extends RuntimeException {
+
+        /**
+         * 因超时中止，属于沙箱繁忙而不是用户代码的错误
+         */
+        private final boolean timeout;
+
+        CompileAbortException(String message, boolean timeout) {
+            super(message);
+            this.timeout = timeout;
+        }
+
+        boolean isTimeout() {
+            return timeout;
+        }
+    }
+}
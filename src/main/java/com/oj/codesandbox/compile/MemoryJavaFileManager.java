@@ -0,0 +1,73 @@
+package com.oj.codesandbox.compile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * 内存文件管理器，源代码从字符串读取，编译得到的class文件保存在内存中
+ * 被包装的标准文件管理器由编译线程常驻复用，这里不关闭它
+ */
+class MemoryJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    private final Map<String, ByteArrayOutputStream> classOutputMap = new LinkedHashMap<>();
+
+    MemoryJavaFileManager(StandardJavaFileManager fileManager) {
+        super(fileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+            FileObject sibling) {
+        return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension),
+                kind) {
+            @Override
+            public OutputStream openOutputStream() {
+                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                classOutputMap.put(className, byteArrayOutputStream);
+                return byteArrayOutputStream;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // 标准文件管理器由编译线程复用，不关闭
+    }
+
+    /**
+     * 获取编译得到的class文件
+     *
+     * @return
+     */
+    Map<String, byte[]> getClassBytes() {
+        Map<String, byte[]> classBytes = new LinkedHashMap<>();
+        classOutputMap.forEach((className, output) -> classBytes.put(className, output.toByteArray()));
+        return classBytes;
+    }
+
+    /**
+     * 内存中的源代码文件
+     *
+     * @param className
+     * @param code
+     * @return
+     */
+    static JavaFileObject sourceOf(String className, String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/')
+                + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}
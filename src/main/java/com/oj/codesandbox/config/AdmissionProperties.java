@@ -0,0 +1,38 @@
+package com.oj.codesandbox.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 准入控制配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.admission")
+public class AdmissionProperties {
+
+    /**
+     * 全局最多同时执行的提交数
+     */
+    private int maxConcurrent = 8;
+
+    /**
+     * 各语言最多同时执行的提交数，未配置的语言只受全局限制
+     */
+    private Map<String, Integer> languageMaxConcurrent = new HashMap<>();
+
+    /**
+     * 等待队列容量，队列满时直接拒绝（429）
+     */
+    private int queueCapacity = 50;
+
+    /**
+     * 单个提交最长排队时间（毫秒），超时拒绝（503）
+     */
+    private long queueTimeout = 10000L;
+}
@@ -0,0 +1,36 @@
+package com.oj.codesandbox.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * cgroup v2 资源统计配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.cgroup")
+public class CgroupProperties {
+
+    /**
+     * 是否直接读取容器的cgroup文件统计资源，关闭或不可用时退回docker stats
+     */
+    private boolean enabled = true;
+
+    /**
+     * 宿主机cgroup v2的挂载点
+     */
+    private String root = "/sys/fs/cgroup";
+
+    /**
+     * 容器cgroup目录相对挂载点的路径，{id}替换为容器id，依次尝试
+     * 分别对应systemd和cgroupfs两种cgroup驱动
+     */
+    private List<String> pathPatterns = new ArrayList<>(
+            Arrays.asList("system.slice/docker-{id}.scope", "docker/{id}"));
+}
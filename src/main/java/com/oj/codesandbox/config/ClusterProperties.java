@@ -0,0 +1,61 @@
+package com.oj.codesandbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 沙箱集群配置
+ * 协调节点只负责转发提交，沙箱节点定时向协调节点上报空闲容器、排队数和CPU余量，
+ * 协调节点把提交转发给负载最低的节点，节点失败或下线时改由其他节点执行
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.cluster")
+public class ClusterProperties {
+
+    /**
+     * 运行模式：standalone 单机直接执行；coordinator 协调节点，只转发提交；node 沙箱节点，本地执行并上报状态
+     */
+    private Mode mode = Mode.STANDALONE;
+
+    /**
+     * 协调节点地址，沙箱节点向该地址上报状态
+     */
+    private String coordinatorUrl = "http://127.0.0.1:8100";
+
+    /**
+     * 沙箱节点对协调节点公布的地址，协调节点通过该地址转发提交
+     */
+    private String advertiseUrl = "http://127.0.0.1:8102";
+
+    /**
+     * 沙箱节点id，为空时使用公布的地址
+     */
+    private String nodeId;
+
+    /**
+     * 沙箱节点上报状态的间隔（毫秒）
+     */
+    private long heartbeatInterval = 2000L;
+
+    /**
+     * 超过该时间（毫秒）未上报状态的节点视为失联，不再转发提交
+     */
+    private long nodeTtl = 6000L;
+
+    /**
+     * 转发单次提交的超时时间（毫秒）
+     */
+    private int forwardTimeout = 120000;
+
+    /**
+     * 单次提交最多尝试的节点数
+     */
+    private int maxAttempts = 3;
+
+    public enum Mode {
+        STANDALONE, COORDINATOR, NODE
+    }
+}
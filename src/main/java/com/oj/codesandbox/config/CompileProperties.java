@@ -0,0 +1,60 @@
+package com.oj.codesandbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 编译配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.compile")
+public class CompileProperties {
+
+    /**
+     * 编译线程数，每个线程持有一个常驻的文件管理器
+     */
+    private int threads = 2;
+
+    /**
+     * 等待编译的最大任务数，队列已满时拒绝编译
+     */
+    private int queueCapacity = 32;
+
+    /**
+     * 单次编译超时时间（毫秒）
+     */
+    private long timeout = 10000L;
+
+    /**
+     * 单次编译最多分配的内存（字节）
+     */
+    private long maxAllocatedBytes = 512 * 1024 * 1024L;
+
+    /**
+     * 源代码最大长度（字符）
+     */
+    private int maxSourceLength = 256 * 1024;
+
+    /**
+     * 编译目标版本，需与沙箱镜像中的java版本一致
+     */
+    private String release = "17";
+
+    /**
+     * 是否启用编译缓存
+     */
+    private boolean cacheEnabled = true;
+
+    /**
+     * 编译缓存目录，相对路径基于user.dir
+     */
+    private String cacheDir = "compileCache";
+
+    /**
+     * 编译缓存最大占用空间（字节），超出后按最近最少使用淘汰
+     */
+    private long cacheMaxSize = 512 * 1024 * 1024L;
+}
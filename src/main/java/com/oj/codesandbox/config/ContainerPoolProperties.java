@@ -0,0 +1,55 @@
+package com.oj.codesandbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 容器池配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.pool")
+public class ContainerPoolProperties {
+
+    /**
+     * 每个镜像保持预热的最少容器数
+     */
+    private int minSize = 2;
+
+    /**
+     * 每个镜像最多同时存在的容器数
+     */
+    private int maxSize = 8;
+
+    /**
+     * 单个容器最多被复用的次数，超过后销毁重建
+     */
+    private int maxReuse = 50;
+
+    /**
+     * 租借容器的最长等待时间（毫秒）
+     */
+    private long leaseTimeout = 10000L;
+
+    /**
+     * 健康检查间隔（毫秒）
+     */
+    private long healthCheckInterval = 30000L;
+
+    /**
+     * 容器内存限制（字节）
+     */
+    private long memoryLimit = 100 * 1000 * 1000L;
+
+    /**
+     * 容器内工作目录（tmpfs）的大小
+     */
+    private String workspaceSize = "64m";
+
+    /**
+     * 单次提交在内存中暂存的工作目录文件总大小上限（字节），不应超过workspace-size
+     */
+    private long workspaceMaxBytes = 16 * 1024 * 1024L;
+}
@@ -0,0 +1,47 @@
+package com.oj.codesandbox.config;
+
+import java.net.URI;
+import java.time.Duration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import com.github.dockerjava.transport.DockerHttpClient;
+
+/**
+ * 全局共享的Docker客户端，配置了多个守护进程时由 {@link com.oj.codesandbox.docker.DockerEndpointManager} 为每个守护进程另外创建
+ * 使用httpclient5连接池复用到守护进程的长连接，避免每次判题都新建客户端和连接
+ */
+@Configuration
+public class DockerClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public DockerClient dockerClient(DockerClientProperties dockerClientProperties) {
+        return createDockerClient(dockerClientProperties.getHost(), dockerClientProperties);
+    }
+
+    /**
+     * 创建连接到指定守护进程的客户端
+     *
+     * @param host
+     * @param dockerClientProperties
+     * @return
+     */
+    public static DockerClient createDockerClient(String host, DockerClientProperties dockerClientProperties) {
+        DefaultDockerClientConfig dockerClientConfig = DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(host)
+                .build();
+        DockerHttpClient dockerHttpClient = new ApacheDockerHttpClient.Builder()
+                .dockerHost(URI.create(host))
+                .sslConfig(dockerClientConfig.getSSLConfig())
+                .maxConnections(dockerClientProperties.getMaxConnections())
+                .connectionTimeout(Duration.ofMillis(dockerClientProperties.getConnectionTimeout()))
+                .responseTimeout(Duration.ofMillis(dockerClientProperties.getResponseTimeout()))
+                .build();
+        return DockerClientImpl.getInstance(dockerClientConfig, dockerHttpClient);
+    }
+}
@@ -0,0 +1,83 @@
+package com.oj.codesandbox.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Docker客户端配置
+ * 未配置endpoints时只使用host一个守护进程；配置后每个守护进程使用独立的客户端，提交分配到执行中操作最少的守护进程
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.docker")
+public class DockerClientProperties {
+
+    /**
+     * Docker守护进程地址
+     */
+    private String host = "unix:///var/run/docker.sock";
+
+    /**
+     * 连接池最大连接数，需大于同时执行的容器命令数（每个执行中的用例会占用执行和统计两个长连接）
+     */
+    private int maxConnections = 100;
+
+    /**
+     * 建立连接超时时间（毫秒）
+     */
+    private long connectionTimeout = 3000L;
+
+    /**
+     * 响应超时时间（毫秒），需大于单个用例的最长运行时间
+     */
+    private long responseTimeout = 60000L;
+
+    /**
+     * 只使用host一个守护进程时，同时执行的操作数上限
+     */
+    private int maxInFlight = 64;
+
+    /**
+     * 多个Docker守护进程，为空时只使用host
+     */
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    /**
+     * 等待守护进程空闲的最长时间（毫秒）
+     */
+    private long acquireTimeout = 10000L;
+
+    /**
+     * 守护进程连续出错多少次后暂时移出调度
+     */
+    private int ejectErrors = 3;
+
+    /**
+     * 守护进程移出调度的时间（毫秒），之后重新参与调度，再次出错时立即移出
+     */
+    private long ejectTime = 30000L;
+
+    @Data
+    public static class Endpoint {
+
+        /**
+         * 名称，用于区分各守护进程的容器池、镜像和监控指标
+         */
+        private String name;
+
+        /**
+         * 守护进程地址，如 unix:///run/user/1000/docker.sock、tcp://127.0.0.1:2375
+         */
+        private String host;
+
+        /**
+         * 同时执行的操作数上限（每个提交、每次编译各算一个操作）
+         */
+        private int maxInFlight = 16;
+    }
+}
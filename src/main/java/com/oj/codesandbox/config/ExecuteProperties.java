@@ -0,0 +1,85 @@
+package com.oj.codesandbox.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 用例执行配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.execute")
+public class ExecuteProperties {
+
+    /**
+     * 是否开启单次提交内用例的并行执行
+     */
+    private boolean parallelEnabled = false;
+
+    /**
+     * 各语言单次提交最多同时使用的容器数，未配置的语言串行执行
+     */
+    private Map<String, Integer> parallelism = new HashMap<>();
+
+    /**
+     * 并行执行用例的线程数（所有提交共享）
+     */
+    private int caseThreads = 16;
+
+    /**
+     * java提交是否使用单JVM多用例执行器，开启后java提交忽略并行执行配置
+     */
+    private boolean javaHarnessEnabled = false;
+
+    /**
+     * 单JVM执行器崩溃后最多重启的次数，超过后剩余用例每个用例单独启动JVM执行
+     */
+    private int javaHarnessMaxRestarts = 2;
+
+    /**
+     * 单个用例标准输出和标准错误合计的最大字节数，超出判为输出超限
+     */
+    private long outputLimit = 8 * 1024 * 1024L;
+
+    /**
+     * 单个用例的时间限制（毫秒）
+     */
+    private long timeLimit = 5000L;
+
+    /**
+     * 判断超时使用的时间：WALL 墙钟时间，CPU 用户程序的CPU时间（不受宿主机负载影响）
+     */
+    private TimeLimitBasis timeLimitBasis = TimeLimitBasis.WALL;
+
+    /**
+     * 单个用例的墙钟执行期限（毫秒），超过后强制结束容器中的进程，判为超时
+     */
+    private long caseTimeout = 5000L;
+
+    /**
+     * 整个提交所有用例的执行时间预算（毫秒），耗尽后结束正在执行的用例并不再执行剩余用例，小于等于0表示不限制
+     */
+    private long submissionTimeout = 60000L;
+
+    /**
+     * 获取语言的并行度
+     *
+     * @param language
+     * @return 未开启并行执行时为1
+     */
+    public int getParallelism(String language) {
+        if (!parallelEnabled) {
+            return 1;
+        }
+        return Math.max(1, parallelism.getOrDefault(language, 1));
+    }
+
+    public enum TimeLimitBasis {
+        WALL, CPU
+    }
+}
@@ -0,0 +1,65 @@
+package com.oj.codesandbox.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * c/c++沙箱配置
+ * 启用预编译头时在基础镜像上构建预编译了 bits/stdc++.h 的镜像，编译参数变化时镜像名随之变化
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.gcc")
+public class GccProperties {
+
+    /**
+     * 基础镜像
+     */
+    private String baseImage = "gcc:12";
+
+    /**
+     * 构建出的镜像仓库名，标签由基础镜像和c++编译参数计算
+     */
+    private String imageRepository = "codesandbox/gcc-pch";
+
+    /**
+     * 是否预编译c++万能头文件，不启用时直接使用基础镜像
+     */
+    private boolean pchEnabled = true;
+
+    /**
+     * c编译参数（gcc）
+     */
+    private List<String> gccFlags = new ArrayList<>(Arrays.asList("-O2", "-std=gnu11"));
+
+    /**
+     * c++编译参数（g++），预编译头使用相同的参数生成
+     */
+    private List<String> gxxFlags = new ArrayList<>(Arrays.asList("-O2", "-std=gnu++17"));
+
+    /**
+     * 链接参数
+     */
+    private List<String> ldFlags = new ArrayList<>(Arrays.asList("-lm"));
+
+    /**
+     * 单次编译超时时间（毫秒）
+     */
+    private long compileTimeout = 10000L;
+
+    /**
+     * 沙箱容器内存限制（字节），编译和运行共用，编译c++模板代码需要的内存较多
+     */
+    private long memoryLimit = 256 * 1024 * 1024L;
+
+    /**
+     * 可执行文件最大大小（字节）
+     */
+    private long maxBinarySize = 16 * 1024 * 1024L;
+}
@@ -0,0 +1,38 @@
+package com.oj.codesandbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 沙箱镜像配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.image")
+public class ImageProperties {
+
+    /**
+     * 镜像拉取策略
+     */
+    private PullPolicy pullPolicy = PullPolicy.IF_NOT_PRESENT;
+
+    public enum PullPolicy {
+
+        /**
+         * 本地不存在时才拉取
+         */
+        IF_NOT_PRESENT,
+
+        /**
+         * 启动和刷新时总是拉取最新镜像
+         */
+        ALWAYS,
+
+        /**
+         * 从不拉取，只使用本地镜像（离线环境）
+         */
+        NEVER
+    }
+}
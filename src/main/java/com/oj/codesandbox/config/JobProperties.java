@@ -0,0 +1,50 @@
+package com.oj.codesandbox.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 异步判题任务配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.job")
+public class JobProperties {
+
+    /**
+     * 执行判题任务的线程数
+     */
+    private int workers = 4;
+
+    /**
+     * 等待执行的任务队列容量，队列满时拒绝新任务
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * 已完成任务的结果保留时间（毫秒）
+     */
+    private long resultTtl = 10 * 60 * 1000L;
+
+    /**
+     * 回调请求超时时间（毫秒）
+     */
+    private int callbackTimeout = 3000;
+
+    /**
+     * 回调失败后的重试次数
+     */
+    private int callbackRetries = 2;
+
+    /**
+     * 发送回调的线程数，回调与判题线程分离，慢回调不占用判题线程
+     */
+    private int callbackThreads = 2;
+
+    /**
+     * 等待发送的回调队列容量，队列满时放弃回调，结果仍可轮询获取
+     */
+    private int callbackQueueCapacity = 100;
+}
@@ -0,0 +1,69 @@
+package com.oj.codesandbox.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * java沙箱的JVM启动配置
+ * 启用后java沙箱改用预先生成了CDS归档的镜像，并按提交指定的启动配置（题目类别）设置JVM参数
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.jvm-profile")
+public class JvmProfileProperties {
+
+    /**
+     * 是否启用，不启用时使用基础镜像和JVM默认参数
+     */
+    private boolean enabled = false;
+
+    /**
+     * 构建出的镜像名
+     */
+    private String image = "codesandbox/openjdk-cds:17";
+
+    /**
+     * 构建时使用的基础镜像
+     */
+    private String baseImage = "openjdk:17-jdk-alpine";
+
+    /**
+     * 镜像中CDS归档的路径
+     */
+    private String archiveFile = "/opt/cds/judge.jsa";
+
+    /**
+     * 所有启动配置共用的JVM参数，容器只有一个CPU且根文件系统只读
+     */
+    private List<String> commonOptions = new ArrayList<>(
+            Arrays.asList("-XX:+UseSerialGC", "-XX:-UsePerfData", "-Xshare:auto"));
+
+    /**
+     * 提交未指定或指定的配置不存在时使用的启动配置
+     */
+    private String defaultProfile = "default";
+
+    /**
+     * 启动配置名 => 额外的JVM参数
+     */
+    private Map<String, List<String>> profiles = defaultProfiles();
+
+    private static Map<String, List<String>> defaultProfiles() {
+        Map<String, List<String>> profiles = new LinkedHashMap<>();
+        // 运行时间短的题目只使用C1编译，减少JIT的开销
+        profiles.put("default", Arrays.asList("-XX:TieredStopAtLevel=1", "-XX:MaxRAMPercentage=75"));
+        // 计算量大的题目保留C2编译
+        profiles.put("compute", Arrays.asList("-XX:MaxRAMPercentage=75"));
+        // 递归深度大的题目增大线程栈，相应减小堆
+        profiles.put("recursion", Arrays.asList("-XX:TieredStopAtLevel=1", "-XX:MaxRAMPercentage=60", "-Xss64m"));
+        return profiles;
+    }
+}
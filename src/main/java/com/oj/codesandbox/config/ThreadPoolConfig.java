@@ -0,0 +1,31 @@
+package com.oj.codesandbox.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+
+/**
+ * 线程池配置
+ */
+@Configuration
+public class ThreadPoolConfig {
+
+    /**
+     * 并行执行用例的线程池
+     *
+     * @param executeProperties
+     * @return
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService caseExecutor(ExecuteProperties executeProperties) {
+        return new ThreadPoolExecutor(executeProperties.getCaseThreads(), executeProperties.getCaseThreads(),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                ThreadFactoryBuilder.create().setNamePrefix("case-runner-").setDaemon(true).build());
+    }
+}
@@ -0,0 +1,54 @@
+package com.oj.codesandbox.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 本地沙箱的常驻java执行进程池配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codesandbox.worker-pool")
+public class WorkerPoolProperties {
+
+    /**
+     * 是否启用，不启用时每个用例单独启动一个java进程
+     */
+    private boolean enabled = false;
+
+    /**
+     * 常驻进程数
+     */
+    private int size = 2;
+
+    /**
+     * 单个进程最多执行的用例数，达到后回收
+     */
+    private int maxJobs = 100;
+
+    /**
+     * 进程启动超时时间（毫秒）
+     */
+    private long startTimeout = 10000L;
+
+    /**
+     * 等待空闲进程的超时时间（毫秒）
+     */
+    private long leaseTimeout = 10000L;
+
+    /**
+     * 进程的JVM参数
+     */
+    private List<String> jvmOptions = new ArrayList<>(Arrays.asList("-Xmx256m", "-XX:+UseSerialGC"));
+
+    /**
+     * 执行进程的class文件目录，相对路径基于user.dir
+     */
+    private String workerDir = "tmpCode/worker";
+}
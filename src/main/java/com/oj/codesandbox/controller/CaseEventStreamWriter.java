@@ -0,0 +1,99 @@
+package com.oj.codesandbox.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oj.codesandbox.execute.CaseListener;
+import com.oj.codesandbox.model.CaseEvent;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+
+/**
+ * 流式执行的响应：每个用例执行完成后立即写出一个事件并刷新，最后写出汇总事件
+ * 请求头 Accept 包含 text/event-stream 时使用SSE格式（event: case|summary），否则每行一个JSON（NDJSON）
+ * 写出失败说明客户端已断开，之后不再写出，并通知沙箱取消剩余用例
+ */
+public class CaseEventStreamWriter implements CaseListener {
+
+    public static final String EVENT_STREAM = "text/event-stream";
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    static final String CASE_EVENT = "case";
+
+    static final String SUMMARY_EVENT = "summary";
+
+    private final HttpServletResponse response;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean eventStream;
+
+    private boolean closed = false;
+
+    public CaseEventStreamWriter(HttpServletResponse response, ObjectMapper objectMapper, String accept) {
+        this.response = response;
+        this.objectMapper = objectMapper;
+        this.eventStream = accept != null && accept.contains(EVENT_STREAM);
+        response.setContentType((eventStream ? EVENT_STREAM : NDJSON) + ";charset=UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        // 关闭反向代理的响应缓冲，事件才能及时到达客户端
+        response.setHeader("X-Accel-Buffering", "no");
+    }
+
+    /**
+     * 写出单个用例的结果，并行执行时可能被多个线程同时调用
+     *
+     * @param caseEvent
+     * @return 客户端已断开时返回false
+     */
+    @Override
+    public boolean onCase(CaseEvent caseEvent) {
+        return write(CASE_EVENT, caseEvent);
+    }
+
+    /**
+     * 写出汇总结果，输出已随用例事件写出，汇总中不再包含输出列表
+     *
+     * @param executeCodeResponse
+     * @return 客户端已断开时返回false
+     */
+    public boolean writeSummary(ExecuteCodeResponse executeCodeResponse) {
+        executeCodeResponse.setOutputList(null);
+        return write(SUMMARY_EVENT, executeCodeResponse);
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private synchronized boolean write(String type, Object data) {
+        if (closed) {
+            return false;
+        }
+        try {
+            String line;
+            if (eventStream) {
+                line = "event: " + type + "\ndata: " + objectMapper.writeValueAsString(data) + "\n\n";
+            } else {
+                Map<String, Object> event = new LinkedHashMap<>();
+                event.put("type", type);
+                event.put("data", data);
+                line = objectMapper.writeValueAsString(event) + "\n";
+            }
+            OutputStream outputStream = response.getOutputStream();
+            outputStream.write(line.getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+            return true;
+        } catch (IOException e) {
+            System.out.println("写出执行结果失败，客户端可能已断开：" + e.getMessage());
+            closed = true;
+            return false;
+        }
+    }
+}
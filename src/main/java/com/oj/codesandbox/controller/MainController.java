@@ -3,16 +3,32 @@ package com.oj.codesandbox.controller;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.oj.codesandbox.JavaDockerCodeSandbox;
-import com.oj.codesandbox.PythonDockerCodeSandbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oj.codesandbox.CodeSandbox;
+import com.oj.codesandbox.CodeSandboxRegistry;
+import com.oj.codesandbox.cluster.ClusterCoordinator;
+import com.oj.codesandbox.cluster.ClusterNodeAgent;
+import com.oj.codesandbox.cluster.NodeStatus;
+import com.oj.codesandbox.docker.DockerEndpointManager;
+import com.oj.codesandbox.docker.ImageManager;
+import com.oj.codesandbox.job.JudgeJobService;
 import com.oj.codesandbox.model.ExecuteCodeRequest;
 import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.model.JudgeJob;
+import com.oj.codesandbox.scheduler.AdmissionRejectedException;
+import com.oj.codesandbox.scheduler.ExecutionScheduler;
 
 @RestController("/")
 public class MainController {
@@ -23,10 +39,28 @@ public class MainController {
     private static final String AUTH_REQUEST_SECRET = "secretKey";
 
     @Autowired
-    private JavaDockerCodeSandbox javaDockerCodeSandbox;
+    private CodeSandboxRegistry codeSandboxRegistry;
+
+    @Autowired
+    private ImageManager imageManager;
+
+    @Autowired
+    private DockerEndpointManager dockerEndpointManager;
+
+    @Autowired
+    private JudgeJobService judgeJobService;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private ClusterCoordinator clusterCoordinator;
+
+    @Autowired
+    private ClusterNodeAgent clusterNodeAgent;
 
     @Autowired
-    private PythonDockerCodeSandbox pythonDockerCodeSandbox;
+    private ObjectMapper objectMapper;
 
     @GetMapping("/health")
     public String healthCheck() {
@@ -51,13 +85,225 @@ public class MainController {
         if (executeCodeRequest == null) {
             throw new RuntimeException("请求参数为空");
         }
-        String language = executeCodeRequest.getLanguage();
-        if (language == "java") {
-            return javaDockerCodeSandbox.executeCode(executeCodeRequest);
-        } else if (language == "python") {
-            return pythonDockerCodeSandbox.executeCode(executeCodeRequest);
-        } else {
-            throw new RuntimeException("编程语言不符合要求");
+        try {
+            if (clusterCoordinator.isEnabled()) {
+                // 协调节点转发给负载最低的沙箱节点
+                return clusterCoordinator.execute(executeCodeRequest, authHeader);
+            }
+            if (clusterNodeAgent.isDraining()) {
+                // 下线中的节点不再接收提交，由协调节点转发给其他节点
+                throw new AdmissionRejectedException(503, "节点正在下线");
+            }
+            CodeSandbox codeSandbox = getCodeSandbox(executeCodeRequest.getLanguage());
+            return executionScheduler.execute(codeSandbox, executeCodeRequest);
+        } catch (AdmissionRejectedException e) {
+            response.setStatus(e.getStatus());
+            return ExecuteCodeResponse.builder().message(e.getMessage()).build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 流式执行代码：每个用例执行完成后立即返回该用例的结果，最后返回汇总结果
+     * 请求头 Accept 为 text/event-stream 时返回SSE，否则返回NDJSON；客户端断开后不再执行剩余用例
+     *
+     * @param executeCodeRequest
+     * @param request
+     * @param response
+     */
+    @PostMapping("/executeCode/stream")
+    void executeCodeStream(@RequestBody ExecuteCodeRequest executeCodeRequest, HttpServletRequest request,
+            HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(403);
+            return;
+        }
+        if (executeCodeRequest == null) {
+            throw new RuntimeException("请求参数为空");
+        }
+        CaseEventStreamWriter streamWriter = new CaseEventStreamWriter(response, objectMapper,
+                request.getHeader("Accept"));
+        ExecuteCodeResponse executeCodeResponse;
+        try {
+            if (clusterCoordinator.isEnabled()) {
+                // 协调节点转发后一次拿到全部结果，再逐个用例返回
+                CodeSandbox forwardSandbox = forwardRequest -> clusterCoordinator.execute(forwardRequest, authHeader);
+                executeCodeResponse = forwardSandbox.executeCode(executeCodeRequest, streamWriter);
+            } else {
+                if (clusterNodeAgent.isDraining()) {
+                    throw new AdmissionRejectedException(503, "节点正在下线");
+                }
+                CodeSandbox codeSandbox = getCodeSandbox(executeCodeRequest.getLanguage());
+                executeCodeResponse = executionScheduler.execute(codeSandbox, executeCodeRequest, streamWriter);
+            }
+        } catch (AdmissionRejectedException e) {
+            // 排队被拒绝时还没有写出任何用例结果
+            response.setStatus(e.getStatus());
+            executeCodeResponse = ExecuteCodeResponse.builder().message(e.getMessage()).build();
+        }
+        streamWriter.writeSummary(executeCodeResponse);
+    }
+
+    /**
+     * 异步执行代码，立即返回任务id，结果通过轮询或回调获取
+     *
+     * @param executeCodeRequest
+     * @return
+     */
+    @PostMapping("/executeCode/async")
+    JudgeJob executeCodeAsync(@RequestBody ExecuteCodeRequest executeCodeRequest, HttpServletRequest request,
+            HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(403);
+            return null;
+        }
+        if (executeCodeRequest == null) {
+            throw new RuntimeException("请求参数为空");
+        }
+        try {
+            if (clusterCoordinator.isEnabled()) {
+                return judgeJobService.submit(executeCodeRequest,
+                        jobRequest -> clusterCoordinator.execute(jobRequest, authHeader));
+            }
+            if (clusterNodeAgent.isDraining()) {
+                // 下线中的节点不再接收新任务，已接收的任务执行完成后才退出
+                response.setStatus(503);
+                return null;
+            }
+            CodeSandbox codeSandbox = getCodeSandbox(executeCodeRequest.getLanguage());
+            // 异步任务同样经过调度器，排队超时的任务记为失败
+            return judgeJobService.submit(executeCodeRequest,
+                    jobRequest -> executionScheduler.execute(codeSandbox, jobRequest));
+        } catch (RejectedExecutionException e) {
+            // 任务队列已满
+            response.setStatus(503);
+            return null;
+        }
+    }
+
+    /**
+     * 查询异步任务结果
+     *
+     * @param jobId
+     * @return
+     */
+    @GetMapping("/executeCode/result/{jobId}")
+    JudgeJob getJobResult(@PathVariable String jobId, HttpServletRequest request, HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(403);
+            return null;
+        }
+        JudgeJob judgeJob = judgeJobService.getJob(jobId);
+        if (judgeJob == null) {
+            response.setStatus(404);
+        }
+        return judgeJob;
+    }
+
+    /**
+     * 重新检查沙箱镜像，刷新缓存的镜像id
+     *
+     * @param request
+     * @param response
+     * @return
+     */
+    @PostMapping("/refreshImages")
+    Map<String, String> refreshImages(HttpServletRequest request, HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(403);
+            return null;
+        }
+        imageManager.refresh();
+        return imageManager.getImageIdMap();
+    }
+
+    /**
+     * 查看调度器状态：排队数、执行数、拒绝数、排队时间，以及各Docker守护进程执行中的操作数
+     *
+     * @param request
+     * @param response
+     * @return
+     */
+    @GetMapping("/scheduler/stats")
+    Map<String, Object> schedulerStats(HttpServletRequest request, HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(403);
+            return null;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>(executionScheduler.getStats());
+        stats.put("jobQueueSize", judgeJobService.getQueueSize());
+        stats.put("dockerEndpoints", dockerEndpointManager.getStats());
+        return stats;
+    }
+
+    /**
+     * 沙箱节点上报状态（协调节点）
+     *
+     * @param nodeStatus
+     * @param request
+     * @param response
+     * @return
+     */
+    @PostMapping("/cluster/heartbeat")
+    String clusterHeartbeat(@RequestBody NodeStatus nodeStatus, HttpServletRequest request,
+            HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(403);
+            return null;
+        }
+        if (!clusterCoordinator.isEnabled()) {
+            response.setStatus(404);
+            return null;
+        }
+        clusterCoordinator.heartbeat(nodeStatus);
+        return "ok";
+    }
+
+    /**
+     * 查看集群中所有节点的状态（协调节点）
+     *
+     * @param request
+     * @param response
+     * @return
+     */
+    @GetMapping("/cluster/nodes")
+    List<NodeStatus> clusterNodes(HttpServletRequest request, HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(403);
+            return null;
+        }
+        return clusterCoordinator.getNodes();
+    }
+
+    /**
+     * 下线本节点（沙箱节点），协调节点不再转发新的提交，已接收的提交正常执行完成
+     *
+     * @param request
+     * @param response
+     * @return
+     */
+    @PostMapping("/cluster/drain")
+    NodeStatus clusterDrain(HttpServletRequest request, HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(403);
+            return null;
+        }
+        if (!clusterNodeAgent.isEnabled()) {
+            response.setStatus(404);
+            return null;
+        }
+        clusterNodeAgent.drain();
+        return clusterNodeAgent.getStatus();
+    }
+
+    private CodeSandbox getCodeSandbox(String language) {
+        return codeSandboxRegistry.getCodeSandbox(language);
+    }
+}
@@ -0,0 +1,210 @@
+package com.oj.codesandbox.docker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.config.CgroupProperties;
+
+/**
+ * 基于cgroup v2的资源统计
+ * 直接读取宿主机上容器cgroup的文件：
+ * 内存：执行用例前通过写入memory.peak重置峰值（内核6.12起按文件描述符生效），执行结束后从同一个文件描述符读出本次执行期间的峰值；
+ * CPU：执行前后各读一次cpu.stat中的usage_usec，差值即用户程序的用户态+内核态CPU时间，不受docker接口延迟和宿主机繁忙程度影响
+ * 容器中常驻的tail进程占用的资源可以忽略
+ */
+@Component
+public class CgroupMeter {
+
+    private static final String MEMORY_PEAK = "memory.peak";
+
+    private static final String CPU_STAT = "cpu.stat";
+
+    private static final String CPU_USAGE_KEY = "usage_usec";
+
+    private final CgroupProperties cgroupProperties;
+
+    /**
+     * 内核不支持重置峰值时不再尝试
+     */
+    private volatile boolean peakResetSupported = true;
+
+    public CgroupMeter(CgroupProperties cgroupProperties) {
+        this.cgroupProperties = cgroupProperties;
+    }
+
+    /**
+     * 开始统计一次执行
+     *
+     * @param pooledContainer
+     * @return 无法读取容器的cgroup时返回null，由调用方退回其他统计方式
+     */
+    public Measurement start(PooledContainer pooledContainer) {
+        if (!cgroupProperties.isEnabled()) {
+            return null;
+        }
+        Path cgroupDir = getCgroupDir(pooledContainer);
+        if (cgroupDir == null) {
+            return null;
+        }
+        return new Measurement(cgroupDir, openPeakChannel(cgroupDir), readCpuUsage(cgroupDir));
+    }
+
+    /**
+     * 打开并重置内存峰值
+     *
+     * @param cgroupDir
+     * @return 不支持重置时返回null
+     */
+    private FileChannel openPeakChannel(Path cgroupDir) {
+        if (!peakResetSupported) {
+            return null;
+        }
+        FileChannel peakChannel = null;
+        try {
+            peakChannel = FileChannel.open(cgroupDir.resolve(MEMORY_PEAK), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            peakChannel.write(ByteBuffer.wrap("reset\n".getBytes(StandardCharsets.US_ASCII)), 0);
+            return peakChannel;
+        } catch (IOException e) {
+            System.out.println("重置内存峰值失败，改用docker stats统计内存：" + e.getMessage());
+            peakResetSupported = false;
+            closeQuietly(peakChannel);
+            return null;
+        }
+    }
+
+    /**
+     * 查找容器在宿主机上的cgroup目录，结果缓存在容器上
+     *
+     * @param pooledContainer
+     * @return
+     */
+    private Path getCgroupDir(PooledContainer pooledContainer) {
+        if (pooledContainer.getCgroupDir() != null) {
+            return pooledContainer.getCgroupDir();
+        }
+        for (String pathPattern : cgroupProperties.getPathPatterns()) {
+            Path cgroupDir = Paths.get(cgroupProperties.getRoot(),
+                    pathPattern.replace("{id}", pooledContainer.getContainerId()));
+            if (Files.isRegularFile(cgroupDir.resolve(MEMORY_PEAK))) {
+                pooledContainer.setCgroupDir(cgroupDir);
+                return cgroupDir;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取cgroup累计使用的CPU时间
+     *
+     * @param cgroupDir
+     * @return 微秒，读取失败返回null
+     */
+    private static Long readCpuUsage(Path cgroupDir) {
+        try {
+            for (String line : Files.readAllLines(cgroupDir.resolve(CPU_STAT), StandardCharsets.US_ASCII)) {
+                if (line.startsWith(CPU_USAGE_KEY + " ")) {
+                    return Long.parseLong(line.substring(CPU_USAGE_KEY.length()).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("读取CPU时间失败：" + e.getMessage());
+        }
+        return null;
+    }
+
+    private static long readLong(FileChannel fileChannel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        int length = fileChannel.read(buffer, 0);
+        return Long.parseLong(new String(buffer.array(), 0, Math.max(length, 0), StandardCharsets.US_ASCII).trim());
+    }
+
+    private static void closeQuietly(FileChannel fileChannel) {
+        if (fileChannel == null) {
+            return;
+        }
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * 一次执行的统计
+     */
+    public static class Measurement {
+
+        private final Path cgroupDir;
+
+        private final FileChannel peakChannel;
+
+        private final Long startCpuUsage;
+
+        private Long peakMemory;
+
+        private Long cpuTime;
+
+        private Measurement(Path cgroupDir, FileChannel peakChannel, Long startCpuUsage) {
+            this.cgroupDir = cgroupDir;
+            this.peakChannel = peakChannel;
+            this.startCpuUsage = startCpuUsage;
+        }
+
+        /**
+         * 是否能统计内存峰值，不能时调用方需要用其他方式统计内存
+         *
+         * @return
+         */
+        public boolean isMemoryTracked() {
+            return peakChannel != null;
+        }
+
+        /**
+         * 结束统计
+         */
+        public void finish() {
+            if (startCpuUsage != null) {
+                Long endCpuUsage = readCpuUsage(cgroupDir);
+                if (endCpuUsage != null) {
+                    cpuTime = Math.max(0L, endCpuUsage - startCpuUsage) / 1000;
+                }
+            }
+            if (peakChannel != null) {
+                try {
+                    peakMemory = readLong(peakChannel);
+                } catch (IOException | NumberFormatException e) {
+                    System.out.println("读取内存峰值失败：" + e.getMessage());
+                } finally {
+                    closeQuietly(peakChannel);
+                }
+            }
+        }
+
+        /**
+         * 执行期间的内存峰值
+         *
+         * @return 字节，无法统计时返回null
+         */
+        public Long getPeakMemory() {
+            return peakMemory;
+        }
+
+        /**
+         * 执行期间的CPU时间
+         *
+         * @return 毫秒，无法统计时返回null
+         */
+        public Long getCpuTime() {
+            return cpuTime;
+        }
+    }
+}
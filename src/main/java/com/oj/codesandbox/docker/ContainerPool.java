@@ -0,0 +1,403 @@
+package com.oj.codesandbox.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.command.ExecStartCmd;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.HostConfig;
+import com.oj.codesandbox.config.ContainerPoolProperties;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+
+/**
+ * 单个Docker守护进程上单个镜像的预热容器池
+ * 容器在创建时即完成安全设置（内存限制、禁用网络、只读根文件系统），工作目录挂载为tmpfs，
+ * 提交的代码通过tar流写入工作目录，归还时清空工作目录后放回池中
+ */
+public class ContainerPool {
+
+    /**
+     * 容器内辅助命令（写入、清理工作目录）的超时时间（毫秒）
+     */
+    private static final long HELPER_CMD_TIME_OUT = 10000L;
+
+    /**
+     * 清理容器的脚本：容器中除常驻进程（1号进程）和脚本自身外还有进程时以退出码2结束，否则清空工作目录
+     * 提交结束后仍在运行的进程（如后台子进程、main结束后未退出的线程）会与下一个提交共享容器，这样的容器不再复用
+     */
+    static final String SCRUB_SCRIPT = "for p in /proc/[0-9]*; do p=${p#/proc/};"
+            + " if [ \"$p\" != 1 ] && [ \"$p\" != $$ ]; then exit 2; fi; done;"
+            + " find " + PooledContainer.WORK_DIR + " -mindepth 1 -delete";
+
+    /**
+     * 清理脚本发现残留进程时的退出码
+     */
+    private static final long STRAY_PROCESS_EXIT_CODE = 2L;
+
+    private final String image;
+
+    private final DockerEndpoint endpoint;
+
+    private final DockerClient dockerClient;
+
+    private final ImageManager imageManager;
+
+    private final ContainerPoolProperties properties;
+
+    private final SandboxMetrics sandboxMetrics;
+
+    /**
+     * 容器内存限制（字节）
+     */
+    private final long memoryLimit;
+
+    /**
+     * 空闲容器，后进先出，尽量复用最近使用过的容器
+     */
+    private final LinkedBlockingDeque<PooledContainer> idleContainers = new LinkedBlockingDeque<>();
+
+    /**
+     * 当前存在的容器总数（空闲 + 已租出 + 创建中）
+     */
+    private final AtomicInteger totalCount = new AtomicInteger(0);
+
+    /**
+     * 等待容器的租借方在此等待，有容器归还或销毁（可以新建）时唤醒
+     */
+    private final Object capacityMonitor = new Object();
+
+    /**
+     * @param memoryLimit 容器内存限制（字节），为空时使用容器池配置
+     */
+    public ContainerPool(String image, DockerEndpoint endpoint, ImageManager imageManager,
+            ContainerPoolProperties properties, SandboxMetrics sandboxMetrics, Long memoryLimit) {
+        this.image = image;
+        this.endpoint = endpoint;
+        this.dockerClient = endpoint.getDockerClient();
+        this.imageManager = imageManager;
+        this.properties = properties;
+        this.sandboxMetrics = sandboxMetrics;
+        this.memoryLimit = memoryLimit == null ? properties.getMemoryLimit() : memoryLimit;
+    }
+
+    /**
+     * 租借一个容器，池中没有空闲容器且未达到上限时新建，否则等待其他容器归还或销毁
+     *
+     * @return
+     */
+    public PooledContainer lease() {
+        long deadline = System.currentTimeMillis() + properties.getLeaseTimeout();
+        synchronized (capacityMonitor) {
+            while (true) {
+                PooledContainer pooledContainer = idleContainers.pollFirst();
+                if (pooledContainer != null) {
+                    return pooledContainer;
+                }
+                if (tryReserve()) {
+                    break;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new RuntimeException("获取容器超时：" + image);
+                }
+                try {
+                    capacityMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        // 已占用名额，在锁外创建容器
+        try {
+            return createContainer();
+        } catch (RuntimeException e) {
+            totalCount.decrementAndGet();
+            signalCapacity();
+            throw e;
+        }
+    }
+
+    /**
+     * 尝试租借一个容器，没有空闲容器且已达到上限时立即返回null
+     *
+     * @return
+     */
+    public PooledContainer tryLease() {
+        PooledContainer pooledContainer = idleContainers.pollFirst();
+        if (pooledContainer != null || !tryReserve()) {
+            return pooledContainer;
+        }
+        try {
+            return createContainer();
+        } catch (RuntimeException e) {
+            totalCount.decrementAndGet();
+            signalCapacity();
+            System.out.println("创建容器失败：" + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 归还容器，容器损坏、复用次数达到上限、残留进程或清理失败时直接销毁
+     *
+     * @param pooledContainer
+     */
+    public void release(PooledContainer pooledContainer) {
+        pooledContainer.setUseCount(pooledContainer.getUseCount() + 1);
+        if (pooledContainer.isBroken() || pooledContainer.getUseCount() >= properties.getMaxReuse()
+                || !scrub(pooledContainer)) {
+            destroy(pooledContainer);
+            return;
+        }
+        idleContainers.offerFirst(pooledContainer);
+        signalCapacity();
+    }
+
+    /**
+     * 将内存中的工作目录以tar归档的形式写入容器的工作目录（tmpfs）
+     * 容器根文件系统只读，归档接口无法写入tmpfs挂载点，因此通过容器内的tar命令从标准输入解压
+     *
+     * @param pooledContainer
+     * @param workspace
+     */
+    public void attachWorkspace(PooledContainer pooledContainer, Workspace workspace) {
+        long exitCode = execAndWait(pooledContainer.getContainerId(),
+                new ByteArrayInputStream(workspace.toTarArchive()), "tar", "-x", "-C", PooledContainer.WORK_DIR);
+        if (exitCode != 0) {
+            pooledContainer.setBroken(true);
+            throw new RuntimeException("写入工作目录失败，错误码：" + exitCode);
+        }
+    }
+
+    /**
+     * 强制结束容器中除常驻进程外的所有进程，即超过执行期限或输出超限的用户程序及其子进程
+     * 容器中同一时间只执行一个用例，不会误杀其他用例；无法结束进程时直接杀死容器
+     * 两种情况下容器都标记为损坏，归还时销毁
+     *
+     * @param pooledContainer
+     */
+    public void killProcesses(PooledContainer pooledContainer) {
+        pooledContainer.setBroken(true);
+        String containerId = pooledContainer.getContainerId();
+        try {
+            // kill为shell内建命令，kill -1不会结束1号进程和调用者自身
+            if (execAndWait(containerId, null, "sh", "-c", "kill -KILL -1 2>/dev/null; exit 0") == 0) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            System.out.println("结束容器进程失败：" + e.getMessage());
+        }
+        try {
+            dockerClient.killContainerCmd(containerId).exec();
+            System.out.println("杀死容器：" + containerId);
+        } catch (RuntimeException e) {
+            System.out.println("杀死容器失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 健康检查：移除已停止的空闲容器，并把空闲容器补足到最小数量
+     */
+    public void healthCheck() {
+        int idleSize = idleContainers.size();
+        for (int i = 0; i < idleSize; i++) {
+            PooledContainer pooledContainer = idleContainers.pollLast();
+            if (pooledContainer == null) {
+                break;
+            }
+            if (isRunning(pooledContainer)) {
+                idleContainers.offerLast(pooledContainer);
+            } else {
+                System.out.println("容器已失效，销毁：" + pooledContainer.getContainerId());
+                destroy(pooledContainer);
+            }
+        }
+        while (totalCount.get() < properties.getMinSize() && tryReserve()) {
+            try {
+                idleContainers.offerLast(createContainer());
+                signalCapacity();
+            } catch (RuntimeException e) {
+                totalCount.decrementAndGet();
+                System.out.println("预热容器失败：" + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * 销毁池中所有空闲容器
+     */
+    public void shutdown() {
+        PooledContainer pooledContainer;
+        while ((pooledContainer = idleContainers.pollFirst()) != null) {
+            destroy(pooledContainer);
+        }
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public DockerEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public int getIdleCount() {
+        return idleContainers.size();
+    }
+
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int current = totalCount.get();
+            if (current >= properties.getMaxSize()) {
+                return false;
+            }
+            if (totalCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledContainer createContainer() {
+        return sandboxMetrics.timePhase("container_create", image, this::doCreateContainer);
+    }
+
+    private PooledContainer doCreateContainer() {
+        // 此处使用配置信息进行代码沙箱的安全设置
+        HostConfig hostConfig = new HostConfig();
+        // 限制内存大小
+        hostConfig.withMemory(memoryLimit);
+        hostConfig.withMemorySwap(0L);
+        hostConfig.withCpuCount(1L);
+        // 根文件系统只读，工作目录使用tmpfs，仍可写入代码
+        hostConfig.withReadonlyRootfs(true);
+        hostConfig.withTmpFs(Map.of(PooledContainer.WORK_DIR, "rw,exec,size=" + properties.getWorkspaceSize()));
+
+        // 此处限制容器的网络功能和写功能，容器启动后常驻等待执行命令
+        // 直接使用启动时缓存的镜像id创建容器，不在判题过程中拉取镜像
+        String imageId = imageManager.getImageId(endpoint, image);
+        CreateContainerResponse createContainerResponse = dockerClient.createContainerCmd(imageId)
+                .withHostConfig(hostConfig)
+                .withNetworkDisabled(true)
+                .withWorkingDir(PooledContainer.WORK_DIR)
+                .withCmd("tail", "-f", "/dev/null")
+                .exec();
+        String containerId = createContainerResponse.getId();
+        try {
+            dockerClient.startContainerCmd(containerId).exec();
+        } catch (RuntimeException e) {
+            removeQuietly(containerId);
+            throw e;
+        }
+        System.out.println("创建容器：" + containerId);
+        sandboxMetrics.containerCreated(image);
+        PooledContainer pooledContainer = new PooledContainer(containerId, image);
+        pooledContainer.setEndpoint(endpoint);
+        return pooledContainer;
+    }
+
+    /**
+     * 确认容器中没有残留进程后清空工作目录
+     * 有残留进程时先结束这些进程再销毁容器，避免删除容器失败时残留进程继续占用资源
+     *
+     * @param pooledContainer
+     * @return 容器可以复用时返回true
+     */
+    private boolean scrub(PooledContainer pooledContainer) {
+        try {
+            long exitCode = execAndWait(pooledContainer.getContainerId(), null, "sh", "-c", SCRUB_SCRIPT);
+            if (exitCode == STRAY_PROCESS_EXIT_CODE) {
+                System.out.println("容器中有残留进程，不再复用：" + pooledContainer.getContainerId());
+                killProcesses(pooledContainer);
+                return false;
+            }
+            return exitCode == 0;
+        } catch (RuntimeException e) {
+            System.out.println("清理容器失败：" + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isRunning(PooledContainer pooledContainer) {
+        try {
+            InspectContainerResponse response = dockerClient.inspectContainerCmd(pooledContainer.getContainerId())
+                    .exec();
+            return Boolean.TRUE.equals(response.getState().getRunning());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void destroy(PooledContainer pooledContainer) {
+        totalCount.decrementAndGet();
+        // 容器总数减少后等待的租借方可以新建容器
+        signalCapacity();
+        removeQuietly(pooledContainer.getContainerId());
+    }
+
+    /**
+     * 唤醒等待容器的租借方，需在放回空闲容器或减少容器总数之后调用
+     */
+    private void signalCapacity() {
+        synchronized (capacityMonitor) {
+            capacityMonitor.notifyAll();
+        }
+    }
+
+    private void removeQuietly(String containerId) {
+        try {
+            dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+            System.out.println("删除容器：" + containerId);
+            sandboxMetrics.containerRemoved(image);
+        } catch (RuntimeException e) {
+            System.out.println("删除容器失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 在容器中执行辅助命令并等待结束
+     *
+     * @param containerId
+     * @param stdin
+     * @param cmd
+     * @return 命令退出码，超时返回-1
+     */
+    private long execAndWait(String containerId, InputStream stdin, String... cmd) {
+        ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
+                .withCmd(cmd)
+                .withAttachStdin(stdin != null)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .exec();
+        ExecStartCmd execStartCmd = dockerClient.execStartCmd(execCreateCmdResponse.getId());
+        if (stdin != null) {
+            execStartCmd.withStdIn(stdin);
+        }
+        try {
+            boolean finished = execStartCmd.exec(new ResultCallback.Adapter<Frame>())
+                    .awaitCompletion(HELPER_CMD_TIME_OUT, TimeUnit.MILLISECONDS);
+            if (!finished) {
+                return -1L;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        Long exitCode = dockerClient.inspectExecCmd(execCreateCmdResponse.getId()).exec().getExitCodeLong();
+        return exitCode == null ? -1L : exitCode;
+    }
+}
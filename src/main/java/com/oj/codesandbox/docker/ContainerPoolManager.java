@@ -0,0 +1,116 @@
+package com.oj.codesandbox.docker;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.config.ContainerPoolProperties;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+
+/**
+ * 容器池管理，每个Docker守护进程上的每个镜像对应一个容器池
+ */
+@Component
+public class ContainerPoolManager {
+
+    @Resource
+    private ContainerPoolProperties containerPoolProperties;
+
+    @Resource
+    private DockerEndpointManager dockerEndpointManager;
+
+    @Resource
+    private ImageManager imageManager;
+
+    @Resource
+    private SandboxMetrics sandboxMetrics;
+
+    /**
+     * 守护进程名/镜像 => 容器池
+     */
+    private final Map<String, ContainerPool> poolMap = new ConcurrentHashMap<>();
+
+    /**
+     * 镜像 => 容器内存限制，为空时使用容器池配置
+     */
+    private final Map<String, Optional<Long>> memoryLimitMap = new ConcurrentHashMap<>();
+
+    /**
+     * 注册沙箱镜像，在每个守护进程上创建容器池，由健康检查任务预热
+     *
+     * @param image
+     * @param memoryLimit 容器内存限制（字节），为空时使用容器池配置；镜像已注册时忽略
+     */
+    public void register(String image, Long memoryLimit) {
+        memoryLimitMap.putIfAbsent(image, Optional.ofNullable(memoryLimit));
+        for (DockerEndpoint endpoint : dockerEndpointManager.getEndpoints()) {
+            getPool(endpoint, image);
+        }
+    }
+
+    /**
+     * 获取守护进程上镜像对应的容器池，不存在则按注册时的内存限制创建
+     *
+     * @param endpoint
+     * @param image
+     * @return
+     */
+    public ContainerPool getPool(DockerEndpoint endpoint, String image) {
+        return poolMap.computeIfAbsent(endpoint.getName() + "/" + image, key -> {
+            Long memoryLimit = memoryLimitMap.getOrDefault(image, Optional.empty()).orElse(null);
+            ContainerPool containerPool = new ContainerPool(image, endpoint, imageManager,
+                    containerPoolProperties, sandboxMetrics, memoryLimit);
+            sandboxMetrics.gauge("codesandbox.pool.idle", containerPool::getIdleCount, "image", image,
+                    "endpoint", endpoint.getName());
+            sandboxMetrics.gauge("codesandbox.pool.total", containerPool::getTotalCount, "image", image,
+                    "endpoint", endpoint.getName());
+            return containerPool;
+        });
+    }
+
+    /**
+     * 所有容器池的空闲容器数
+     *
+     * @return
+     */
+    public int getIdleCount() {
+        return poolMap.values().stream().mapToInt(ContainerPool::getIdleCount).sum();
+    }
+
+    /**
+     * 所有容器池的容器总数
+     *
+     * @return
+     */
+    public int getTotalCount() {
+        return poolMap.values().stream().mapToInt(ContainerPool::getTotalCount).sum();
+    }
+
+    /**
+     * 定时检查容器健康状态并补足预热容器
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.pool.health-check-interval:30000}")
+    public void healthCheck() {
+        for (ContainerPool containerPool : poolMap.values()) {
+            try {
+                containerPool.healthCheck();
+            } catch (RuntimeException e) {
+                System.out.println("容器池健康检查失败：" + containerPool.getEndpoint() + "/" + containerPool.getImage()
+                        + "，" + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ContainerPool containerPool : poolMap.values()) {
+            containerPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.oj.codesandbox.docker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.dockerjava.api.DockerClient;
+
+/**
+ * 一个Docker守护进程：独立的客户端、执行中的操作数和出错状态
+ */
+public class DockerEndpoint {
+
+    private final String name;
+
+    private final DockerClient dockerClient;
+
+    /**
+     * 同时执行的操作数上限
+     */
+    private final int maxInFlight;
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    /**
+     * 连续出错次数
+     */
+    private int consecutiveErrors;
+
+    /**
+     * 移出调度的截止时间
+     */
+    private long ejectedUntil;
+
+    public DockerEndpoint(String name, DockerClient dockerClient, int maxInFlight) {
+        this.name = name;
+        this.dockerClient = dockerClient;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DockerClient getDockerClient() {
+        return dockerClient;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    AtomicInteger getInFlightCounter() {
+        return inFlight;
+    }
+
+    public synchronized boolean isEjected(long now) {
+        return now < ejectedUntil;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveErrors = 0;
+    }
+
+    /**
+     * 记录一次出错，连续出错次数达到阈值时移出调度
+     *
+     * @param ejectErrors
+     * @param ejectTime
+     * @return 是否因此被移出调度
+     */
+    synchronized boolean recordFailure(int ejectErrors, long ejectTime) {
+        consecutiveErrors++;
+        if (consecutiveErrors < ejectErrors) {
+            return false;
+        }
+        ejectedUntil = System.currentTimeMillis() + ejectTime;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,199 @@
+package com.oj.codesandbox.docker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.DockerClientException;
+import com.github.dockerjava.api.exception.DockerException;
+import com.oj.codesandbox.config.DockerClientConfig;
+import com.oj.codesandbox.config.DockerClientProperties;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+
+/**
+ * Docker守护进程调度
+ * 每个提交（以及每次在容器中编译）作为一个操作分配到执行中操作最少、且未达到上限的守护进程；
+ * 守护进程连续出错时暂时移出调度，到期后重新参与调度，所有守护进程都被移出时仍从中选择，不直接拒绝
+ */
+@Component
+public class DockerEndpointManager {
+
+    /**
+     * 未配置多个守护进程时使用的名称
+     */
+    public static final String DEFAULT_ENDPOINT_NAME = "default";
+
+    private final DockerClientProperties dockerClientProperties;
+
+    private final SandboxMetrics sandboxMetrics;
+
+    private final List<DockerEndpoint> endpoints = new ArrayList<>();
+
+    /**
+     * 为各守护进程单独创建的客户端，关闭时释放
+     */
+    private final List<DockerClient> ownedClients = new ArrayList<>();
+
+    public DockerEndpointManager(DockerClientProperties dockerClientProperties, DockerClient dockerClient,
+            SandboxMetrics sandboxMetrics) {
+        this.dockerClientProperties = dockerClientProperties;
+        this.sandboxMetrics = sandboxMetrics;
+        if (dockerClientProperties.getEndpoints().isEmpty()) {
+            endpoints.add(new DockerEndpoint(DEFAULT_ENDPOINT_NAME, dockerClient,
+                    dockerClientProperties.getMaxInFlight()));
+        } else {
+            for (DockerClientProperties.Endpoint endpoint : dockerClientProperties.getEndpoints()) {
+                DockerClient endpointClient = DockerClientConfig.createDockerClient(endpoint.getHost(),
+                        dockerClientProperties);
+                ownedClients.add(endpointClient);
+                String name = endpoint.getName() == null ? endpoint.getHost() : endpoint.getName();
+                endpoints.add(new DockerEndpoint(name, endpointClient, endpoint.getMaxInFlight()));
+            }
+        }
+        for (DockerEndpoint endpoint : endpoints) {
+            sandboxMetrics.gauge("codesandbox.docker.inflight", endpoint::getInFlight, "endpoint", endpoint.getName());
+            sandboxMetrics.gauge("codesandbox.docker.ejected",
+                    () -> endpoint.isEjected(System.currentTimeMillis()) ? 1 : 0, "endpoint", endpoint.getName());
+        }
+    }
+
+    /**
+     * 所有守护进程
+     *
+     * @return
+     */
+    public List<DockerEndpoint> getEndpoints() {
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * 为一个操作分配守护进程，所有守护进程都达到上限时等待其他操作结束
+     * 分配到的守护进程在操作结束后必须调用 {@link #release(DockerEndpoint, boolean)} 归还
+     *
+     * @return
+     */
+    public synchronized DockerEndpoint acquire() {
+        long deadline = System.currentTimeMillis() + dockerClientProperties.getAcquireTimeout();
+        while (true) {
+            DockerEndpoint endpoint = select(System.currentTimeMillis());
+            if (endpoint != null) {
+                endpoint.getInFlightCounter().incrementAndGet();
+                return endpoint;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new RuntimeException("Docker守护进程繁忙，等待超时");
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * 操作结束，归还守护进程
+     *
+     * @param endpoint
+     * @param failed   操作是否因守护进程出错而失败（不包括用户代码的错误）
+     */
+    public synchronized void release(DockerEndpoint endpoint, boolean failed) {
+        endpoint.getInFlightCounter().decrementAndGet();
+        if (!failed) {
+            endpoint.recordSuccess();
+        } else if (endpoint.recordFailure(dockerClientProperties.getEjectErrors(),
+                dockerClientProperties.getEjectTime())) {
+            System.out.println("Docker守护进程连续出错，暂时移出调度：" + endpoint.getName());
+            sandboxMetrics.dockerEndpointEjected(endpoint.getName());
+        }
+        notifyAll();
+    }
+
+    /**
+     * 操作结束，归还守护进程，只有守护进程返回的错误或与守护进程通信失败才计为出错
+     * 获取容器超时、用户代码相关的错误等不会导致守护进程被移出调度
+     *
+     * @param endpoint
+     * @param error    操作抛出的异常，正常结束时为null
+     */
+    public void release(DockerEndpoint endpoint, Throwable error) {
+        release(endpoint, error != null && isDaemonError(error));
+    }
+
+    /**
+     * 异常是否由守护进程出错引起：Docker API返回错误，或连接、读写守护进程失败
+     *
+     * @param error
+     * @return
+     */
+    static boolean isDaemonError(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof DockerException || e instanceof DockerClientException || e instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 各守护进程的状态
+     *
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (DockerEndpoint endpoint : endpoints) {
+            Map<String, Object> endpointStats = new LinkedHashMap<>();
+            endpointStats.put("inFlight", endpoint.getInFlight());
+            endpointStats.put("maxInFlight", endpoint.getMaxInFlight());
+            endpointStats.put("ejected", endpoint.isEjected(now));
+            stats.put(endpoint.getName(), endpointStats);
+        }
+        return stats;
+    }
+
+    /**
+     * 选择执行中操作最少的守护进程，优先选择未被移出调度的
+     *
+     * @param now
+     * @return 都已达到上限时返回null
+     */
+    private DockerEndpoint select(long now) {
+        DockerEndpoint selected = null;
+        boolean selectedEjected = true;
+        for (DockerEndpoint endpoint : endpoints) {
+            if (endpoint.getInFlight() >= endpoint.getMaxInFlight()) {
+                continue;
+            }
+            boolean ejected = endpoint.isEjected(now);
+            if (selected == null || (selectedEjected && !ejected) || (selectedEjected == ejected
+                    && endpoint.getInFlight() < selected.getInFlight())) {
+                selected = endpoint;
+                selectedEjected = ejected;
+            }
+        }
+        return selected;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (DockerClient dockerClient : ownedClients) {
+            try {
+                dockerClient.close();
+            } catch (IOException e) {
+                System.out.println("关闭Docker客户端失败：" + e.getMessage());
+            }
+        }
+    }
+}
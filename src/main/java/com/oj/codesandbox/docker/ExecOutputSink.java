@@ -0,0 +1,105 @@
+package com.oj.codesandbox.docker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+
+/**
+ * 单次容器内执行的输出收集器
+ * 把标准输出和标准错误的每一帧依次追加到各自的字节缓冲区，结束后一次性按UTF-8解码；
+ * 两者合计超过输出上限时停止收集并关闭连接，调用方可据此提前结束等待
+ */
+public class ExecOutputSink extends ResultCallback.Adapter<Frame> {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final long outputLimit;
+
+    private byte[] stdout = new byte[INITIAL_CAPACITY];
+
+    private int stdoutSize = 0;
+
+    private byte[] stderr = new byte[INITIAL_CAPACITY];
+
+    private int stderrSize = 0;
+
+    private volatile boolean completed = false;
+
+    private volatile boolean outputLimitExceeded = false;
+
+    /**
+     * @param outputLimit 标准输出和标准错误合计的最大字节数
+     */
+    public ExecOutputSink(long outputLimit) {
+        this.outputLimit = outputLimit;
+    }
+
+    @Override
+    public void onNext(Frame frame) {
+        byte[] payload = frame.getPayload();
+        if (payload == null || payload.length == 0 || outputLimitExceeded) {
+            return;
+        }
+        synchronized (this) {
+            if ((long) stdoutSize + stderrSize + payload.length > outputLimit) {
+                outputLimitExceeded = true;
+            } else if (StreamType.STDERR.equals(frame.getStreamType())) {
+                stderr = append(stderr, stderrSize, payload);
+                stderrSize += payload.length;
+            } else if (StreamType.STDOUT.equals(frame.getStreamType())
+                    || StreamType.RAW.equals(frame.getStreamType())) {
+                stdout = append(stdout, stdoutSize, payload);
+                stdoutSize += payload.length;
+            }
+        }
+        if (outputLimitExceeded) {
+            // 不再接收后续输出，关闭连接后awaitCompletion立即返回
+            try {
+                close();
+            } catch (Exception e) {
+                System.out.println("关闭执行输出失败：" + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+        super.onComplete();
+    }
+
+    /**
+     * 命令是否正常执行结束（未超时、未因输出超限被中断）
+     *
+     * @return
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public boolean isOutputLimitExceeded() {
+        return outputLimitExceeded;
+    }
+
+    public synchronized String getStdout() {
+        return stdoutSize == 0 ? null : new String(stdout, 0, stdoutSize, StandardCharsets.UTF_8);
+    }
+
+    public synchronized String getStderr() {
+        return stderrSize == 0 ? null : new String(stderr, 0, stderrSize, StandardCharsets.UTF_8);
+    }
+
+    private byte[] append(byte[] buffer, int size, byte[] payload) {
+        int required = size + payload.length;
+        if (required > buffer.length) {
+            // 按倍数扩容，但不超过输出上限
+            long capacity = Math.min(Math.max(required, buffer.length * 2L), outputLimit);
+            buffer = Arrays.copyOf(buffer, (int) Math.max(required, capacity));
+        }
+        System.arraycopy(payload, 0, buffer, size, payload.length);
+        return buffer;
+    }
+}
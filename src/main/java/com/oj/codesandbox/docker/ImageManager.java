@@ -0,0 +1,219 @@
+package com.oj.codesandbox.docker;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.annotation.Resource;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.BuildImageResultCallback;
+import com.github.dockerjava.api.command.PullImageResultCallback;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.oj.codesandbox.config.ImageProperties;
+import com.oj.codesandbox.config.ImageProperties.PullPolicy;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+
+/**
+ * 沙箱镜像管理
+ * 启动时统一检查并拉取沙箱用到的镜像，缓存镜像id，判题时直接使用缓存的镜像id创建容器
+ * 由沙箱自行构建的镜像在本地不存在时构建，刷新时重新构建
+ * 配置了多个Docker守护进程时，每个守护进程分别检查、拉取或构建镜像，各自缓存镜像id
+ */
+@Component
+public class ImageManager {
+
+    @Resource
+    private DockerEndpointManager dockerEndpointManager;
+
+    @Resource
+    private ImageProperties imageProperties;
+
+    @Resource
+    private SandboxMetrics sandboxMetrics;
+
+    /**
+     * 已注册的镜像
+     */
+    private final Set<String> imageSet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 守护进程名/镜像名 => 镜像id
+     */
+    private final Map<String, String> imageIdMap = new ConcurrentHashMap<>();
+
+    /**
+     * 需要构建的镜像名 => 构建上下文
+     */
+    private final Map<String, Supplier<Workspace>> buildContextMap = new ConcurrentHashMap<>();
+
+    /**
+     * 注册沙箱使用的镜像
+     *
+     * @param image
+     */
+    public void register(String image) {
+        imageSet.add(image);
+    }
+
+    /**
+     * 注册由沙箱自行构建的镜像
+     *
+     * @param image
+     * @param buildContext 构建上下文，根目录需包含Dockerfile
+     */
+    public void registerBuild(String image, Supplier<Workspace> buildContext) {
+        buildContextMap.put(image, buildContext);
+        register(image);
+    }
+
+    /**
+     * 启动完成后检查所有已注册的镜像
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        resolveAll(false);
+    }
+
+    /**
+     * 重新检查所有镜像，按拉取策略更新镜像并刷新缓存的镜像id
+     */
+    public void refresh() {
+        resolveAll(true);
+    }
+
+    /**
+     * 获取守护进程上的镜像id，启动时检查失败的镜像会在第一次使用时再检查一次
+     *
+     * @param endpoint
+     * @param image
+     * @return
+     */
+    public String getImageId(DockerEndpoint endpoint, String image) {
+        String key = getKey(endpoint, image);
+        String imageId = imageIdMap.get(key);
+        if (imageId != null) {
+            return imageId;
+        }
+        synchronized (this) {
+            imageId = imageIdMap.get(key);
+            if (imageId == null) {
+                imageId = resolve(endpoint, image, false);
+            }
+            return imageId;
+        }
+    }
+
+    /**
+     * 获取已缓存的镜像id，只有一个守护进程时以镜像名为键，否则以 守护进程名/镜像名 为键
+     *
+     * @return
+     */
+    public Map<String, String> getImageIdMap() {
+        if (dockerEndpointManager.getEndpoints().size() > 1) {
+            return imageIdMap;
+        }
+        int prefixLength = dockerEndpointManager.getEndpoints().get(0).getName().length() + 1;
+        Map<String, String> result = new TreeMap<>();
+        imageIdMap.forEach((key, imageId) -> result.put(key.substring(prefixLength), imageId));
+        return result;
+    }
+
+    private void resolveAll(boolean refresh) {
+        for (DockerEndpoint endpoint : dockerEndpointManager.getEndpoints()) {
+            for (String image : imageSet) {
+                try {
+                    String imageId = resolve(endpoint, image, refresh);
+                    System.out.println("镜像就绪：" + getKey(endpoint, image) + " => " + imageId);
+                } catch (RuntimeException e) {
+                    System.out.println("镜像检查失败：" + getKey(endpoint, image) + "，" + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private synchronized String resolve(DockerEndpoint endpoint, String image, boolean refresh) {
+        return sandboxMetrics.timePhase("image_check", image, () -> doResolve(endpoint, image, refresh));
+    }
+
+    private String doResolve(DockerEndpoint endpoint, String image, boolean refresh) {
+        DockerClient dockerClient = endpoint.getDockerClient();
+        String key = getKey(endpoint, image);
+        Supplier<Workspace> buildContext = buildContextMap.get(image);
+        if (buildContext != null) {
+            String imageId = refresh ? null : inspectLocalImage(dockerClient, image);
+            if (imageId == null) {
+                imageId = buildImage(dockerClient, image, buildContext.get());
+            }
+            imageIdMap.put(key, imageId);
+            return imageId;
+        }
+        PullPolicy pullPolicy = imageProperties.getPullPolicy();
+        if (pullPolicy == PullPolicy.ALWAYS || (refresh && pullPolicy != PullPolicy.NEVER)) {
+            try {
+                pullImage(dockerClient, image);
+            } catch (RuntimeException e) {
+                // 无法访问镜像仓库时退回使用本地镜像
+                System.out.println("拉取镜像失败，使用本地镜像：" + e.getMessage());
+            }
+        }
+        String imageId = inspectLocalImage(dockerClient, image);
+        if (imageId == null && pullPolicy != PullPolicy.NEVER) {
+            pullImage(dockerClient, image);
+            imageId = inspectLocalImage(dockerClient, image);
+        }
+        if (imageId == null) {
+            imageIdMap.remove(key);
+            throw new RuntimeException("镜像不可用：" + key);
+        }
+        imageIdMap.put(key, imageId);
+        return imageId;
+    }
+
+    private static String getKey(DockerEndpoint endpoint, String image) {
+        return endpoint.getName() + "/" + image;
+    }
+
+    private String inspectLocalImage(DockerClient dockerClient, String image) {
+        try {
+            return dockerClient.inspectImageCmd(image).exec().getId();
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private String buildImage(DockerClient dockerClient, String image, Workspace buildContext) {
+        System.out.println("构建镜像：" + image);
+        String imageId = dockerClient.buildImageCmd(new ByteArrayInputStream(buildContext.toTarArchive()))
+                .withTags(Collections.singleton(image))
+                // 基础镜像按拉取策略更新
+                .withPull(imageProperties.getPullPolicy() == PullPolicy.ALWAYS)
+                .exec(new BuildImageResultCallback())
+                .awaitImageId();
+        System.out.println("构建完成：" + image + " => " + imageId);
+        return imageId;
+    }
+
+    private void pullImage(DockerClient dockerClient, String image) {
+        PullImageResultCallback pullImageResultCallback = new PullImageResultCallback();
+        try {
+            System.out.println("下载镜像：" + image);
+            dockerClient.pullImageCmd(image)
+                    .exec(pullImageResultCallback)
+                    .awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("拉取镜像异常");
+            throw new RuntimeException(e);
+        }
+        System.out.println("下载完成");
+    }
+}
@@ -0,0 +1,47 @@
+package com.oj.codesandbox.docker;
+
+import java.nio.file.Path;
+
+import lombok.Data;
+
+/**
+ * 容器池中的容器
+ */
+@Data
+public class PooledContainer {
+
+    /**
+     * 容器在容器池中的工作目录
+     */
+    public static final String WORK_DIR = "/app";
+
+    /**
+     * 容器id
+     */
+    private final String containerId;
+
+    /**
+     * 容器使用的镜像
+     */
+    private final String image;
+
+    /**
+     * 容器所在的Docker守护进程
+     */
+    private DockerEndpoint endpoint;
+
+    /**
+     * 已被使用的次数
+     */
+    private int useCount;
+
+    /**
+     * 容器是否已损坏（如执行超时），损坏的容器归还时直接销毁
+     */
+    private boolean broken;
+
+    /**
+     * 容器在宿主机上的cgroup目录，首次统计资源时查找
+     */
+    private Path cgroupDir;
+}
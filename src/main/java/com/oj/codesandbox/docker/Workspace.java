@@ -0,0 +1,128 @@
+package com.oj.codesandbox.docker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+/**
+ * 单次提交的工作目录，文件只保存在内存中，以tar归档的形式写入容器的tmpfs工作目录
+ * 不在宿主机磁盘上创建任何文件，文件总大小有上限
+ */
+public class Workspace {
+
+    private static final int EXECUTABLE_MODE = 0100755;
+
+    private final long maxSize;
+
+    /**
+     * 相对路径 => 文件内容
+     */
+    private final Map<String, byte[]> files = new LinkedHashMap<>();
+
+    /**
+     * 需要可执行权限的文件
+     */
+    private final Set<String> executables = new HashSet<>();
+
+    private long size;
+
+    /**
+     * 打包后的tar归档，多个容器共用同一份
+     */
+    private byte[] archive;
+
+    /**
+     * @param maxSize 文件总大小上限（字节）
+     */
+    public Workspace(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 写入文件，已存在时覆盖
+     *
+     * @param path    相对于工作目录的路径
+     * @param content
+     */
+    public synchronized void writeBytes(String path, byte[] content) {
+        byte[] previous = files.get(path);
+        long newSize = size - (previous == null ? 0 : previous.length) + content.length;
+        if (newSize > maxSize) {
+            throw new IllegalStateException("工作目录超出大小限制：" + maxSize + "字节");
+        }
+        files.put(path, content);
+        size = newSize;
+        archive = null;
+    }
+
+    /**
+     * 写入可执行文件（如编译出的二进制程序）
+     *
+     * @param path
+     * @param content
+     */
+    public synchronized void writeExecutable(String path, byte[] content) {
+        writeBytes(path, content);
+        executables.add(path);
+    }
+
+    public void writeString(String path, String content) {
+        writeBytes(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 写入多个文件
+     *
+     * @param files 相对路径 => 文件内容
+     */
+    public void writeFiles(Map<String, byte[]> files) {
+        files.forEach(this::writeBytes);
+    }
+
+    public synchronized Map<String, byte[]> getFiles() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(files));
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * 把所有文件打包为tar归档
+     *
+     * @return
+     */
+    public synchronized byte[] toTarArchive() {
+        if (archive != null) {
+            return archive;
+        }
+        // 每个文件额外占用512字节的头部和对齐，归档末尾另有至少1KB的结束块
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(
+                (int) Math.min(size + (files.size() + 2) * 1024L, Integer.MAX_VALUE - 8));
+        try (TarArchiveOutputStream tarArchiveOutputStream = new TarArchiveOutputStream(byteArrayOutputStream)) {
+            tarArchiveOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+                TarArchiveEntry tarArchiveEntry = new TarArchiveEntry(entry.getKey());
+                tarArchiveEntry.setSize(entry.getValue().length);
+                if (executables.contains(entry.getKey())) {
+                    tarArchiveEntry.setMode(EXECUTABLE_MODE);
+                }
+                tarArchiveOutputStream.putArchiveEntry(tarArchiveEntry);
+                tarArchiveOutputStream.write(entry.getValue());
+                tarArchiveOutputStream.closeArchiveEntry();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("打包工作目录失败", e);
+        }
+        archive = byteArrayOutputStream.toByteArray();
+        return archive;
+    }
+}
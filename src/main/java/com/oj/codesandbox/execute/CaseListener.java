@@ -0,0 +1,18 @@
+package com.oj.codesandbox.execute;
+
+import com.oj.codesandbox.model.CaseEvent;
+
+/**
+ * 用例结果监听，每个用例执行完成后调用；并行执行时可能被多个线程同时调用
+ */
+@FunctionalInterface
+public interface CaseListener {
+
+    /**
+     * 单个用例执行完成
+     *
+     * @param caseEvent
+     * @return 返回false时不再执行剩余用例（如客户端已断开）
+     */
+    boolean onCase(CaseEvent caseEvent);
+}
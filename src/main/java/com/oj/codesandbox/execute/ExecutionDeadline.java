@@ -0,0 +1,78 @@
+package com.oj.codesandbox.execute;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次提交的执行期限：单个用例的执行期限不超过整个提交剩余的时间预算
+ * 提交被取消（如流式执行的客户端断开）后剩余预算视为0，不再执行剩余用例
+ */
+public class ExecutionDeadline {
+
+    private final long caseTimeout;
+
+    /**
+     * 整个提交的截止时间（System.nanoTime），不限制时为Long.MAX_VALUE
+     */
+    private final long deadlineNanos;
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param caseTimeout       单个用例的执行期限（毫秒）
+     * @param submissionTimeout 整个提交的执行时间预算（毫秒），小于等于0表示不限制
+     */
+    public ExecutionDeadline(long caseTimeout, long submissionTimeout) {
+        this.caseTimeout = caseTimeout;
+        this.deadlineNanos = submissionTimeout > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(submissionTimeout)
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * 整个提交剩余的时间预算（毫秒）
+     *
+     * @return 已耗尽时为0
+     */
+    public long getRemaining() {
+        if (cancelled) {
+            return 0L;
+        }
+        if (deadlineNanos == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * 下一个用例可以使用的执行期限（毫秒）
+     *
+     * @return 时间预算已耗尽时为0
+     */
+    public long nextCaseTimeout() {
+        return Math.min(caseTimeout, getRemaining());
+    }
+
+    /**
+     * 整个提交的时间预算是否已耗尽
+     *
+     * @return
+     */
+    public boolean isExpired() {
+        return getRemaining() <= 0;
+    }
+
+    /**
+     * 取消提交，正在执行的用例照常完成
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getCaseTimeout() {
+        return caseTimeout;
+    }
+}
@@ -0,0 +1,104 @@
+package com.oj.codesandbox.harness;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 构建沙箱镜像时运行，加载判题程序常用的JDK类（集合、Scanner、BufferedReader、字符串格式化、流等），
+ * 记录加载的类列表用于生成CDS归档
+ *
+ * 注意：该类会被原样复制到镜像中运行，只能依赖JDK
+ */
+public class CdsWarmup {
+
+    public static void main(String[] args) throws IOException {
+        String input = "3 1 2\n4 5\nhello world\n1.5 2.25\n";
+
+        Scanner scanner = new Scanner(new StringReader(input));
+        int n = scanner.nextInt();
+        long a = scanner.nextLong();
+        String word = scanner.next();
+        scanner.nextLine();
+        String line = scanner.hasNextLine() ? scanner.nextLine() : "";
+        scanner.close();
+        // 用户代码通常直接读取标准输入
+        new Scanner(System.in);
+
+        BufferedReader reader = new BufferedReader(new StringReader(input));
+        StringTokenizer tokenizer = new StringTokenizer(reader.readLine());
+        int[] numbers = new int[tokenizer.countTokens()];
+        for (int i = 0; tokenizer.hasMoreTokens(); i++) {
+            numbers[i] = Integer.parseInt(tokenizer.nextToken());
+        }
+        String[] parts = reader.readLine().trim().split("\\s+");
+        double d = Double.parseDouble(reader.readLine().split(" ")[0].length() + ".5");
+        new BufferedReader(new InputStreamReader(System.in));
+
+        Arrays.sort(numbers);
+        Integer[] boxed = { 3, 1, 2 };
+        Arrays.sort(boxed, Collections.reverseOrder());
+        List<Integer> list = new ArrayList<>(Arrays.asList(boxed));
+        list.sort(Comparator.comparingInt(x -> -x));
+        Collections.sort(list);
+        LinkedList<Integer> linkedList = new LinkedList<>(list);
+        ArrayDeque<Integer> deque = new ArrayDeque<>(linkedList);
+        PriorityQueue<int[]> heap = new PriorityQueue<>((x, y) -> Integer.compare(x[0], y[0]));
+        heap.offer(new int[] { n, (int) a });
+        heap.poll();
+        Map<String, Integer> hashMap = new HashMap<>();
+        hashMap.merge(word, 1, Integer::sum);
+        hashMap.getOrDefault(line, 0);
+        TreeMap<Integer, String> treeMap = new TreeMap<>();
+        treeMap.put(n, word);
+        treeMap.floorKey(n);
+        Set<String> set = new HashSet<>(Arrays.asList(parts));
+        TreeSet<Integer> treeSet = new TreeSet<>(list);
+        Map<Integer, List<Integer>> grouped = list.stream().filter(x -> x > 0)
+                .collect(Collectors.groupingBy(x -> x % 2, LinkedHashMap::new, Collectors.toList()));
+        int sum = IntStream.range(0, numbers.length).map(i -> numbers[i]).sum();
+
+        BigInteger big = BigInteger.valueOf(a).pow(20).mod(BigInteger.TEN);
+        BigDecimal decimal = new BigDecimal("1.25").setScale(1, RoundingMode.HALF_UP);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d %.2f %s%n", sum, d, word));
+        sb.append(String.join(",", set)).append(treeSet.first()).append(deque.peekFirst()).append(grouped)
+                .append(Math.max(Math.abs(-a), Math.round(d))).append(big).append(decimal).append(Long.MAX_VALUE);
+        // 只格式化空字符串，加载输出相关的类而不在构建日志中输出内容
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        writer.printf("%s", "");
+        writer.flush();
+        System.out.printf("%s", "");
+        System.out.flush();
+        if (sb.length() == 0) {
+            System.out.println(sb);
+        }
+    }
+}
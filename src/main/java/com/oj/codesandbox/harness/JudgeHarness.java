@@ -0,0 +1,255 @@
+package com.oj.codesandbox.harness;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.Permission;
+import java.util.Base64;
+
+/**
+ * 单JVM多用例执行器，运行在沙箱容器内
+ * 同一次提交的所有用例在一个JVM中执行，每个用例使用新的类加载器加载用户代码，并单独重定向标准输入输出；
+ * 用例的CPU时间和分配的内存通过ThreadMXBean统计；分配字节是用例线程执行期间在堆上分配的总量（含已回收的对象），
+ * 不是进程的峰值常驻内存，沙箱在该模式下以此作为用例的内存用量
+ *
+ * 用法：java -cp /app com.oj.codesandbox.harness.JudgeHarness 类目录 主类名 用例超时毫秒数 起始用例序号
+ * 标准输入第一行为本次执行的随机令牌，之后每行一个用例（Base64编码的参数串），每个用例执行完成后向标准输出写入一行结果：
+ * #CASE 令牌 序号 退出码 是否超时 耗时毫秒 CPU纳秒 分配字节 Base64(输出) Base64(错误输出)
+ * 用户代码可以绕过重定向直接写进程的标准输出（如FileDescriptor.out），令牌在用户代码运行前已从标准输入读走，
+ * 用户代码无法得知，沙箱只接受带令牌的结果行
+ *
+ * 注意：该类会被原样复制到容器中运行，只能依赖JDK
+ */
+public class JudgeHarness {
+
+    public static final String RESULT_PREFIX = "#CASE ";
+
+    private static final String CASE_THREAD_NAME = "main";
+
+    /**
+     * 执行器自身退出时置为true，放行退出检查
+     */
+    private static volatile boolean exiting = false;
+
+    public static void main(String[] args) throws Exception {
+        URL classDirUrl = Paths.get(args[0]).toUri().toURL();
+        String mainClassName = args[1];
+        long timeoutMillis = Long.parseLong(args[2]);
+        int index = Integer.parseInt(args[3]);
+
+        PrintStream realOut = System.out;
+        PrintStream realErr = System.err;
+        InputStream realIn = System.in;
+        installExitTrap();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(realIn, StandardCharsets.UTF_8));
+        String nonce = reader.readLine();
+        if (nonce == null) {
+            return;
+        }
+        nonce = nonce.trim();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String inputArgs = new String(Base64.getDecoder().decode(line.trim()), StandardCharsets.UTF_8);
+            CaseResult caseResult = runCase(classDirUrl, mainClassName, inputArgs.split(" "), timeoutMillis);
+            System.setOut(realOut);
+            System.setErr(realErr);
+            realOut.println(formatResult(nonce, index, caseResult));
+            realOut.flush();
+            if (caseResult.timeout) {
+                // 超时的用例线程无法强制结束，直接退出，剩余用例由沙箱重新启动执行器执行
+                halt();
+            }
+            index++;
+        }
+    }
+
+    /**
+     * 格式化单个用例的结果行
+     */
+    static String formatResult(String nonce, int index, CaseResult caseResult) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return RESULT_PREFIX + nonce + " " + index + " " + caseResult.exitCode + " " + (caseResult.timeout ? 1 : 0) + " "
+                + caseResult.time + " " + caseResult.cpuTime + " " + caseResult.allocatedBytes + " "
+                + encoder.encodeToString(caseResult.output) + " " + encoder.encodeToString(caseResult.errorOutput);
+    }
+
+    /**
+     * 结束执行器，不执行用户代码注册的关闭钩子
+     */
+    static void halt() {
+        exiting = true;
+        Runtime.getRuntime().halt(0);
+    }
+
+    static CaseResult runCase(URL classDirUrl, String mainClassName, String[] inputArgs,
+            long timeoutMillis) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(err, true, StandardCharsets.UTF_8));
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+
+        // 每个用例使用新的类加载器，用户代码的静态状态不会带到下一个用例
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { classDirUrl },
+                ClassLoader.getPlatformClassLoader());
+        CaseResult caseResult = new CaseResult();
+        Thread caseThread = new Thread(() -> {
+            long startCpuTime = currentThreadCpuTime();
+            long startAllocatedBytes = currentThreadAllocatedBytes();
+            try {
+                Class<?> mainClass = Class.forName(mainClassName, true, classLoader);
+                Method mainMethod = mainClass.getMethod("main", String[].class);
+                // 主类可以不是public（如 class Main），直接运行主类时java命令同样允许
+                mainMethod.setAccessible(true);
+                mainMethod.invoke(null, (Object) inputArgs);
+            } catch (InvocationTargetException e) {
+                caseResult.exitCode = handleThrowable(e.getCause());
+                caseResult.outOfMemory = e.getCause() instanceof OutOfMemoryError;
+            } catch (Throwable e) {
+                caseResult.exitCode = handleThrowable(e);
+                caseResult.outOfMemory = e instanceof OutOfMemoryError;
+            } finally {
+                caseResult.cpuTime = currentThreadCpuTime() - startCpuTime;
+                caseResult.allocatedBytes = currentThreadAllocatedBytes() - startAllocatedBytes;
+            }
+        }, CASE_THREAD_NAME);
+        caseThread.setContextClassLoader(classLoader);
+
+        long startTime = System.nanoTime();
+        caseThread.start();
+        caseThread.join(timeoutMillis);
+        caseResult.time = (System.nanoTime() - startTime) / 1000000L;
+        caseResult.timeout = caseThread.isAlive();
+        System.out.flush();
+        System.err.flush();
+        if (!caseResult.timeout) {
+            classLoader.close();
+        }
+        caseResult.output = out.toByteArray();
+        caseResult.errorOutput = err.toByteArray();
+        return caseResult;
+    }
+
+    private static int handleThrowable(Throwable e) {
+        if (e instanceof ExitException) {
+            return ((ExitException) e).status;
+        }
+        // 与JVM默认的未捕获异常输出保持一致
+        System.err.print("Exception in thread \"main\" ");
+        e.printStackTrace(System.err);
+        return 1;
+    }
+
+    private static long currentThreadCpuTime() {
+        return ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime();
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0L;
+    }
+
+    /**
+     * 拦截用户代码中的System.exit，避免结束整个执行器；运行环境不支持时用户代码退出会导致执行器退出，由沙箱兜底
+     */
+    static void installExitTrap() {
+        installSecurityManager(new ExitTrap(false));
+    }
+
+    /**
+     * 拦截退出，并按当前的安全策略（Policy）检查其余权限，用于常驻执行进程限制用户代码
+     */
+    static void installRestrictedExitTrap() {
+        installSecurityManager(new ExitTrap(true));
+    }
+
+    @SuppressWarnings("removal")
+    private static void installSecurityManager(SecurityManager securityManager) {
+        try {
+            System.setSecurityManager(securityManager);
+        } catch (UnsupportedOperationException | SecurityException e) {
+            // 不支持安全管理器
+        }
+    }
+
+    static class CaseResult {
+
+        int exitCode;
+
+        boolean timeout;
+
+        /**
+         * 用户代码因内存溢出结束，执行器自身的堆可能已不可用
+         */
+        boolean outOfMemory;
+
+        long time;
+
+        long cpuTime;
+
+        long allocatedBytes;
+
+        byte[] output;
+
+        byte[] errorOutput;
+    }
+
+    @SuppressWarnings("removal")
+    private static class ExitTrap extends SecurityManager {
+
+        /**
+         * 为false时只拦截退出，其余权限不做检查
+         */
+        private final boolean restricted;
+
+        ExitTrap(boolean restricted) {
+            this.restricted = restricted;
+        }
+
+        @Override
+        public void checkPermission(Permission perm) {
+            if (restricted) {
+                super.checkPermission(perm);
+            }
+        }
+
+        @Override
+        public void checkPermission(Permission perm, Object context) {
+            if (restricted) {
+                super.checkPermission(perm, context);
+            }
+        }
+
+        @Override
+        public void checkExit(int status) {
+            if (!exiting) {
+                throw new ExitException(status);
+            }
+        }
+    }
+
+    private static class ExitException extends SecurityException {
+
+        private final int status;
+
+        ExitException(int status) {
+            super("exit " + status);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.oj.codesandbox.harness;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oj.codesandbox.model.ExecuteMessage;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 单JVM多用例执行器的沙箱侧工具：提供执行器（及常驻执行进程、用户程序入口等同样运行在JDK上的辅助类）的class文件、编码用例、解析执行结果
+ */
+public class JudgeHarnessSupport {
+
+    public static final String HARNESS_CLASS_NAME = JudgeHarness.class.getName();
+
+    private static final String[] HARNESS_CLASS_FILES = { "JudgeHarness.class", "JudgeHarness$CaseResult.class",
+            "JudgeHarness$ExitTrap.class", "JudgeHarness$ExitException.class" };
+
+    public static final String WORKER_CLASS_NAME = WorkerHarness.class.getName();
+
+    private static final String[] WORKER_CLASS_FILES = { "WorkerHarness.class", "WorkerHarness$JobPolicy.class" };
+
+    public static final String LAUNCHER_CLASS_NAME = JvmLauncher.class.getName();
+
+    private static final String[] LAUNCHER_CLASS_FILES = { "JvmLauncher.class" };
+
+    public static final String CDS_WARMUP_CLASS_NAME = CdsWarmup.class.getName();
+
+    private static final String[] CDS_WARMUP_CLASS_FILES = { "CdsWarmup.class" };
+
+    private static final SecureRandom NONCE_RANDOM = new SecureRandom();
+
+    private static volatile Map<String, byte[]> harnessClassFiles;
+
+    private static volatile Map<String, byte[]> workerClassFiles;
+
+    private static volatile Map<String, byte[]> launcherClassFiles;
+
+    /**
+     * 执行器的class文件，相对路径 => 字节码
+     *
+     * @return
+     */
+    public static Map<String, byte[]> getHarnessClassFiles() {
+        if (harnessClassFiles == null) {
+            harnessClassFiles = readClassFiles(HARNESS_CLASS_FILES);
+        }
+        return harnessClassFiles;
+    }
+
+    /**
+     * 常驻执行进程的class文件（包含执行器本身），相对路径 => 字节码
+     *
+     * @return
+     */
+    public static Map<String, byte[]> getWorkerClassFiles() {
+        if (workerClassFiles == null) {
+            Map<String, byte[]> classFiles = new LinkedHashMap<>(getHarnessClassFiles());
+            classFiles.putAll(readClassFiles(WORKER_CLASS_FILES));
+            workerClassFiles = classFiles;
+        }
+        return workerClassFiles;
+    }
+
+    /**
+     * 用户程序入口的class文件，相对路径 => 字节码
+     *
+     * @return
+     */
+    public static Map<String, byte[]> getLauncherClassFiles() {
+        if (launcherClassFiles == null) {
+            launcherClassFiles = readClassFiles(LAUNCHER_CLASS_FILES);
+        }
+        return launcherClassFiles;
+    }
+
+    /**
+     * 生成CDS归档时运行的预热程序的class文件，相对路径 => 字节码
+     *
+     * @return
+     */
+    public static Map<String, byte[]> getCdsWarmupClassFiles() {
+        return readClassFiles(CDS_WARMUP_CLASS_FILES);
+    }
+
+    private static Map<String, byte[]> readClassFiles(String[] classFileNames) {
+        Map<String, byte[]> classFiles = new LinkedHashMap<>();
+        String packagePath = JudgeHarness.class.getPackage().getName().replace('.', '/');
+        for (String classFile : classFileNames) {
+            try (InputStream inputStream = JudgeHarness.class.getResourceAsStream(classFile)) {
+                if (inputStream == null) {
+                    throw new IllegalStateException("缺少执行器文件：" + classFile);
+                }
+                classFiles.put(packagePath + "/" + classFile, IoUtil.readBytes(inputStream));
+            } catch (IOException e) {
+                throw new IllegalStateException("读取执行器文件失败：" + classFile, e);
+            }
+        }
+        return classFiles;
+    }
+
+    /**
+     * 生成执行器结果行使用的随机令牌，每次启动执行器（或常驻执行进程）时生成
+     *
+     * @return
+     */
+    public static String newNonce() {
+        byte[] bytes = new byte[16];
+        NONCE_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 将用例编码为执行器的标准输入，第一行为令牌，之后每行一个用例
+     *
+     * @param nonce
+     * @param inputList
+     * @param fromIndex
+     * @return
+     */
+    public static byte[] encodeCases(String nonce, List<String> inputList, int fromIndex) {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        Base64.Encoder encoder = Base64.getEncoder();
+        byteArrayOutputStream.writeBytes(nonce.getBytes(StandardCharsets.UTF_8));
+        byteArrayOutputStream.write('\n');
+        for (int i = fromIndex; i < inputList.size(); i++) {
+            byteArrayOutputStream.writeBytes(encoder.encode(inputList.get(i).getBytes(StandardCharsets.UTF_8)));
+            byteArrayOutputStream.write('\n');
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * 解析执行器的输出，不带令牌的行（用户代码直接写标准输出伪造的结果）忽略
+     *
+     * @param nonce
+     * @param harnessOutput
+     * @return 用例序号 => 执行信息
+     */
+    public static Map<Integer, HarnessCaseResult> parseResults(String nonce, String harnessOutput) {
+        Map<Integer, HarnessCaseResult> resultMap = new HashMap<>();
+        if (harnessOutput == null) {
+            return resultMap;
+        }
+        String resultPrefix = JudgeHarness.RESULT_PREFIX + nonce + " ";
+        Base64.Decoder decoder = Base64.getDecoder();
+        for (String line : harnessOutput.split("\n")) {
+            if (!line.startsWith(resultPrefix)) {
+                continue;
+            }
+            // 错误输出为空时行尾的空字段不能去掉，只去掉行尾的回车
+            String[] fields = StrUtil.removeSuffix(line.substring(resultPrefix.length()), "\r").split(" ", -1);
+            if (fields.length != 8) {
+                continue;
+            }
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setValue(Integer.parseInt(fields[1]));
+            executeMessage.setTime(Long.parseLong(fields[3]));
+            executeMessage.setCpuTime(Long.parseLong(fields[4]) / 1000000);
+            // 单JVM模式下内存为用例执行期间在堆上分配的字节数，不是峰值常驻内存
+            executeMessage.setMemory(Long.parseLong(fields[5]));
+            executeMessage.setMessage(decode(decoder, fields[6]));
+            executeMessage.setErrorMessage(decode(decoder, fields[7]));
+            executeMessage.setTimeout("1".equals(fields[2]));
+            resultMap.put(Integer.parseInt(fields[0]), new HarnessCaseResult(executeMessage, "1".equals(fields[2])));
+        }
+        return resultMap;
+    }
+
+    private static String decode(Base64.Decoder decoder, String field) {
+        return StrUtil.emptyToNull(new String(decoder.decode(field), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 执行器返回的单个用例结果
+     */
+    @Data
+    @AllArgsConstructor
+    public static class HarnessCaseResult {
+
+        private ExecuteMessage executeMessage;
+
+        /**
+         * 用例是否超时，超时后执行器会退出
+         */
+        private boolean timeout;
+    }
+}
@@ -0,0 +1,39 @@
+package com.oj.codesandbox.harness;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * 启用JVM启动配置时用户程序的入口，运行在沙箱容器内
+ * 进入后先向标准错误写入一行启动耗时（从沙箱发起执行到进入该方法），再调用用户代码的main方法，
+ * 用户代码抛出的异常原样抛出，与直接运行主类的输出一致
+ *
+ * 用法：java @启动参数文件 -cp /app com.oj.codesandbox.harness.JvmLauncher 发起执行的时间戳毫秒数 主类名 参数...
+ * 输出：#STARTUP 启动耗时毫秒数 启动配置名
+ *
+ * 注意：该类会被原样复制到容器中运行，只能依赖JDK
+ */
+public class JvmLauncher {
+
+    public static final String STARTUP_PREFIX = "#STARTUP ";
+
+    /**
+     * 启动参数文件中记录启动配置名的系统属性
+     */
+    public static final String PROFILE_PROPERTY = "codesandbox.jvm.profile";
+
+    public static void main(String[] args) throws Throwable {
+        long startupTime = System.currentTimeMillis() - Long.parseLong(args[0]);
+        System.err.println(STARTUP_PREFIX + startupTime + " " + System.getProperty(PROFILE_PROPERTY, ""));
+        System.err.flush();
+        Method mainMethod = Class.forName(args[1]).getMethod("main", String[].class);
+        // 主类可以不是public（如 class Main），直接运行主类时java命令同样允许
+        mainMethod.setAccessible(true);
+        try {
+            mainMethod.invoke(null, (Object) Arrays.copyOfRange(args, 2, args.length));
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
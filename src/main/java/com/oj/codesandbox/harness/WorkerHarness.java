@@ -0,0 +1,171 @@
+package com.oj.codesandbox.harness;
+
+import java.io.BufferedReader;
+import java.io.FilePermission;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.ReflectPermission;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.AllPermission;
+import java.security.Permission;
+import java.security.Policy;
+import java.security.ProtectionDomain;
+import java.security.SecurityPermission;
+import java.util.Base64;
+import java.util.PropertyPermission;
+
+import com.oj.codesandbox.harness.JudgeHarness.CaseResult;
+
+/**
+ * 常驻的java执行进程，由本地沙箱预先启动（类似Nailgun），每次接收一个用例：
+ * 用例的类目录、主类和参数都由沙箱指定，用户代码使用新的类加载器加载，执行方式与 {@link JudgeHarness} 相同
+ *
+ * 用法：java -cp 执行器目录 com.oj.codesandbox.harness.WorkerHarness
+ * 标准输入第一行为随机令牌，读取后向标准输出写入一行 #READY，之后标准输入每行一个用例：
+ * 序号 Base64(类目录) 主类名 用例超时毫秒数 Base64(参数串)
+ * 每个用例执行完成后写入一行结果：#JOB 是否回收 #CASE 令牌 ...（格式同 {@link JudgeHarness}，沙箱只接受带令牌的结果行）
+ * 用例超时、内存溢出、残留线程或堆占用过高时执行进程在写出结果后退出，由沙箱启动新的进程；标准输入关闭时同样退出
+ * <p>
+ * 执行进程会连续执行多个提交的用例，因此用户代码不能修改会留到后续用例的进程状态：
+ * 系统属性（含默认时区、语言）、标准输入输出、关闭钩子、安全管理器和安全策略、反射访问私有成员、启动子进程；
+ * 这些操作抛出AccessControlException，用例按运行错误处理。文件和网络访问与每个用例单独启动JVM时相同，不做限制
+ *
+ * 注意：该类只能依赖JDK和 {@link JudgeHarness}
+ */
+public class WorkerHarness {
+
+    public static final String READY_LINE = "#READY";
+
+    public static final String RESULT_PREFIX = "#JOB ";
+
+    /**
+     * 老年代在上次GC后的占用超过该比例时回收执行进程，说明有用户代码留下的对象无法释放
+     */
+    private static final double HEAP_RETIRE_RATIO = 0.75;
+
+    public static void main(String[] args) throws Exception {
+        PrintStream realOut = System.out;
+        PrintStream realErr = System.err;
+        installJobPolicy();
+        int baseThreadCount = Thread.activeCount();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String nonce = reader.readLine();
+        if (nonce == null) {
+            return;
+        }
+        nonce = nonce.trim();
+        realOut.println(READY_LINE);
+        realOut.flush();
+
+        Base64.Decoder decoder = Base64.getDecoder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.trim().split(" ", -1);
+            if (fields.length != 5) {
+                continue;
+            }
+            int index = Integer.parseInt(fields[0]);
+            URL classDirUrl = Paths.get(new String(decoder.decode(fields[1]), StandardCharsets.UTF_8)).toUri()
+                    .toURL();
+            String mainClassName = fields[2];
+            long timeoutMillis = Long.parseLong(fields[3]);
+            String inputArgs = new String(decoder.decode(fields[4]), StandardCharsets.UTF_8);
+
+            CaseResult caseResult = JudgeHarness.runCase(classDirUrl, mainClassName, inputArgs.split(" "),
+                    timeoutMillis);
+            System.setOut(realOut);
+            System.setErr(realErr);
+            // 用户代码启动的线程会一直留在进程中，同样需要回收
+            boolean retire = caseResult.timeout || caseResult.outOfMemory
+                    || Thread.activeCount() > baseThreadCount || isHeapExhausted();
+            realOut.println(RESULT_PREFIX + (retire ? 1 : 0) + " "
+                    + JudgeHarness.formatResult(nonce, index, caseResult));
+            realOut.flush();
+            if (retire) {
+                JudgeHarness.halt();
+            }
+        }
+    }
+
+    @SuppressWarnings("removal")
+    private static void installJobPolicy() {
+        Policy.setPolicy(new JobPolicy(WorkerHarness.class.getClassLoader()));
+        JudgeHarness.installRestrictedExitTrap();
+    }
+
+    private static boolean isHeapExhausted() {
+        for (MemoryPoolMXBean memoryPoolMXBean : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPoolMXBean.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage collectionUsage = memoryPoolMXBean.getCollectionUsage();
+            if (collectionUsage != null && collectionUsage.getMax() > 0
+                    && collectionUsage.getUsed() > collectionUsage.getMax() * HEAP_RETIRE_RATIO) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 执行进程的安全策略：JDK和执行器自身的代码拥有全部权限，
+     * 其余类加载器加载的代码（用户代码及其创建的类加载器）不能修改会留到后续用例的进程状态
+     * JDK内部在 doPrivileged 中执行的操作（如枚举、序列化使用的反射）不受用户代码的限制
+     */
+    @SuppressWarnings("removal")
+    static class JobPolicy extends Policy {
+
+        private final ClassLoader trustedClassLoader;
+
+        private final ClassLoader platformClassLoader;
+
+        /**
+         * 检查权限时不能再触发权限检查，需要的类加载器和权限类在安装策略前准备好
+         */
+        JobPolicy(ClassLoader trustedClassLoader) {
+            this.trustedClassLoader = trustedClassLoader;
+            this.platformClassLoader = ClassLoader.getPlatformClassLoader();
+            isJobStatePermission(new AllPermission());
+            isJobStatePermission(new PropertyPermission("user.dir", "read"));
+            isJobStatePermission(new FilePermission("/", "read"));
+            isJobStatePermission(new RuntimePermission("setIO"));
+        }
+
+        @Override
+        public boolean implies(ProtectionDomain domain, Permission permission) {
+            ClassLoader classLoader = domain.getClassLoader();
+            if (classLoader == null || classLoader == trustedClassLoader
+                    || classLoader == platformClassLoader) {
+                return true;
+            }
+            return !isJobStatePermission(permission);
+        }
+
+        static boolean isJobStatePermission(Permission permission) {
+            if (permission instanceof AllPermission
+                    || permission instanceof ReflectPermission
+                    || permission instanceof SecurityPermission) {
+                return true;
+            }
+            if (permission instanceof PropertyPermission) {
+                return permission.getActions().contains("write");
+            }
+            if (permission instanceof FilePermission) {
+                return permission.getActions().contains("execute");
+            }
+            if (permission instanceof RuntimePermission) {
+                String name = permission.getName();
+                return name.equals("setIO") || name.equals("shutdownHooks") || name.equals("setSecurityManager")
+                        || name.equals("createSecurityManager") || name.equals("setFactory")
+                        || name.equals("setDefaultUncaughtExceptionHandler");
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.oj.codesandbox.job;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oj.codesandbox.CodeSandbox;
+import com.oj.codesandbox.config.JobProperties;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.JudgeJob;
+import com.oj.codesandbox.model.JudgeJobStatus;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.ContentType;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+
+/**
+ * 异步判题任务服务
+ * 提交后立即返回任务id，任务在有界队列中排队，由固定数量的工作线程执行；结果可轮询获取，也可在完成后回调通知
+ */
+@Component
+public class JudgeJobService {
+
+    private final JobProperties jobProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final SandboxMetrics sandboxMetrics;
+
+    private final ThreadPoolExecutor jobExecutor;
+
+    private final ThreadPoolExecutor callbackExecutor;
+
+    /**
+     * 任务id => 任务
+     */
+    private final Map<String, JudgeJob> jobMap = new ConcurrentHashMap<>();
+
+    public JudgeJobService(JobProperties jobProperties, ObjectMapper objectMapper, SandboxMetrics sandboxMetrics) {
+        this.jobProperties = jobProperties;
+        this.objectMapper = objectMapper;
+        this.sandboxMetrics = sandboxMetrics;
+        this.jobExecutor = new ThreadPoolExecutor(jobProperties.getWorkers(), jobProperties.getWorkers(), 0L,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(jobProperties.getQueueCapacity()),
+                ThreadFactoryBuilder.create().setNamePrefix("judge-job-").build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.callbackExecutor = new ThreadPoolExecutor(jobProperties.getCallbackThreads(),
+                jobProperties.getCallbackThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobProperties.getCallbackQueueCapacity()),
+                ThreadFactoryBuilder.create().setNamePrefix("judge-callback-").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        sandboxMetrics.gauge("codesandbox.job.queue.size", this::getQueueSize);
+    }
+
+    /**
+     * 提交判题任务
+     *
+     * @param executeCodeRequest
+     * @param codeSandbox        执行任务的代码沙箱
+     * @return
+     * @throws RejectedExecutionException 任务队列已满
+     */
+    public JudgeJob submit(ExecuteCodeRequest executeCodeRequest, CodeSandbox codeSandbox) {
+        JudgeJob judgeJob = new JudgeJob();
+        judgeJob.setJobId(IdUtil.fastSimpleUUID());
+        judgeJob.setStatus(JudgeJobStatus.WAITING);
+        judgeJob.setCreateTime(System.currentTimeMillis());
+        jobMap.put(judgeJob.getJobId(), judgeJob);
+        try {
+            jobExecutor.execute(() -> runJob(judgeJob, executeCodeRequest, codeSandbox));
+        } catch (RejectedExecutionException e) {
+            jobMap.remove(judgeJob.getJobId());
+            sandboxMetrics.rejected("job_queue_full");
+            throw e;
+        }
+        return judgeJob;
+    }
+
+    /**
+     * 获取任务
+     *
+     * @param jobId
+     * @return 任务不存在或已过期时返回null
+     */
+    public JudgeJob getJob(String jobId) {
+        return jobMap.get(jobId);
+    }
+
+    /**
+     * 等待执行的任务数
+     *
+     * @return
+     */
+    public int getQueueSize() {
+        return jobExecutor.getQueue().size();
+    }
+
+    private void runJob(JudgeJob judgeJob, ExecuteCodeRequest executeCodeRequest, CodeSandbox codeSandbox) {
+        judgeJob.setStatus(JudgeJobStatus.RUNNING);
+        JudgeJobStatus finishStatus;
+        try {
+            judgeJob.setExecuteCodeResponse(codeSandbox.executeCode(executeCodeRequest));
+            finishStatus = JudgeJobStatus.SUCCEED;
+        } catch (Exception e) {
+            System.out.println("判题任务执行异常：" + e.getMessage());
+            judgeJob.setMessage(e.getMessage());
+            finishStatus = JudgeJobStatus.FAILED;
+        }
+        judgeJob.setFinishTime(System.currentTimeMillis());
+        // 状态最后写入，查询到完成状态时结果和完成时间都已可见
+        judgeJob.setStatus(finishStatus);
+        String callbackUrl = executeCodeRequest.getCallbackUrl();
+        if (StrUtil.isNotBlank(callbackUrl)) {
+            // 回调在单独的线程池中发送，判题线程立即处理下一个任务
+            try {
+                callbackExecutor.execute(() -> callback(callbackUrl, judgeJob));
+            } catch (RejectedExecutionException e) {
+                System.out.println("回调队列已满，放弃回调：" + judgeJob.getJobId());
+            }
+        }
+    }
+
+    /**
+     * 回调通知任务结果，失败时重试
+     *
+     * @param callbackUrl
+     * @param judgeJob
+     */
+    private void callback(String callbackUrl, JudgeJob judgeJob) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(judgeJob);
+        } catch (JsonProcessingException e) {
+            System.out.println("序列化判题任务失败：" + e.getMessage());
+            return;
+        }
+        for (int i = 0; i <= jobProperties.getCallbackRetries(); i++) {
+            try (HttpResponse httpResponse = HttpRequest.post(callbackUrl)
+                    .contentType(ContentType.JSON.getValue())
+                    .body(body)
+                    .timeout(jobProperties.getCallbackTimeout())
+                    .execute()) {
+                if (httpResponse.isOk()) {
+                    return;
+                }
+                System.out.println("回调失败，状态码：" + httpResponse.getStatus());
+            } catch (Exception e) {
+                System.out.println("回调失败：" + e.getMessage());
+            }
+            if (i == jobProperties.getCallbackRetries()) {
+                break;
+            }
+            try {
+                Thread.sleep(500L * (i + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 定时清理过期的已完成任务
+     */
+    @Scheduled(fixedDelay = 60000L)
+    public void cleanExpiredJobs() {
+        long expireTime = System.currentTimeMillis() - jobProperties.getResultTtl();
+        jobMap.values().removeIf(judgeJob -> judgeJob.getFinishTime() != null && judgeJob.getFinishTime() < expireTime);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        callbackExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,120 @@
+package com.oj.codesandbox.jvm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.config.JvmProfileProperties;
+import com.oj.codesandbox.docker.PooledContainer;
+import com.oj.codesandbox.docker.Workspace;
+import com.oj.codesandbox.harness.JudgeHarnessSupport;
+import com.oj.codesandbox.harness.JvmLauncher;
+
+import cn.hutool.core.util.StrUtil;
+
+/**
+ * java沙箱的JVM启动配置
+ * 镜像：在基础镜像上运行预热程序记录加载的JDK类，生成静态CDS归档（只包含JDK类，不受用户代码类路径影响）；
+ * 启动参数：按启动配置写入工作目录中的参数文件，通过 java @参数文件 使用，同一次提交的所有JVM共用
+ */
+@Component
+public class JvmProfileService {
+
+    /**
+     * 工作目录中的启动参数文件
+     */
+    public static final String ARG_FILE_NAME = "jvm.options";
+
+    public static final String ARG_FILE = PooledContainer.WORK_DIR + "/" + ARG_FILE_NAME;
+
+    private static final String CDS_DIR = "/opt/cds";
+
+    /**
+     * 构建上下文的大小上限（字节）
+     */
+    private static final long BUILD_CONTEXT_MAX_BYTES = 1024 * 1024L;
+
+    @Resource
+    private JvmProfileProperties jvmProfileProperties;
+
+    public boolean isEnabled() {
+        return jvmProfileProperties.isEnabled();
+    }
+
+    /**
+     * 带CDS归档的镜像
+     *
+     * @return
+     */
+    public String getImage() {
+        return jvmProfileProperties.getImage();
+    }
+
+    /**
+     * 创建镜像的构建上下文：Dockerfile和预热程序
+     *
+     * @return
+     */
+    public Workspace createImageBuildContext() {
+        Workspace buildContext = new Workspace(BUILD_CONTEXT_MAX_BYTES);
+        buildContext.writeFiles(JudgeHarnessSupport.getCdsWarmupClassFiles());
+        String classList = CDS_DIR + "/classes.lst";
+        String dockerfile = "FROM " + jvmProfileProperties.getBaseImage() + "\n"
+                + "COPY com " + CDS_DIR + "/com\n"
+                + "RUN java -XX:DumpLoadedClassList=" + classList + " -cp " + CDS_DIR + " "
+                + JudgeHarnessSupport.CDS_WARMUP_CLASS_NAME + " < /dev/null"
+                + " && java -Xshare:dump -XX:SharedClassListFile=" + classList
+                + " -XX:SharedArchiveFile=" + jvmProfileProperties.getArchiveFile()
+                + " && rm -rf " + CDS_DIR + "/com " + classList + "\n";
+        buildContext.writeString("Dockerfile", dockerfile);
+        return buildContext;
+    }
+
+    /**
+     * 确定提交使用的启动配置，未指定或不存在时使用默认配置
+     *
+     * @param profile
+     * @return
+     */
+    public String resolveProfile(String profile) {
+        if (StrUtil.isNotBlank(profile) && jvmProfileProperties.getProfiles().containsKey(profile)) {
+            return profile;
+        }
+        if (StrUtil.isNotBlank(profile)) {
+            System.out.println("未知的JVM启动配置：" + profile + "，使用默认配置");
+        }
+        return jvmProfileProperties.getDefaultProfile();
+    }
+
+    /**
+     * 启动配置对应的完整JVM参数
+     *
+     * @param profile
+     * @return
+     */
+    public List<String> getOptions(String profile) {
+        String resolvedProfile = resolveProfile(profile);
+        List<String> options = new ArrayList<>(jvmProfileProperties.getCommonOptions());
+        options.add("-XX:SharedArchiveFile=" + jvmProfileProperties.getArchiveFile());
+        List<String> profileOptions = jvmProfileProperties.getProfiles().get(resolvedProfile);
+        if (profileOptions != null) {
+            options.addAll(profileOptions);
+        }
+        options.add("-D" + JvmLauncher.PROFILE_PROPERTY + "=" + resolvedProfile);
+        return options;
+    }
+
+    /**
+     * 将启动参数文件和用户程序入口写入工作目录
+     *
+     * @param workspace
+     * @param profile
+     */
+    public void writeLaunchFiles(Workspace workspace, String profile) {
+        workspace.writeString(ARG_FILE_NAME, String.join("\n", getOptions(profile)) + "\n");
+        workspace.writeFiles(JudgeHarnessSupport.getLauncherClassFiles());
+    }
+}
@@ -0,0 +1,156 @@
+package com.oj.codesandbox.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 代码沙箱指标
+ * 判题流程各阶段的耗时按 阶段、语言、结果 打标签记录为直方图，资源变化和异常情况记录为计数器，
+ * 通过 /actuator/prometheus 暴露
+ */
+@Component
+public class SandboxMetrics {
+
+    private static final String PHASE_TIMER = "codesandbox.phase";
+
+    public static final String OUTCOME_SUCCESS = "success";
+
+    public static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    public SandboxMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 开始计时
+     *
+     * @return 当前时间（纳秒）
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     *
+     * @param phase     阶段
+     * @param language  语言，与语言无关的阶段传入镜像等来源
+     * @param outcome   结果
+     * @param startTime start()的返回值
+     */
+    public void recordPhase(String phase, String language, String outcome, long startTime) {
+        Timer.builder(PHASE_TIMER)
+                .description("判题流程各阶段耗时")
+                .tag("phase", phase)
+                .tag("language", String.valueOf(language))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 执行一个阶段并记录耗时，抛出异常时结果记为error
+     *
+     * @param phase
+     * @param language
+     * @param supplier
+     * @return
+     */
+    public <T> T timePhase(String phase, String language, Supplier<T> supplier) {
+        long startTime = start();
+        String outcome = OUTCOME_ERROR;
+        try {
+            T result = supplier.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            recordPhase(phase, language, outcome, startTime);
+        }
+    }
+
+    public void containerCreated(String image) {
+        counter("codesandbox.container.created", "image", image).increment();
+    }
+
+    public void containerRemoved(String image) {
+        counter("codesandbox.container.removed", "image", image).increment();
+    }
+
+    public void compileCacheHit(String language) {
+        counter("codesandbox.compile.cache.hit", "language", language).increment();
+    }
+
+    public void compileCacheMiss(String language) {
+        counter("codesandbox.compile.cache.miss", "language", language).increment();
+    }
+
+    public void dockerEndpointEjected(String endpoint) {
+        counter("codesandbox.docker.ejections", "endpoint", endpoint).increment();
+    }
+
+    public void timeout(String language) {
+        counter("codesandbox.execute.timeout", "language", language).increment();
+    }
+
+    /**
+     * 提交被拒绝
+     *
+     * @param reason 拒绝原因：queue_full 等待队列已满，queue_timeout 排队超时，job_queue_full 异步任务队列已满
+     */
+    public void rejected(String reason) {
+        counter("codesandbox.admission.rejected", "reason", reason).increment();
+    }
+
+    /**
+     * 记录提交排队等待的时间
+     *
+     * @param waitMillis
+     */
+    public void queueWait(long waitMillis) {
+        Timer.builder("codesandbox.admission.wait")
+                .description("提交排队等待时间")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录JVM启动耗时
+     *
+     * @param profile       JVM启动配置名
+     * @param startupMillis
+     */
+    public void jvmStartup(String profile, long startupMillis) {
+        Timer.builder("codesandbox.jvm.startup")
+                .description("JVM启动耗时")
+                .tag("profile", String.valueOf(profile))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(startupMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 注册实时数值指标
+     *
+     * @param name
+     * @param supplier
+     * @param tags     标签名和标签值交替
+     */
+    public void gauge(String name, Supplier<Number> supplier, String... tags) {
+        Gauge.builder(name, supplier).tags(tags).strongReference(true).register(meterRegistry);
+    }
+
+    private Counter counter(String name, String tagKey, String tagValue) {
+        return meterRegistry.counter(name, tagKey, String.valueOf(tagValue));
+    }
+}
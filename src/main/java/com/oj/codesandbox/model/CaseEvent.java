@@ -0,0 +1,59 @@
+package com.oj.codesandbox.model;
+
+import lombok.Data;
+
+/**
+ * 流式执行时单个用例的结果，用例执行完成后立即推送
+ */
+@Data
+public class CaseEvent {
+
+    /**
+     * 用例序号（从0开始），并行执行时推送顺序可能与序号不一致
+     */
+    private int index;
+
+    /**
+     * 判定结果
+     */
+    private CaseVerdict verdict;
+
+    /**
+     * 标准输出，运行失败或输出超限时为空
+     */
+    private String output;
+
+    /**
+     * 标准错误
+     */
+    private String errorMessage;
+
+    /**
+     * 墙钟耗时（ms）
+     */
+    private Long time;
+
+    /**
+     * 消耗内存
+     */
+    private Long memory;
+
+    /**
+     * CPU时间（ms），无法统计时为空
+     */
+    private Long cpuTime;
+
+    public static CaseEvent of(int index, ExecuteMessage executeMessage, CaseVerdict verdict) {
+        CaseEvent caseEvent = new CaseEvent();
+        caseEvent.setIndex(index);
+        caseEvent.setVerdict(verdict);
+        if (executeMessage != null) {
+            caseEvent.setOutput(executeMessage.getMessage());
+            caseEvent.setErrorMessage(executeMessage.getErrorMessage());
+            caseEvent.setTime(executeMessage.getTime());
+            caseEvent.setMemory(executeMessage.getMemory());
+            caseEvent.setCpuTime(executeMessage.getCpuTime());
+        }
+        return caseEvent;
+    }
+}
@@ -0,0 +1,37 @@
+package com.oj.codesandbox.model;
+
+/**
+ * 单个用例的判定结果
+ */
+public enum CaseVerdict {
+
+    /**
+     * 通过（未提供期望输出时表示正常运行完成）
+     */
+    ACCEPTED,
+
+    /**
+     * 答案错误
+     */
+    WRONG_ANSWER,
+
+    /**
+     * 运行错误
+     */
+    RUNTIME_ERROR,
+
+    /**
+     * 超出时间限制
+     */
+    TIME_LIMIT_EXCEEDED,
+
+    /**
+     * 输出超限
+     */
+    OUTPUT_LIMIT_EXCEEDED,
+
+    /**
+     * 前面的用例已失败，未执行
+     */
+    SKIPPED
+}
@@ -0,0 +1,22 @@
+package com.oj.codesandbox.model;
+
+/**
+ * 输出比对方式
+ */
+public enum CheckerMode {
+
+    /**
+     * 逐字符比较，忽略换行符差异（\r\n与\n）和末尾的空行
+     */
+    EXACT,
+
+    /**
+     * 忽略空白字符，按空白分隔后逐个比较
+     */
+    IGNORE_WHITESPACE,
+
+    /**
+     * 按空白分隔后逐个比较，数字在允许误差内视为相等
+     */
+    FLOAT
+}
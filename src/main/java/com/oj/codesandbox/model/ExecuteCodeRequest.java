@@ -18,4 +18,30 @@ public class ExecuteCodeRequest {
     private String code;
 
     private String language;
+
+    /**
+     * 异步执行完成后回调的地址，可选
+     */
+    private String callbackUrl;
+
+    /**
+     * 各用例的期望输出，与inputList一一对应，可选
+     * 提供时沙箱在第一个未通过的用例处停止执行
+     */
+    private List<String> expectedOutputList;
+
+    /**
+     * 输出比对方式，默认EXACT
+     */
+    private CheckerMode checkerMode;
+
+    /**
+     * FLOAT比对方式允许的误差（绝对误差或相对误差），默认1e-6
+     */
+    private Double floatTolerance;
+
+    /**
+     * java沙箱的JVM启动配置名（题目类别），为空时使用默认配置，未启用JVM启动配置时忽略
+     */
+    private String jvmProfile;
 }
@@ -29,4 +29,14 @@ public class ExecuteCodeResponse {
      * 判题信息
      */
     private JudgeInfo judgeInfo;
+
+    /**
+     * 各用例的判定结果，与inputList一一对应
+     */
+    private List<CaseVerdict> caseVerdictList;
+
+    /**
+     * 第一个未通过的用例序号（从0开始），全部通过时为空
+     */
+    private Integer firstFailedIndex;
 }
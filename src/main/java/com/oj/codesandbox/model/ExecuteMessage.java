@@ -25,8 +25,33 @@ public class ExecuteMessage {
     private Long time;
 
     /**
-     * 进程执行使用内存
+     * 进程执行使用内存（字节）
+     * java单JVM执行器和常驻执行进程中为用例执行期间在堆上分配的字节数（含已回收的对象），不是峰值常驻内存
      */
     private Long memory;
 
+    /**
+     * 进程消耗的CPU时间（用户态+内核态）
+     */
+    private Long cpuTime;
+
+    /**
+     * 输出是否超出限制
+     */
+    private boolean outputLimitExceeded;
+
+    /**
+     * 是否超过执行期限被强制结束（或整个提交的时间预算已耗尽未执行）
+     */
+    private boolean timeout;
+
+    /**
+     * JVM启动耗时（毫秒，从发起执行到进入用户代码的main方法），只在启用JVM启动配置的java沙箱中统计
+     */
+    private Long startupTime;
+
+    /**
+     * 已判定的用例结果，为空时汇总结果时再判定
+     */
+    private CaseVerdict verdict;
 }
@@ -26,4 +26,14 @@ public class JudgeInfo {
      * 消耗时间（KB）
      */
     private Long time;
+
+    /**
+     * 用户程序消耗的CPU时间（用户态+内核态，ms），无法统计时为空
+     */
+    private Long cpuTime;
+
+    /**
+     * 编译耗时（ms），不需要编译或命中编译缓存时为空或0，不计入time
+     */
+    private Long compileTime;
 }
@@ -0,0 +1,41 @@
+package com.oj.codesandbox.model;
+
+import lombok.Data;
+
+/**
+ * 异步判题任务
+ * 任务由执行线程更新、由查询请求读取，可变字段都是volatile；执行线程最后写入状态，读到完成状态时结果已经可见
+ */
+@Data
+public class JudgeJob {
+
+    /**
+     * 任务id
+     */
+    private String jobId;
+
+    /**
+     * 任务状态
+     */
+    private volatile JudgeJobStatus status;
+
+    /**
+     * 任务失败时的错误信息
+     */
+    private volatile String message;
+
+    /**
+     * 执行结果，任务完成后才有值
+     */
+    private volatile ExecuteCodeResponse executeCodeResponse;
+
+    /**
+     * 提交时间
+     */
+    private Long createTime;
+
+    /**
+     * 完成时间
+     */
+    private volatile Long finishTime;
+}
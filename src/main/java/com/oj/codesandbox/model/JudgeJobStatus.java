@@ -0,0 +1,27 @@
+package com.oj.codesandbox.model;
+
+/**
+ * 异步判题任务状态
+ */
+public enum JudgeJobStatus {
+
+    /**
+     * 排队等待执行
+     */
+    WAITING,
+
+    /**
+     * 执行中
+     */
+    RUNNING,
+
+    /**
+     * 执行完成
+     */
+    SUCCEED,
+
+    /**
+     * 执行失败（沙箱异常）
+     */
+    FAILED
+}
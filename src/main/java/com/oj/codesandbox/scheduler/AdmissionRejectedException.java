@@ -0,0 +1,21 @@
+package com.oj.codesandbox.scheduler;
+
+/**
+ * 提交被准入控制拒绝
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    /**
+     * 建议返回的http状态码：等待队列已满为429，排队超时为503；协调节点转发后沙箱节点没有返回结果为502/504
+     */
+    private final int status;
+
+    public AdmissionRejectedException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,205 @@
+package com.oj.codesandbox.scheduler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.CodeSandbox;
+import com.oj.codesandbox.config.AdmissionProperties;
+import com.oj.codesandbox.execute.CaseListener;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+
+/**
+ * 代码执行调度器（准入控制）
+ * 所有提交先经过调度器：同时执行的提交数受全局和各语言上限限制，超出的提交在有界队列中按先后顺序等待，
+ * 等待队列已满或排队超时时立即拒绝，避免突发流量下无限制地创建容器导致资源超卖、计时失真
+ */
+@Component
+public class ExecutionScheduler {
+
+    private final AdmissionProperties admissionProperties;
+
+    private final SandboxMetrics sandboxMetrics;
+
+    private final Semaphore globalPermits;
+
+    /**
+     * 语言 => 该语言的执行许可
+     */
+    private final Map<String, Semaphore> languagePermitMap = new ConcurrentHashMap<>();
+
+    /**
+     * 当前排队等待的提交数
+     */
+    private final AtomicInteger waitingCount = new AtomicInteger(0);
+
+    private final AtomicInteger runningCount = new AtomicInteger(0);
+
+    private final AtomicLong admittedCount = new AtomicLong(0);
+
+    private final AtomicLong queueFullCount = new AtomicLong(0);
+
+    private final AtomicLong queueTimeoutCount = new AtomicLong(0);
+
+    /**
+     * 已准入提交的累计排队时间（毫秒）
+     */
+    private final AtomicLong totalWaitTime = new AtomicLong(0);
+
+    private final AtomicLong maxWaitTime = new AtomicLong(0);
+
+    public ExecutionScheduler(AdmissionProperties admissionProperties, SandboxMetrics sandboxMetrics) {
+        this.admissionProperties = admissionProperties;
+        this.sandboxMetrics = sandboxMetrics;
+        this.globalPermits = new Semaphore(admissionProperties.getMaxConcurrent(), true);
+        sandboxMetrics.gauge("codesandbox.admission.waiting", waitingCount::get);
+        sandboxMetrics.gauge("codesandbox.admission.running", runningCount::get);
+    }
+
+    /**
+     * 获得执行许可后使用代码沙箱执行代码
+     *
+     * @param codeSandbox
+     * @param executeCodeRequest
+     * @return
+     * @throws AdmissionRejectedException 等待队列已满或排队超时
+     */
+    public ExecuteCodeResponse execute(CodeSandbox codeSandbox, ExecuteCodeRequest executeCodeRequest) {
+        return execute(codeSandbox, executeCodeRequest, null);
+    }
+
+    /**
+     * 获得执行许可后使用代码沙箱执行代码，每个用例执行完成后通知监听器
+     *
+     * @param codeSandbox
+     * @param executeCodeRequest
+     * @param caseListener       为null时不通知
+     * @return
+     * @throws AdmissionRejectedException 等待队列已满或排队超时
+     */
+    public ExecuteCodeResponse execute(CodeSandbox codeSandbox, ExecuteCodeRequest executeCodeRequest,
+            CaseListener caseListener) {
+        Semaphore languagePermits = getLanguagePermits(executeCodeRequest.getLanguage());
+        acquire(languagePermits);
+        runningCount.incrementAndGet();
+        try {
+            return codeSandbox.executeCode(executeCodeRequest, caseListener);
+        } finally {
+            runningCount.decrementAndGet();
+            globalPermits.release();
+            if (languagePermits != null) {
+                languagePermits.release();
+            }
+        }
+    }
+
+    /**
+     * 调度器当前状态
+     *
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long admitted = admittedCount.get();
+        stats.put("waiting", waitingCount.get());
+        stats.put("running", runningCount.get());
+        stats.put("admitted", admitted);
+        stats.put("rejectedQueueFull", queueFullCount.get());
+        stats.put("rejectedQueueTimeout", queueTimeoutCount.get());
+        stats.put("avgWaitTime", admitted == 0 ? 0L : totalWaitTime.get() / admitted);
+        stats.put("maxWaitTime", maxWaitTime.get());
+        return stats;
+    }
+
+    public int getWaitingCount() {
+        return waitingCount.get();
+    }
+
+    public int getRunningCount() {
+        return runningCount.get();
+    }
+
+    private Semaphore getLanguagePermits(String language) {
+        Integer limit = language == null ? null : admissionProperties.getLanguageMaxConcurrent().get(language);
+        if (limit == null) {
+            return null;
+        }
+        return languagePermitMap.computeIfAbsent(language, key -> new Semaphore(limit, true));
+    }
+
+    /**
+     * 依次获取语言许可和全局许可，两者共享同一个排队时间预算
+     *
+     * @param languagePermits
+     */
+    private void acquire(Semaphore languagePermits) {
+        if (tryAcquireNow(languagePermits)) {
+            admittedCount.incrementAndGet();
+            sandboxMetrics.queueWait(0L);
+            return;
+        }
+        if (waitingCount.incrementAndGet() > admissionProperties.getQueueCapacity()) {
+            waitingCount.decrementAndGet();
+            queueFullCount.incrementAndGet();
+            sandboxMetrics.rejected("queue_full");
+            throw new AdmissionRejectedException(429, "等待队列已满，请稍后重试");
+        }
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + admissionProperties.getQueueTimeout();
+        boolean languageAcquired = false;
+        boolean admitted = false;
+        try {
+            languageAcquired = languagePermits == null
+                    || languagePermits.tryAcquire(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            admitted = languageAcquired
+                    && globalPermits.tryAcquire(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waitingCount.decrementAndGet();
+            if (!admitted && languageAcquired && languagePermits != null) {
+                languagePermits.release();
+            }
+        }
+        if (!admitted) {
+            queueTimeoutCount.incrementAndGet();
+            sandboxMetrics.rejected("queue_timeout");
+            throw new AdmissionRejectedException(503, "排队超时，沙箱繁忙");
+        }
+        long waitTime = System.currentTimeMillis() - startTime;
+        admittedCount.incrementAndGet();
+        totalWaitTime.addAndGet(waitTime);
+        maxWaitTime.accumulateAndGet(waitTime, Math::max);
+        sandboxMetrics.queueWait(waitTime);
+    }
+
+    /**
+     * 不等待地获取许可，已有提交在排队时不插队
+     *
+     * @param languagePermits
+     * @return
+     */
+    private boolean tryAcquireNow(Semaphore languagePermits) {
+        if (waitingCount.get() > 0) {
+            return false;
+        }
+        if (languagePermits != null && !languagePermits.tryAcquire()) {
+            return false;
+        }
+        if (globalPermits.tryAcquire()) {
+            return true;
+        }
+        if (languagePermits != null) {
+            languagePermits.release();
+        }
+        return false;
+    }
+}
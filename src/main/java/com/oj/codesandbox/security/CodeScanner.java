@@ -0,0 +1,621 @@
+package com.oj.codesandbox.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 提交代码的静态检查：一次遍历完成词法分析，跳过注释和字符串，只在导入语句、限定名和调用上匹配规则，返回所有违规
+ * 规则在创建扫描器时编译为按标识符分段的字典树；扫描时标识符只以其在源码中的位置和哈希值表示，不为每个词法单元分配对象
+ * <p>
+ * 规则格式：
+ * <ul>
+ * <li>a.b.c：限定名规则，匹配以该限定名开头的名称，名称开头经过导入别名和通配导入解析，
+ * 如 os.system 匹配 os.system(...)、from os import system、import os as o 之后的 o.system</li>
+ * <li>.name：成员规则，匹配名称中任意位置的该标识符，如 .__subclasses__</li>
+ * <li>name：单段规则，匹配以该标识符开头的名称，也匹配作为成员访问的该标识符和 from 导入的该名称，
+ * 如 open 匹配 open(...)、io.open(...)、Path(p).open()、from os import open as o</li>
+ * </ul>
+ * 标识符整体比较，reopen 不会命中 open，randomized_input 不会命中 random 和 input
+ */
+public abstract class CodeScanner {
+
+    /**
+     * 单次扫描最多返回的违规数，达到后停止扫描
+     */
+    public static final int MAX_VIOLATIONS = 100;
+
+    private final RuleNode root = new RuleNode();
+
+    private final RuleNode memberRules = new RuleNode();
+
+    protected CodeScanner(Collection<String> rules) {
+        for (String rule : rules) {
+            if (rule.startsWith(".")) {
+                String name = rule.substring(1);
+                RuleNode member = memberRules.getOrCreate(name);
+                member.rule = name;
+                member.anyPosition = true;
+                continue;
+            }
+            if (rule.indexOf('.') < 0) {
+                // 单段规则同时作为成员规则，只在标识符不是名称开头时匹配，名称开头由字典树匹配
+                memberRules.getOrCreate(rule).rule = rule;
+            }
+            RuleNode node = root;
+            for (String segment : rule.split("\\.")) {
+                node = node.getOrCreate(segment);
+            }
+            node.rule = rule;
+        }
+    }
+
+    /**
+     * 扫描代码
+     *
+     * @param code
+     * @return 所有违规（最多 {@link #MAX_VIOLATIONS} 条），按出现位置排序
+     */
+    public List<ScanViolation> scan(String code) {
+        ScanContext ctx = new ScanContext(code);
+        initContext(ctx);
+        scanCode(ctx, false);
+        return ctx.toViolations();
+    }
+
+    /**
+     * 扫描开始前的准备，如加入语言默认导入的包
+     *
+     * @param ctx
+     */
+    protected void initContext(ScanContext ctx) {
+    }
+
+    /**
+     * 跳过当前位置的注释，注释等同于空白，不会打断限定名
+     *
+     * @param ctx
+     * @return 当前位置不是注释时返回false
+     */
+    protected abstract boolean skipComment(ScanContext ctx);
+
+    /**
+     * 跳过当前位置的字符串或字符字面量
+     *
+     * @param ctx
+     * @return 当前位置不是字面量时返回false
+     */
+    protected abstract boolean skipLiteral(ScanContext ctx);
+
+    /**
+     * 处理名称开头的关键字，如导入语句
+     *
+     * @param ctx  当前位置在标识符之后
+     * @param start
+     * @param end
+     * @return 已处理时返回true，否则按普通名称处理
+     */
+    protected abstract boolean handleKeyword(ScanContext ctx, int start, int end);
+
+    /**
+     * 扫描代码，遇到字面量、注释和关键字时交给具体语言处理
+     *
+     * @param ctx
+     * @param untilCloseBrace 为true时扫描到未匹配的'}'为止（用于格式化字符串中的表达式）
+     */
+    protected final void scanCode(ScanContext ctx, boolean untilCloseBrace) {
+        String code = ctx.code;
+        int depth = 0;
+        while (true) {
+            ctx.skipBlank(true);
+            if (ctx.pos >= ctx.length) {
+                return;
+            }
+            char c = code.charAt(ctx.pos);
+            if (skipLiteral(ctx)) {
+                ctx.endName();
+                continue;
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                ctx.readIdentifier();
+                if (!ctx.expectSegment && !ctx.memberAccess && handleKeyword(ctx, ctx.tokenStart, ctx.tokenEnd)) {
+                    ctx.endName();
+                    continue;
+                }
+                ctx.identifier(ctx.tokenStart, ctx.tokenEnd, ctx.tokenHash);
+                continue;
+            }
+            if (c >= '0' && c <= '9') {
+                // 数字字面量（含小数点、进制前缀和后缀）
+                while (ctx.pos < ctx.length && (Character.isLetterOrDigit(code.charAt(ctx.pos))
+                        || code.charAt(ctx.pos) == '_' || code.charAt(ctx.pos) == '.')) {
+                    ctx.pos++;
+                }
+                ctx.endName();
+                continue;
+            }
+            ctx.pos++;
+            if (c == '.') {
+                ctx.dot();
+                continue;
+            }
+            ctx.endName();
+            if (untilCloseBrace) {
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    if (depth == 0) {
+                        return;
+                    }
+                    depth--;
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取以'.'分隔的限定名（导入语句中的模块名、包名），沿规则字典树匹配，命中规则时记录违规
+     * 读取后 {@link ScanContext#segmentCount} 为读到的标识符个数，{@link ScanContext#wildcard} 表示是否以 .* 结尾，
+     * 最后一个标识符的位置保存在 token 字段中
+     *
+     * @param ctx
+     * @param node    开始匹配的节点，null表示不匹配
+     * @param newline 限定名中间是否允许换行
+     * @return 限定名在字典树中对应的节点，不在字典树中时为null
+     */
+    protected final RuleNode parseQualifiedName(ScanContext ctx, RuleNode node, boolean newline) {
+        ctx.segmentCount = 0;
+        ctx.wildcard = false;
+        boolean reported = false;
+        while (ctx.readIdentifier()) {
+            ctx.segmentCount++;
+            node = ctx.child(node);
+            if (!reported && node != null && node.rule != null) {
+                ctx.report(node.rule, ctx.tokenStart);
+                reported = true;
+            }
+            int tokenEnd = ctx.pos;
+            ctx.skipBlank(newline);
+            if (ctx.peek() != '.') {
+                ctx.pos = tokenEnd;
+                break;
+            }
+            ctx.pos++;
+            ctx.skipBlank(newline);
+            if (ctx.peek() == '*') {
+                ctx.pos++;
+                ctx.wildcard = true;
+                break;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * 查找限定名对应的字典树节点
+     *
+     * @param qualifiedName
+     * @return 不在字典树中时为null
+     */
+    protected final RuleNode findNode(String qualifiedName) {
+        RuleNode node = root;
+        for (String segment : qualifiedName.split("\\.")) {
+            node = node.child(segment, 0, segment.length(), segment.hashCode());
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    protected final RuleNode getRoot() {
+        return root;
+    }
+
+    /**
+     * 规则字典树节点，子节点使用开放寻址的哈希表，按源码中的区间查找，不需要截取字符串
+     */
+    protected static final class RuleNode {
+
+        /**
+         * 到达该节点时命中的规则，不是规则结尾时为null
+         */
+        private String rule;
+
+        /**
+         * 成员规则是否也匹配名称开头的标识符（.name 形式的规则）
+         */
+        private boolean anyPosition;
+
+        private int size;
+
+        private int[] hashes = new int[4];
+
+        private String[] names = new String[4];
+
+        private RuleNode[] children = new RuleNode[4];
+
+        RuleNode child(String code, int start, int end, int hash) {
+            if (size == 0) {
+                return null;
+            }
+            int length = end - start;
+            int mask = names.length - 1;
+            for (int i = spread(hash) & mask; names[i] != null; i = (i + 1) & mask) {
+                if (hashes[i] == hash && names[i].length() == length
+                        && code.regionMatches(start, names[i], 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        RuleNode getOrCreate(String name) {
+            RuleNode node = child(name, 0, name.length(), name.hashCode());
+            if (node != null) {
+                return node;
+            }
+            if ((size + 1) * 2 > names.length) {
+                resize();
+            }
+            node = new RuleNode();
+            insert(name, name.hashCode(), node);
+            size++;
+            return node;
+        }
+
+        String getRule() {
+            return rule;
+        }
+
+        private void resize() {
+            String[] oldNames = names;
+            int[] oldHashes = hashes;
+            RuleNode[] oldChildren = children;
+            names = new String[oldNames.length * 2];
+            hashes = new int[oldNames.length * 2];
+            children = new RuleNode[oldNames.length * 2];
+            for (int i = 0; i < oldNames.length; i++) {
+                if (oldNames[i] != null) {
+                    insert(oldNames[i], oldHashes[i], oldChildren[i]);
+                }
+            }
+        }
+
+        private void insert(String name, int hash, RuleNode node) {
+            int mask = names.length - 1;
+            int i = spread(hash) & mask;
+            while (names[i] != null) {
+                i = (i + 1) & mask;
+            }
+            names[i] = name;
+            hashes[i] = hash;
+            children[i] = node;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * 单次扫描的状态
+     */
+    protected final class ScanContext {
+
+        final String code;
+
+        final int length;
+
+        int pos;
+
+        /**
+         * 最近读取的标识符
+         */
+        int tokenStart;
+
+        int tokenEnd;
+
+        int tokenHash;
+
+        /**
+         * 最近读取的限定名的标识符个数和是否以 .* 结尾
+         */
+        int segmentCount;
+
+        boolean wildcard;
+
+        /**
+         * 格式化字符串的嵌套深度
+         */
+        int nesting;
+
+        /**
+         * 当前名称可能命中的字典树节点（直接匹配、经过别名或通配导入匹配）
+         */
+        private RuleNode[] active = new RuleNode[4];
+
+        private int activeCount;
+
+        private boolean inName;
+
+        /**
+         * 名称后出现了'.'，下一个标识符属于同一名称
+         */
+        private boolean expectSegment;
+
+        /**
+         * '.'前不是名称（如调用结果的成员），下一个名称只匹配成员规则
+         */
+        private boolean memberAccess;
+
+        private boolean nameReported;
+
+        /**
+         * 当前名称第一段的位置，违规按名称起始位置报告
+         */
+        private int nameStart;
+
+        private int aliasCount;
+
+        private int[] aliasStarts = new int[4];
+
+        private int[] aliasEnds = new int[4];
+
+        private int[] aliasHashes = new int[4];
+
+        private RuleNode[] aliasNodes = new RuleNode[4];
+
+        private int wildcardCount;
+
+        private RuleNode[] wildcardNodes = new RuleNode[2];
+
+        private int violationCount;
+
+        private int[] violationOffsets = new int[4];
+
+        private String[] violationRules = new String[4];
+
+        ScanContext(String code) {
+            this.code = code;
+            this.length = code.length();
+        }
+
+        char peek() {
+            return pos < length ? code.charAt(pos) : '\0';
+        }
+
+        /**
+         * 读取当前位置的标识符
+         *
+         * @return 当前位置不是标识符时返回false
+         */
+        boolean readIdentifier() {
+            if (pos >= length || !Character.isJavaIdentifierStart(code.charAt(pos))) {
+                return false;
+            }
+            int hash = 0;
+            tokenStart = pos;
+            while (pos < length && Character.isJavaIdentifierPart(code.charAt(pos))) {
+                hash = 31 * hash + code.charAt(pos);
+                pos++;
+            }
+            tokenEnd = pos;
+            tokenHash = hash;
+            return true;
+        }
+
+        /**
+         * 最近读取的标识符是否为指定的词
+         */
+        boolean isToken(String word) {
+            return tokenEnd - tokenStart == word.length() && code.regionMatches(tokenStart, word, 0, word.length());
+        }
+
+        /**
+         * 读取指定的词，不匹配时不移动位置
+         */
+        boolean readWord(String word) {
+            int mark = pos;
+            if (readIdentifier() && isToken(word)) {
+                return true;
+            }
+            pos = mark;
+            return false;
+        }
+
+        /**
+         * 跳过空白、注释和续行符
+         *
+         * @param newline 是否跳过换行
+         */
+        void skipBlank(boolean newline) {
+            while (pos < length) {
+                char c = code.charAt(pos);
+                if (c == ' ' || c == '\t' || c == '\r' || c == '\f' || (c == '\n' && newline)) {
+                    pos++;
+                } else if (c == '\\' && pos + 1 < length
+                        && (code.charAt(pos + 1) == '\n' || code.startsWith("\r\n", pos + 1))) {
+                    pos += code.charAt(pos + 1) == '\n' ? 2 : 3;
+                } else if (!skipComment(this)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 最近读取的标识符在字典树中的子节点
+         */
+        RuleNode child(RuleNode node) {
+            return node == null ? null : node.child(code, tokenStart, tokenEnd, tokenHash);
+        }
+
+        /**
+         * 记录导入别名：之后以该标识符开头的名称从别名对应的节点继续匹配
+         */
+        void addAlias(int start, int end, int hash, RuleNode node) {
+            if (node == null) {
+                return;
+            }
+            if (aliasCount == aliasNodes.length) {
+                aliasStarts = Arrays.copyOf(aliasStarts, aliasCount * 2);
+                aliasEnds = Arrays.copyOf(aliasEnds, aliasCount * 2);
+                aliasHashes = Arrays.copyOf(aliasHashes, aliasCount * 2);
+                aliasNodes = Arrays.copyOf(aliasNodes, aliasCount * 2);
+            }
+            aliasStarts[aliasCount] = start;
+            aliasEnds[aliasCount] = end;
+            aliasHashes[aliasCount] = hash;
+            aliasNodes[aliasCount] = node;
+            aliasCount++;
+        }
+
+        /**
+         * 记录通配导入：之后的名称也从该节点开始匹配
+         */
+        void addWildcard(RuleNode node) {
+            if (node == null) {
+                return;
+            }
+            for (int i = 0; i < wildcardCount; i++) {
+                if (wildcardNodes[i] == node) {
+                    return;
+                }
+            }
+            if (wildcardCount == wildcardNodes.length) {
+                wildcardNodes = Arrays.copyOf(wildcardNodes, wildcardCount * 2);
+            }
+            wildcardNodes[wildcardCount++] = node;
+        }
+
+        void report(String rule, int offset) {
+            if (violationCount >= MAX_VIOLATIONS) {
+                return;
+            }
+            if (violationCount == violationOffsets.length) {
+                violationOffsets = Arrays.copyOf(violationOffsets, violationCount * 2);
+                violationRules = Arrays.copyOf(violationRules, violationCount * 2);
+            }
+            violationOffsets[violationCount] = offset;
+            violationRules[violationCount] = rule;
+            violationCount++;
+            if (violationCount >= MAX_VIOLATIONS) {
+                // 达到上限后停止扫描
+                pos = length;
+            }
+        }
+
+        /**
+         * from 导入的名称按成员规则匹配，模块本身不在规则中时（如 from io import open）也能发现
+         */
+        void importedName(int start, int end, int hash) {
+            RuleNode member = memberRules.child(code, start, end, hash);
+            if (member != null) {
+                report(member.rule, start);
+            }
+        }
+
+        void identifier(int start, int end, int hash) {
+            boolean segment = expectSegment || memberAccess;
+            if (expectSegment) {
+                int count = 0;
+                for (int i = 0; i < activeCount; i++) {
+                    RuleNode next = active[i].child(code, start, end, hash);
+                    if (next != null) {
+                        active[count++] = next;
+                    }
+                }
+                activeCount = count;
+            } else {
+                activeCount = 0;
+                nameReported = false;
+                nameStart = start;
+                if (!memberAccess) {
+                    addActive(root.child(code, start, end, hash));
+                    for (int i = 0; i < aliasCount; i++) {
+                        if (aliasHashes[i] == hash && aliasEnds[i] - aliasStarts[i] == end - start
+                                && code.regionMatches(start, code, aliasStarts[i], end - start)) {
+                            addActive(aliasNodes[i]);
+                        }
+                    }
+                    for (int i = 0; i < wildcardCount; i++) {
+                        addActive(wildcardNodes[i].child(code, start, end, hash));
+                    }
+                }
+            }
+            inName = true;
+            expectSegment = false;
+            memberAccess = false;
+            RuleNode member = memberRules.child(code, start, end, hash);
+            if (member != null && (member.anyPosition || segment)) {
+                report(member.rule, start);
+            }
+            if (nameReported) {
+                return;
+            }
+            for (int i = 0; i < activeCount; i++) {
+                if (active[i].rule != null) {
+                    report(active[i].rule, nameStart);
+                    nameReported = true;
+                    return;
+                }
+            }
+        }
+
+        void dot() {
+            if (inName && !expectSegment) {
+                expectSegment = true;
+            } else {
+                endName();
+                memberAccess = true;
+            }
+        }
+
+        void endName() {
+            inName = false;
+            expectSegment = false;
+            memberAccess = false;
+            activeCount = 0;
+        }
+
+        private void addActive(RuleNode node) {
+            if (node == null) {
+                return;
+            }
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+            }
+            active[activeCount++] = node;
+        }
+
+        List<ScanViolation> toViolations() {
+            if (violationCount == 0) {
+                return Collections.emptyList();
+            }
+            List<ScanViolation> violations = new ArrayList<>(violationCount);
+            int line = 1;
+            int lineStart = 0;
+            int cursor = 0;
+            for (int i = 0; i < violationCount; i++) {
+                int offset = violationOffsets[i];
+                if (offset < cursor) {
+                    line = 1;
+                    lineStart = 0;
+                    cursor = 0;
+                }
+                for (; cursor < offset; cursor++) {
+                    if (code.charAt(cursor) == '\n') {
+                        line++;
+                        lineStart = cursor + 1;
+                    }
+                }
+                violations.add(new ScanViolation(violationRules[i], line, offset - lineStart + 1));
+            }
+            violations.sort((a, b) -> a.getLine() != b.getLine() ? Integer.compare(a.getLine(), b.getLine())
+                    : Integer.compare(a.getColumn(), b.getColumn()));
+            return violations;
+        }
+    }
+}
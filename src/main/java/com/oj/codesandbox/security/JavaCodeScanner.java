@@ -0,0 +1,132 @@
+package com.oj.codesandbox.security;
+
+import java.util.Collection;
+
+/**
+ * java代码扫描器
+ * 识别行注释、块注释、字符串、文本块、字符字面量和 import 语句，java.lang 包按默认导入处理，
+ * 规则使用全限定名，如 java.lang.Runtime 同时匹配 Runtime.getRuntime() 和 java.lang.Runtime.getRuntime()
+ * unicode转义（\\uXXXX）在编译前展开，可以把任意代码伪装成注释或字符串，出现即视为违规
+ */
+public class JavaCodeScanner extends CodeScanner {
+
+    public static final String UNICODE_ESCAPE_RULE = "\\u";
+
+    private static final String DEFAULT_PACKAGE = "java.lang";
+
+    public JavaCodeScanner(Collection<String> rules) {
+        super(rules);
+    }
+
+    @Override
+    protected void initContext(ScanContext ctx) {
+        ctx.addWildcard(findNode(DEFAULT_PACKAGE));
+    }
+
+    @Override
+    protected boolean skipComment(ScanContext ctx) {
+        String code = ctx.code;
+        int p = ctx.pos;
+        if (p >= ctx.length) {
+            return false;
+        }
+        char c = code.charAt(p);
+        if (c == '\\') {
+            ctx.pos = checkUnicodeEscape(ctx, p);
+            return true;
+        }
+        if (c != '/' || p + 1 >= ctx.length) {
+            return false;
+        }
+        char next = code.charAt(p + 1);
+        if (next == '/') {
+            p += 2;
+            while (p < ctx.length && code.charAt(p) != '\n') {
+                p = code.charAt(p) == '\\' ? checkUnicodeEscape(ctx, p) : p + 1;
+            }
+        } else if (next == '*') {
+            p += 2;
+            while (p < ctx.length && !(code.charAt(p) == '*' && p + 1 < ctx.length && code.charAt(p + 1) == '/')) {
+                p = code.charAt(p) == '\\' ? checkUnicodeEscape(ctx, p) : p + 1;
+            }
+            p = Math.min(p + 2, ctx.length);
+        } else {
+            return false;
+        }
+        ctx.pos = Math.max(p, ctx.pos);
+        return true;
+    }
+
+    @Override
+    protected boolean skipLiteral(ScanContext ctx) {
+        char c = ctx.peek();
+        if (c != '"' && c != '\'') {
+            return false;
+        }
+        String code = ctx.code;
+        boolean textBlock = c == '"' && code.startsWith("\"\"\"", ctx.pos);
+        int p = ctx.pos + (textBlock ? 3 : 1);
+        while (p < ctx.length) {
+            char ch = code.charAt(p);
+            if (ch == '\\') {
+                if (p + 1 < ctx.length && code.charAt(p + 1) == 'u') {
+                    ctx.report(UNICODE_ESCAPE_RULE, p);
+                }
+                p += 2;
+                continue;
+            }
+            if (!textBlock && (ch == c || ch == '\n')) {
+                p++;
+                break;
+            }
+            if (textBlock && code.startsWith("\"\"\"", p)) {
+                p += 3;
+                break;
+            }
+            p++;
+        }
+        ctx.pos = Math.max(Math.min(p, ctx.length), ctx.pos);
+        return true;
+    }
+
+    @Override
+    protected boolean handleKeyword(ScanContext ctx, int start, int end) {
+        if (ctx.isToken("import")) {
+            // import [static] a.b.C[.*];
+            ctx.skipBlank(true);
+            ctx.readWord("static");
+            ctx.skipBlank(true);
+            RuleNode node = parseQualifiedName(ctx, getRoot(), true);
+            if (ctx.wildcard) {
+                ctx.addWildcard(node);
+            } else if (ctx.segmentCount > 0) {
+                ctx.addAlias(ctx.tokenStart, ctx.tokenEnd, ctx.tokenHash, node);
+            }
+            return true;
+        }
+        if (ctx.isToken("package")) {
+            ctx.skipBlank(true);
+            parseQualifiedName(ctx, null, true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 检查从反斜杠开始的unicode转义：连续奇数个反斜杠后紧跟u
+     *
+     * @param ctx
+     * @param p   反斜杠的位置
+     * @return 反斜杠之后的位置
+     */
+    private int checkUnicodeEscape(ScanContext ctx, int p) {
+        int end = p;
+        while (end < ctx.length && ctx.code.charAt(end) == '\\') {
+            end++;
+        }
+        if ((end - p) % 2 == 1 && end < ctx.length && ctx.code.charAt(end) == 'u') {
+            ctx.report(UNICODE_ESCAPE_RULE, end - 1);
+        }
+        return end;
+    }
+}
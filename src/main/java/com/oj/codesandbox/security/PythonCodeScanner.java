@@ -0,0 +1,209 @@
+package com.oj.codesandbox.security;
+
+import java.util.Collection;
+
+/**
+ * python代码扫描器
+ * 识别 # 注释、各种前缀和引号的字符串（f字符串中的表达式照常扫描）、import 和 from ... import 语句
+ */
+public class PythonCodeScanner extends CodeScanner {
+
+    /**
+     * f字符串最多的嵌套层数，更深的嵌套按普通字符串处理（python本身也不支持）
+     */
+    private static final int MAX_FSTRING_NESTING = 8;
+
+    public PythonCodeScanner(Collection<String> rules) {
+        super(rules);
+    }
+
+    @Override
+    protected boolean skipComment(ScanContext ctx) {
+        if (ctx.peek() != '#') {
+            return false;
+        }
+        int end = ctx.code.indexOf('\n', ctx.pos);
+        ctx.pos = end < 0 ? ctx.length : end;
+        return true;
+    }
+
+    @Override
+    protected boolean skipLiteral(ScanContext ctx) {
+        char c = ctx.peek();
+        if (c != '\'' && c != '"') {
+            return false;
+        }
+        skipString(ctx, ctx.pos, false);
+        return true;
+    }
+
+    @Override
+    protected boolean handleKeyword(ScanContext ctx, int start, int end) {
+        char next = ctx.peek();
+        if ((next == '\'' || next == '"') && end - start <= 2) {
+            // 字符串前缀，如 r''、b""、f''、rb""
+            boolean format = false;
+            for (int i = start; i < end; i++) {
+                char c = Character.toLowerCase(ctx.code.charAt(i));
+                if (c != 'r' && c != 'b' && c != 'u' && c != 'f') {
+                    return false;
+                }
+                format |= c == 'f';
+            }
+            skipString(ctx, end, format);
+            return true;
+        }
+        if (ctx.isToken("import")) {
+            parseImport(ctx);
+            return true;
+        }
+        if (ctx.isToken("from")) {
+            parseFromImport(ctx);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * import a.b [as c], d ...
+     */
+    private void parseImport(ScanContext ctx) {
+        while (true) {
+            ctx.skipBlank(false);
+            RuleNode node = parseQualifiedName(ctx, getRoot(), false);
+            if (ctx.segmentCount == 0) {
+                return;
+            }
+            ctx.skipBlank(false);
+            if (ctx.readWord("as")) {
+                ctx.skipBlank(false);
+                if (ctx.readIdentifier()) {
+                    ctx.addAlias(ctx.tokenStart, ctx.tokenEnd, ctx.tokenHash, node);
+                }
+                ctx.skipBlank(false);
+            }
+            if (ctx.peek() != ',') {
+                return;
+            }
+            ctx.pos++;
+        }
+    }
+
+    /**
+     * from a.b import c [as d], e / from a import (c, d) / from a import *
+     */
+    private void parseFromImport(ScanContext ctx) {
+        ctx.skipBlank(false);
+        boolean relative = false;
+        while (ctx.peek() == '.') {
+            relative = true;
+            ctx.pos++;
+        }
+        ctx.skipBlank(false);
+        RuleNode module = null;
+        if (!ctx.readWord("import")) {
+            // 相对导入的是提交代码自身的模块，不匹配规则
+            module = parseQualifiedName(ctx, relative ? null : getRoot(), false);
+            ctx.skipBlank(false);
+            if (!ctx.readWord("import")) {
+                return;
+            }
+        }
+        ctx.skipBlank(false);
+        boolean parenthesized = ctx.peek() == '(';
+        if (parenthesized) {
+            ctx.pos++;
+        }
+        while (true) {
+            ctx.skipBlank(parenthesized);
+            if (ctx.peek() == '*') {
+                ctx.pos++;
+                ctx.addWildcard(module);
+            } else if (ctx.readIdentifier()) {
+                int nameStart = ctx.tokenStart;
+                int nameEnd = ctx.tokenEnd;
+                int nameHash = ctx.tokenHash;
+                RuleNode node = ctx.child(module);
+                if (node != null && node.getRule() != null) {
+                    ctx.report(node.getRule(), nameStart);
+                } else {
+                    ctx.importedName(nameStart, nameEnd, nameHash);
+                }
+                ctx.skipBlank(parenthesized);
+                if (ctx.readWord("as")) {
+                    ctx.skipBlank(parenthesized);
+                    if (ctx.readIdentifier()) {
+                        nameStart = ctx.tokenStart;
+                        nameEnd = ctx.tokenEnd;
+                        nameHash = ctx.tokenHash;
+                    }
+                }
+                ctx.addAlias(nameStart, nameEnd, nameHash, node);
+            } else {
+                break;
+            }
+            ctx.skipBlank(parenthesized);
+            if (ctx.peek() != ',') {
+                break;
+            }
+            ctx.pos++;
+        }
+        if (parenthesized) {
+            ctx.skipBlank(true);
+            if (ctx.peek() == ')') {
+                ctx.pos++;
+            }
+        }
+    }
+
+    /**
+     * 跳过字符串，f字符串中 {} 内的表达式按代码扫描
+     *
+     * @param ctx
+     * @param quotePos 起始引号的位置
+     * @param format   是否为f字符串
+     */
+    private void skipString(ScanContext ctx, int quotePos, boolean format) {
+        String code = ctx.code;
+        char quote = code.charAt(quotePos);
+        boolean triple = quotePos + 2 < ctx.length && code.charAt(quotePos + 1) == quote
+                && code.charAt(quotePos + 2) == quote;
+        format &= ctx.nesting < MAX_FSTRING_NESTING;
+        int p = quotePos + (triple ? 3 : 1);
+        while (p < ctx.length) {
+            char c = code.charAt(p);
+            if (c == '\\') {
+                p += 2;
+                continue;
+            }
+            if (c == '\n' && !triple) {
+                // 未结束的单行字符串
+                break;
+            }
+            if (c == quote) {
+                if (!triple) {
+                    p++;
+                    break;
+                }
+                if (p + 2 < ctx.length && code.charAt(p + 1) == quote && code.charAt(p + 2) == quote) {
+                    p += 3;
+                    break;
+                }
+            }
+            if (format && c == '{') {
+                if (p + 1 < ctx.length && code.charAt(p + 1) == '{') {
+                    p += 2;
+                    continue;
+                }
+                ctx.pos = p + 1;
+                ctx.nesting++;
+                scanCode(ctx, true);
+                ctx.nesting--;
+                p = ctx.pos;
+                continue;
+            }
+            p++;
+        }
+        ctx.pos = Math.min(p, ctx.length);
+    }
+}
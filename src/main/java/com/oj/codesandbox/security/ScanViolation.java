@@ -0,0 +1,32 @@
+package com.oj.codesandbox.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 代码扫描发现的违规
+ */
+@Data
+@AllArgsConstructor
+public class ScanViolation {
+
+    /**
+     * 命中的规则，如 os.system
+     */
+    private String rule;
+
+    /**
+     * 所在行（从1开始）
+     */
+    private int line;
+
+    /**
+     * 所在列（从1开始）
+     */
+    private int column;
+
+    @Override
+    public String toString() {
+        return rule + "（第" + line + "行第" + column + "列）";
+    }
+}
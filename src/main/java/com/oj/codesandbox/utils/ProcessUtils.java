@@ -72,4 +72,14 @@ public class ProcessUtils {
         return executeMessage;
     }
 
+    /**
+     * 强制结束进程及其所有子进程
+     *
+     * @param process
+     */
+    public static void destroyProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
 }
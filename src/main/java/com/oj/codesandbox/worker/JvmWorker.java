@@ -0,0 +1,147 @@
+package com.oj.codesandbox.worker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.oj.codesandbox.harness.JudgeHarnessSupport;
+import com.oj.codesandbox.harness.JudgeHarnessSupport.HarnessCaseResult;
+import com.oj.codesandbox.harness.WorkerHarness;
+import com.oj.codesandbox.utils.ProcessUtils;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+/**
+ * 常驻java执行进程的沙箱侧句柄，同一时间只由一个线程使用
+ */
+public class JvmWorker {
+
+    private final Process process;
+
+    private final BufferedWriter writer;
+
+    private final BufferedReader reader;
+
+    /**
+     * 结果行的随机令牌，启动时写给执行进程
+     */
+    private final String nonce = JudgeHarnessSupport.newNonce();
+
+    /**
+     * 被强制结束（启动或执行超时）
+     */
+    private final AtomicBoolean killed = new AtomicBoolean(false);
+
+    /**
+     * 已执行的用例数
+     */
+    @Getter
+    private int jobCount;
+
+    /**
+     * 执行进程要求回收或通信失败，归还时直接销毁
+     */
+    @Getter
+    private boolean retired;
+
+    JvmWorker(List<String> command) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        // 用户代码的输出已在进程内重定向，标准错误只有JVM自身的警告
+        processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        process = processBuilder.start();
+        writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        writer.write(nonce);
+        writer.newLine();
+        writer.flush();
+    }
+
+    /**
+     * 等待进程启动完成
+     *
+     * @throws IOException 进程在就绪前退出
+     */
+    void awaitReady() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (WorkerHarness.READY_LINE.equals(line)) {
+                return;
+            }
+        }
+        destroy();
+        throw new IOException("执行进程启动失败");
+    }
+
+    /**
+     * 执行一个用例，进程在写出结果前退出时返回null
+     *
+     * @param classDir
+     * @param mainClassName
+     * @param inputArgs
+     * @param timeoutMillis
+     * @return
+     */
+    HarnessCaseResult execute(String classDir, String mainClassName, String inputArgs, long timeoutMillis) {
+        int index = jobCount++;
+        Base64.Encoder encoder = Base64.getEncoder();
+        try {
+            writer.write(index + " " + encoder.encodeToString(classDir.getBytes(StandardCharsets.UTF_8)) + " "
+                    + mainClassName + " " + timeoutMillis + " "
+                    + encoder.encodeToString(inputArgs.getBytes(StandardCharsets.UTF_8)));
+            writer.newLine();
+            writer.flush();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith(WorkerHarness.RESULT_PREFIX)) {
+                    continue;
+                }
+                String result = line.substring(WorkerHarness.RESULT_PREFIX.length());
+                Map<Integer, HarnessCaseResult> resultMap = JudgeHarnessSupport.parseResults(nonce,
+                        StrUtil.subSuf(result, 2));
+                if (resultMap.isEmpty()) {
+                    // 不带令牌，是用户代码直接写标准输出伪造的结果行
+                    continue;
+                }
+                HarnessCaseResult caseResult = resultMap.get(index);
+                if (caseResult == null) {
+                    break;
+                }
+                retired = result.startsWith("1");
+                return caseResult;
+            }
+        } catch (IOException e) {
+            System.out.println("执行进程通信失败：" + e.getMessage());
+        }
+        retired = true;
+        return null;
+    }
+
+    /**
+     * 强制结束进程
+     */
+    void kill() {
+        killed.set(true);
+        destroy();
+    }
+
+    void destroy() {
+        retired = true;
+        ProcessUtils.destroyProcessTree(process);
+    }
+
+    boolean isKilled() {
+        return killed.get();
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+}
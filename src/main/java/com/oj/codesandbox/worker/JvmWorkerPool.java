@@ -0,0 +1,234 @@
+package com.oj.codesandbox.worker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.oj.codesandbox.config.WorkerPoolProperties;
+import com.oj.codesandbox.harness.JudgeHarnessSupport;
+import com.oj.codesandbox.harness.JudgeHarnessSupport.HarnessCaseResult;
+import com.oj.codesandbox.model.ExecuteMessage;
+
+import cn.hutool.core.io.FileUtil;
+
+/**
+ * 预先启动的常驻java执行进程池，供本地沙箱复用JVM执行用例，省去每个用例的JVM启动时间
+ * 执行进程只加载执行器的class文件，每个用例使用新的类加载器；
+ * 用例超时、内存溢出、进程崩溃或执行用例数达到上限时回收进程，并在后台启动新的进程补齐
+ * 执行进程在标准输入关闭（沙箱退出）时自行退出
+ * 启用 codesandbox.worker-pool.enabled 时作为bean创建，应用关闭时结束所有执行进程
+ */
+@Component
+@ConditionalOnProperty(prefix = "codesandbox.worker-pool", name = "enabled", havingValue = "true")
+public class JvmWorkerPool {
+
+    /**
+     * 执行进程自身会在用例超时后退出，超过用例期限该时间后仍未返回结果时强制结束（毫秒）
+     */
+    private static final long KILL_GRACE_TIME = 1000L;
+
+    private final WorkerPoolProperties properties;
+
+    private final List<String> command;
+
+    /**
+     * 空闲进程，后进先出
+     */
+    private final LinkedBlockingDeque<JvmWorker> idleWorkers = new LinkedBlockingDeque<>();
+
+    /**
+     * 当前存在的进程总数（空闲 + 已租出 + 启动中）
+     */
+    private final AtomicInteger totalCount = new AtomicInteger(0);
+
+    /**
+     * 执行期限到达后强制结束进程
+     */
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jvm-worker-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 在后台启动新的进程
+     */
+    private final ExecutorService spawner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jvm-worker-spawner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JvmWorkerPool(WorkerPoolProperties properties) {
+        this.properties = properties;
+        String workerDir = System.getProperty("user.dir") + File.separator + properties.getWorkerDir();
+        for (Map.Entry<String, byte[]> entry : JudgeHarnessSupport.getWorkerClassFiles().entrySet()) {
+            FileUtil.writeBytes(entry.getValue(), workerDir + File.separator + entry.getKey());
+        }
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(properties.getJvmOptions());
+        // 执行器通过安全管理器拦截System.exit，java18之后需显式允许
+        command.add("-Djava.security.manager=allow");
+        command.add("-cp");
+        command.add(workerDir);
+        command.add(JudgeHarnessSupport.WORKER_CLASS_NAME);
+        this.command = command;
+        for (int i = 0; i < properties.getSize(); i++) {
+            spawnAsync();
+        }
+    }
+
+    /**
+     * 在常驻进程中执行一个用例
+     *
+     * @param classDir      用户代码的类目录
+     * @param mainClassName
+     * @param inputArgs
+     * @param timeoutMillis 用例执行期限
+     * @return
+     */
+    public ExecuteMessage execute(String classDir, String mainClassName, String inputArgs, long timeoutMillis) {
+        JvmWorker worker = lease();
+        ScheduledFuture<?> killFuture = watchdog.schedule(worker::kill, timeoutMillis + KILL_GRACE_TIME,
+                TimeUnit.MILLISECONDS);
+        try {
+            HarnessCaseResult caseResult = worker.execute(classDir, mainClassName, inputArgs, timeoutMillis);
+            if (caseResult != null) {
+                return caseResult.getExecuteMessage();
+            }
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setValue(-1);
+            if (worker.isKilled()) {
+                executeMessage.setTimeout(true);
+            } else {
+                executeMessage.setErrorMessage("执行进程异常退出");
+            }
+            return executeMessage;
+        } finally {
+            killFuture.cancel(false);
+            release(worker);
+        }
+    }
+
+    /**
+     * 结束所有空闲进程，已租出的进程在归还时结束
+     */
+    @PreDestroy
+    public void shutdown() {
+        spawner.shutdownNow();
+        JvmWorker worker;
+        while ((worker = idleWorkers.pollFirst()) != null) {
+            worker.destroy();
+        }
+        watchdog.shutdownNow();
+    }
+
+    private JvmWorker lease() {
+        JvmWorker worker;
+        while ((worker = idleWorkers.pollFirst()) != null) {
+            if (worker.isAlive()) {
+                return worker;
+            }
+            discard(worker);
+        }
+        if (tryReserve()) {
+            try {
+                return startWorker();
+            } catch (RuntimeException e) {
+                totalCount.decrementAndGet();
+                throw e;
+            }
+        }
+        try {
+            worker = idleWorkers.pollFirst(properties.getLeaseTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (worker == null) {
+            throw new RuntimeException("获取执行进程超时");
+        }
+        if (!worker.isAlive()) {
+            discard(worker);
+            return lease();
+        }
+        return worker;
+    }
+
+    private void release(JvmWorker worker) {
+        if (worker.isRetired() || worker.getJobCount() >= properties.getMaxJobs() || spawner.isShutdown()) {
+            discard(worker);
+            return;
+        }
+        idleWorkers.offerFirst(worker);
+    }
+
+    /**
+     * 结束进程并在后台补齐
+     */
+    private void discard(JvmWorker worker) {
+        worker.destroy();
+        totalCount.decrementAndGet();
+        spawnAsync();
+    }
+
+    private void spawnAsync() {
+        if (spawner.isShutdown() || !tryReserve()) {
+            return;
+        }
+        spawner.execute(() -> {
+            try {
+                idleWorkers.offerLast(startWorker());
+            } catch (RuntimeException e) {
+                totalCount.decrementAndGet();
+                System.out.println("启动执行进程失败：" + e.getMessage());
+            }
+        });
+    }
+
+    private JvmWorker startWorker() {
+        JvmWorker worker;
+        try {
+            worker = new JvmWorker(command);
+        } catch (IOException e) {
+            throw new RuntimeException("启动执行进程失败", e);
+        }
+        ScheduledFuture<?> killFuture = watchdog.schedule(worker::kill, properties.getStartTimeout(),
+                TimeUnit.MILLISECONDS);
+        try {
+            worker.awaitReady();
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            killFuture.cancel(false);
+        }
+        return worker;
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int count = totalCount.get();
+            if (count >= properties.getSize()) {
+                return false;
+            }
+            if (totalCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+}
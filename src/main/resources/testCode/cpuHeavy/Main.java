@@ -0,0 +1,10 @@
+public class Main {
+    public static void main(String[] args) {
+        long n = Long.parseLong(args[0]);
+        long sum = 0;
+        for (long i = 0; i < n; i++) {
+            sum = (sum * 31 + i) % 1000000007L;
+        }
+        System.out.println("结果:" + sum);
+    }
+}
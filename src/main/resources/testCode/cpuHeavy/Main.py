@@ -0,0 +1,14 @@
+import sys
+
+
+class Main:
+    def main(self, numbs):
+        n = int(numbs[0])
+        total = 0
+        for i in range(n):
+            total = (total * 31 + i) % 1000000007
+        print(total)
+
+
+if __name__ == "__main__":
+    Main().main(sys.argv[1:])
@@ -0,0 +1,10 @@
+public class Main {
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(i).append(' ').append(i * 2).append('\n');
+        }
+        System.out.print(sb);
+    }
+}
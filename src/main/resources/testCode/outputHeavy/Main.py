@@ -0,0 +1,11 @@
+import sys
+
+
+class Main:
+    def main(self, numbs):
+        n = int(numbs[0])
+        sys.stdout.write("".join("%d %d\n" % (i, i * 2) for i in range(n)))
+
+
+if __name__ == "__main__":
+    Main().main(sys.argv[1:])
@@ -0,0 +1,12 @@
+import sys
+
+
+class Main:
+    def main(self, numbs):
+        i = 0
+        while True:
+            i += 1
+
+
+if __name__ == "__main__":
+    Main().main(sys.argv[1:])
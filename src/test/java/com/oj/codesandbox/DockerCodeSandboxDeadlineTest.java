@@ -0,0 +1,90 @@
+package com.oj.codesandbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.Resource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.oj.codesandbox.model.CaseVerdict;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.stub.FakeDockerClient;
+import com.oj.codesandbox.stub.FakeDockerClient.FakeExecResult;
+import com.oj.codesandbox.stub.FakeDockerClientInitializer;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+
+/**
+ * 执行期限：超时的用例被强制结束，整个提交的时间预算耗尽后不再执行剩余用例
+ */
+@SpringBootTest(properties = { "codesandbox.cgroup.enabled=false", "codesandbox.execute.case-timeout=300",
+        "codesandbox.execute.submission-timeout=700" })
+@ContextConfiguration(initializers = DockerCodeSandboxDeadlineTest.HangInitializer.class)
+class DockerCodeSandboxDeadlineTest {
+
+    /**
+     * 容器中执行过的命令
+     */
+    private static final List<String> EXECUTED_CMDS = new CopyOnWriteArrayList<>();
+
+    @Resource
+    private PythonDockerCodeSandbox pythonDockerCodeSandbox;
+
+    static class HangInitializer extends FakeDockerClientInitializer {
+
+        HangInitializer() {
+            super(FakeDockerClient.create(cmd -> {
+                EXECUTED_CMDS.add(String.join(" ", cmd));
+                if (Arrays.asList(cmd).contains("hang")) {
+                    return FakeExecResult.hang();
+                }
+                return FakeDockerClient.FakeProgram.SUM_ARGS.run(cmd);
+            }));
+        }
+    }
+
+    @BeforeEach
+    void clear() {
+        EXECUTED_CMDS.clear();
+    }
+
+    private ExecuteCodeResponse execute(String... inputs) {
+        return pythonDockerCodeSandbox.executeCode(ExecuteCodeRequest.builder()
+                .language("python")
+                .code(ResourceUtil.readStr("testCode/simpleComputeArgs/Main.py", StandardCharsets.UTF_8))
+                .inputList(Arrays.asList(inputs))
+                .build());
+    }
+
+    private long countRuns() {
+        return EXECUTED_CMDS.stream().filter(cmd -> cmd.startsWith("python3")).count();
+    }
+
+    @Test
+    void killTimedOutCase() {
+        ExecuteCodeResponse executeCodeResponse = execute("1 2", "hang", "3 4");
+        assertEquals(3, executeCodeResponse.getStatus());
+        assertEquals("超出时间限制", executeCodeResponse.getJudgeInfo().getMessage());
+        assertEquals(Arrays.asList(CaseVerdict.ACCEPTED, CaseVerdict.TIME_LIMIT_EXCEEDED, CaseVerdict.ACCEPTED),
+                executeCodeResponse.getCaseVerdictList());
+        assertTrue(EXECUTED_CMDS.stream().anyMatch(cmd -> cmd.contains("kill -KILL -1")));
+    }
+
+    @Test
+    void stopWhenSubmissionBudgetExhausted() {
+        ExecuteCodeResponse executeCodeResponse = execute("hang", "hang", "hang", "1 2");
+        assertEquals(3, executeCodeResponse.getStatus());
+        assertEquals(CaseVerdict.SKIPPED, executeCodeResponse.getCaseVerdictList().get(3));
+        assertEquals(3, countRuns());
+    }
+}
@@ -0,0 +1,166 @@
+package com.oj.codesandbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.oj.codesandbox.config.ExecuteProperties;
+import com.oj.codesandbox.model.CaseEvent;
+import com.oj.codesandbox.model.CaseVerdict;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.stub.FakeDockerClientInitializer;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+
+/**
+ * 使用DockerClient替身走完整的判题流程
+ */
+@SpringBootTest(properties = { "codesandbox.compile.cache-enabled=false", "codesandbox.cgroup.enabled=false" })
+@ContextConfiguration(initializers = FakeDockerClientInitializer.class)
+class DockerCodeSandboxStubTest {
+
+    @Resource
+    private JavaDockerCodeSandbox javaDockerCodeSandbox;
+
+    @Resource
+    private PythonDockerCodeSandbox pythonDockerCodeSandbox;
+
+    @Resource
+    private ExecuteProperties executeProperties;
+
+    private static ExecuteCodeRequest request(String language, String codeFile) {
+        return ExecuteCodeRequest.builder()
+                .language(language)
+                .code(ResourceUtil.readStr("testCode/simpleComputeArgs/" + codeFile, StandardCharsets.UTF_8))
+                .inputList(Arrays.asList("1 2", "3 4"))
+                .build();
+    }
+
+    @Test
+    void executeJava() {
+        ExecuteCodeResponse executeCodeResponse = javaDockerCodeSandbox.executeCode(request("java", "Main.java"));
+        assertEquals(1, executeCodeResponse.getStatus());
+        assertEquals(Arrays.asList("结果:3\n", "结果:7\n"), executeCodeResponse.getOutputList());
+    }
+
+    @Test
+    void executePython() {
+        ExecuteCodeResponse executeCodeResponse = pythonDockerCodeSandbox.executeCode(request("python", "Main.py"));
+        assertEquals(1, executeCodeResponse.getStatus());
+        assertEquals(Arrays.asList("3\n", "7\n"), executeCodeResponse.getOutputList());
+    }
+
+    @Test
+    void stopAtFirstWrongAnswer() {
+        ExecuteCodeRequest executeCodeRequest = request("java", "Main.java");
+        executeCodeRequest.setInputList(Arrays.asList("1 2", "3 4", "5 6"));
+        executeCodeRequest.setExpectedOutputList(Arrays.asList("结果:3", "结果:8", "结果:11"));
+        ExecuteCodeResponse executeCodeResponse = javaDockerCodeSandbox.executeCode(executeCodeRequest);
+        assertEquals(1, executeCodeResponse.getStatus());
+        assertEquals(1, executeCodeResponse.getFirstFailedIndex());
+        assertEquals(Arrays.asList(CaseVerdict.ACCEPTED, CaseVerdict.WRONG_ANSWER, CaseVerdict.SKIPPED),
+                executeCodeResponse.getCaseVerdictList());
+        assertEquals(Arrays.asList("结果:3\n", "结果:7\n"), executeCodeResponse.getOutputList());
+        assertEquals("答案错误", executeCodeResponse.getJudgeInfo().getMessage());
+
+        executeCodeRequest.setExpectedOutputList(Arrays.asList("结果:3", "结果:7", "结果:11"));
+        executeCodeResponse = javaDockerCodeSandbox.executeCode(executeCodeRequest);
+        assertNull(executeCodeResponse.getFirstFailedIndex());
+    }
+
+    @Test
+    void streamCaseEvents() {
+        List<CaseEvent> caseEvents = new ArrayList<>();
+        ExecuteCodeResponse executeCodeResponse = pythonDockerCodeSandbox.executeCode(request("python", "Main.py"),
+                caseEvent -> caseEvents.add(caseEvent));
+        assertEquals(1, executeCodeResponse.getStatus());
+        assertEquals(2, caseEvents.size());
+        assertEquals(0, caseEvents.get(0).getIndex());
+        assertEquals("3\n", caseEvents.get(0).getOutput());
+        assertEquals("7\n", caseEvents.get(1).getOutput());
+        assertEquals(CaseVerdict.ACCEPTED, caseEvents.get(1).getVerdict());
+        // 输出已随用例推送，汇总结果中不再保存
+        assertNull(executeCodeResponse.getOutputList());
+        assertEquals(Arrays.asList(CaseVerdict.ACCEPTED, CaseVerdict.ACCEPTED),
+                executeCodeResponse.getCaseVerdictList());
+    }
+
+    @Test
+    void cancelWhenListenerStops() {
+        ExecuteCodeRequest executeCodeRequest = request("python", "Main.py");
+        executeCodeRequest.setInputList(Arrays.asList("1 2", "3 4", "5 6"));
+        List<CaseEvent> caseEvents = new ArrayList<>();
+        ExecuteCodeResponse executeCodeResponse = pythonDockerCodeSandbox.executeCode(executeCodeRequest,
+                caseEvent -> {
+                    caseEvents.add(caseEvent);
+                    // 模拟客户端在收到第一个用例后断开
+                    return false;
+                });
+        assertEquals(1, caseEvents.size());
+        assertEquals(CaseVerdict.SKIPPED, executeCodeResponse.getCaseVerdictList().get(2));
+        assertEquals(CaseVerdict.ACCEPTED, executeCodeResponse.getCaseVerdictList().get(0));
+    }
+
+    @Test
+    void parallelStopsAtSameCaseAsSerial() {
+        List<String> inputList = new ArrayList<>();
+        List<String> expectedOutputList = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            inputList.add(i + " 1");
+            // 第3个和第8个用例答案错误
+            expectedOutputList.add(String.valueOf(i == 3 || i == 8 ? -1 : i + 1));
+        }
+        ExecuteCodeRequest executeCodeRequest = request("python", "Main.py");
+        executeCodeRequest.setInputList(inputList);
+        executeCodeRequest.setExpectedOutputList(expectedOutputList);
+        ExecuteCodeResponse serialResponse = pythonDockerCodeSandbox.executeCode(executeCodeRequest);
+
+        executeProperties.setParallelEnabled(true);
+        executeProperties.getParallelism().put("python", 4);
+        try {
+            for (int i = 0; i < 5; i++) {
+                List<CaseEvent> caseEvents = new ArrayList<>();
+                ExecuteCodeResponse parallelResponse = pythonDockerCodeSandbox.executeCode(executeCodeRequest);
+                assertEquals(3, parallelResponse.getFirstFailedIndex());
+                assertEquals(serialResponse.getOutputList(), parallelResponse.getOutputList());
+                assertEquals(serialResponse.getCaseVerdictList(), parallelResponse.getCaseVerdictList());
+
+                // 用例事件同样按输入顺序推送，停在第一个未通过的用例
+                pythonDockerCodeSandbox.executeCode(executeCodeRequest, caseEvent -> caseEvents.add(caseEvent));
+                assertEquals(4, caseEvents.size());
+                for (int j = 0; j < caseEvents.size(); j++) {
+                    assertEquals(j, caseEvents.get(j).getIndex());
+                }
+            }
+        } finally {
+            executeProperties.getParallelism().remove("python");
+            executeProperties.setParallelEnabled(false);
+        }
+    }
+
+    @Test
+    void harnessWinsOverParallel() {
+        executeProperties.setParallelEnabled(true);
+        executeProperties.getParallelism().put("java", 4);
+        try {
+            assertEquals(4, javaDockerCodeSandbox.getParallelism());
+            executeProperties.setJavaHarnessEnabled(true);
+            assertEquals(1, javaDockerCodeSandbox.getParallelism());
+        } finally {
+            executeProperties.setJavaHarnessEnabled(false);
+            executeProperties.getParallelism().remove("java");
+            executeProperties.setParallelEnabled(false);
+        }
+    }
+}
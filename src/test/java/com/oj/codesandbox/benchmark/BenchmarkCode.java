@@ -0,0 +1,82 @@
+package com.oj.codesandbox.benchmark;
+
+/**
+ * 基准测试使用的提交代码
+ */
+final class BenchmarkCode {
+
+    /**
+     * 常见的python题解片段，不包含禁止词
+     */
+    static final String PYTHON_SOLUTION = "\n"
+            + "def solve(nums, target):\n"
+            + "    seen = {}\n"
+            + "    for i, num in enumerate(nums):\n"
+            + "        if target - num in seen:\n"
+            + "            return [seen[target - num], i]\n"
+            + "        seen[num] = i\n"
+            + "    return []\n"
+            + "\n"
+            + "dp = [[0] * 101 for _ in range(101)]\n"
+            + "for i in range(1, 101):\n"
+            + "    for j in range(1, 101):\n"
+            + "        dp[i][j] = max(dp[i - 1][j], dp[i][j - 1]) + (i * j) % 7\n";
+
+    /**
+     * 较长的java题解，包含多个类和方法
+     */
+    static final String JAVA_SOLUTION = "import java.util.*;\n"
+            + "\n"
+            + "public class Main {\n"
+            + "    static class Edge {\n"
+            + "        int to, weight;\n"
+            + "        Edge(int to, int weight) { this.to = to; this.weight = weight; }\n"
+            + "    }\n"
+            + "\n"
+            + "    static long[] dijkstra(List<List<Edge>> graph, int source) {\n"
+            + "        long[] dist = new long[graph.size()];\n"
+            + "        Arrays.fill(dist, Long.MAX_VALUE);\n"
+            + "        dist[source] = 0;\n"
+            + "        PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(a -> a[1]));\n"
+            + "        queue.add(new long[] { source, 0 });\n"
+            + "        while (!queue.isEmpty()) {\n"
+            + "            long[] top = queue.poll();\n"
+            + "            int u = (int) top[0];\n"
+            + "            if (top[1] > dist[u]) continue;\n"
+            + "            for (Edge edge : graph.get(u)) {\n"
+            + "                if (dist[u] + edge.weight < dist[edge.to]) {\n"
+            + "                    dist[edge.to] = dist[u] + edge.weight;\n"
+            + "                    queue.add(new long[] { edge.to, dist[edge.to] });\n"
+            + "                }\n"
+            + "            }\n"
+            + "        }\n"
+            + "        return dist;\n"
+            + "    }\n"
+            + "\n"
+            + "    public static void main(String[] args) {\n"
+            + "        int n = Integer.parseInt(args[0]);\n"
+            + "        List<List<Edge>> graph = new ArrayList<>();\n"
+            + "        for (int i = 0; i < n; i++) graph.add(new ArrayList<>());\n"
+            + "        for (int i = 0; i + 1 < n; i++) graph.get(i).add(new Edge(i + 1, i % 5 + 1));\n"
+            + "        System.out.println(\"结果:\" + dijkstra(graph, 0)[n - 1]);\n"
+            + "    }\n"
+            + "}\n";
+
+    private BenchmarkCode() {
+    }
+
+    /**
+     * 重复代码片段直到达到指定大小
+     *
+     * @param snippet
+     * @param size
+     * @return
+     */
+    static String repeatToSize(String snippet, int size) {
+        StringBuilder stringBuilder = new StringBuilder(size + snippet.length());
+        while (stringBuilder.length() < size) {
+            stringBuilder.append(snippet);
+        }
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.oj.codesandbox.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oj.codesandbox.PythonDockerCodeSandbox;
+import com.oj.codesandbox.security.CodeScanner;
+import com.oj.codesandbox.security.JavaCodeScanner;
+import com.oj.codesandbox.security.ScanViolation;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+
+/**
+ * 提交代码的静态检查，每次扫描的耗时应随代码大小线性增长（1KB到4MB，每字节耗时基本不变）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class CodeScanBenchmark {
+
+    /**
+     * 提交代码的大小（字节）
+     */
+    @Param({ "1024", "65536", "1048576", "4194304" })
+    private int codeSize;
+
+    private static final CodeScanner JAVA_SCANNER = new JavaCodeScanner(Arrays.asList("java.nio.file",
+            "java.io.File", "java.lang.Runtime", "java.lang.ProcessBuilder", "java.lang.reflect", "java.net",
+            "java.lang.System.exit"));
+
+    private String pythonCode;
+
+    private String javaCode;
+
+    /**
+     * 只由标识符和'.'组成的代码，每个词法单元都需要查找规则
+     */
+    private String identifierCode;
+
+    @Setup
+    public void setup() {
+        pythonCode = BenchmarkCode.repeatToSize(
+                ResourceUtil.readStr("testCode/simpleComputeArgs/Main.py", StandardCharsets.UTF_8)
+                        + BenchmarkCode.PYTHON_SOLUTION,
+                codeSize);
+        javaCode = BenchmarkCode.repeatToSize(BenchmarkCode.JAVA_SOLUTION, codeSize);
+        identifierCode = BenchmarkCode.repeatToSize("os.path.join(sys.argv, a.b.c.d)\n", codeSize);
+    }
+
+    @Benchmark
+    public List<ScanViolation> scanPython() {
+        return PythonDockerCodeSandbox.scanCode(pythonCode);
+    }
+
+    @Benchmark
+    public List<ScanViolation> scanJava() {
+        return JAVA_SCANNER.scan(javaCode);
+    }
+
+    @Benchmark
+    public List<ScanViolation> scanIdentifiers() {
+        return PythonDockerCodeSandbox.scanCode(identifierCode);
+    }
+}
@@ -0,0 +1,59 @@
+package com.oj.codesandbox.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oj.codesandbox.compile.CompileResult;
+import com.oj.codesandbox.compile.JavaCompileService;
+import com.oj.codesandbox.config.CompileProperties;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+
+/**
+ * 进程内编译java代码
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class CompileBenchmark {
+
+    private JavaCompileService javaCompileService;
+
+    private String simpleCode;
+
+    @Setup
+    public void setup() {
+        javaCompileService = new JavaCompileService(new CompileProperties());
+        simpleCode = ResourceUtil.readStr("testCode/simpleComputeArgs/Main.java", StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        javaCompileService.shutdown();
+    }
+
+    @Benchmark
+    public CompileResult compileSimple() {
+        return javaCompileService.compile("Main", simpleCode);
+    }
+
+    @Benchmark
+    public CompileResult compileSolution() {
+        return javaCompileService.compile("Main", BenchmarkCode.JAVA_SOLUTION);
+    }
+}
@@ -0,0 +1,69 @@
+package com.oj.codesandbox.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import com.oj.codesandbox.docker.ExecOutputSink;
+
+import cn.hutool.core.util.StrUtil;
+
+/**
+ * docker exec输出帧收集和解码
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ExecOutputBenchmark {
+
+    /**
+     * 单帧大小（字节）
+     */
+    @Param({ "64", "8192" })
+    private int frameSize;
+
+    /**
+     * 总输出大小（字节）
+     */
+    @Param({ "1024", "1048576" })
+    private int outputSize;
+
+    private Frame[] frames;
+
+    @Setup
+    public void setup() {
+        byte[] payload = StrUtil.repeat("结果:42\n", frameSize).getBytes(StandardCharsets.UTF_8);
+        byte[] framePayload = new byte[frameSize];
+        System.arraycopy(payload, 0, framePayload, 0, frameSize);
+        frames = new Frame[Math.max(1, outputSize / frameSize)];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new Frame(StreamType.STDOUT, framePayload);
+        }
+    }
+
+    @Benchmark
+    public String collectAndDecode() {
+        ExecOutputSink execOutputSink = new ExecOutputSink(Long.MAX_VALUE);
+        for (Frame frame : frames) {
+            execOutputSink.onNext(frame);
+        }
+        execOutputSink.onComplete();
+        return execOutputSink.getStdout();
+    }
+}
@@ -0,0 +1,98 @@
+package com.oj.codesandbox.benchmark;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.oj.codesandbox.CodeSandbox;
+import com.oj.codesandbox.CodesandboxApplication;
+import com.oj.codesandbox.JavaDockerCodeSandbox;
+import com.oj.codesandbox.PythonDockerCodeSandbox;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.stub.FakeDockerClientInitializer;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.resource.ResourceUtil;
+
+/**
+ * executeCode的编排开销：使用DockerClient替身，容器内的执行立即返回，
+ * 测得的是工作目录、编译（缓存）、容器租借、写入工作目录、执行命令收发、结果汇总和清理的耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ExecuteCodeBenchmark {
+
+    @Param({ "java", "python" })
+    private String language;
+
+    @Param({ "1", "10" })
+    private int caseCount;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private File cacheDir;
+
+    private CodeSandbox codeSandbox;
+
+    private ExecuteCodeRequest executeCodeRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        cacheDir = Files.createTempDirectory("compile-cache").toFile();
+        applicationContext = new SpringApplicationBuilder(CodesandboxApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(new FakeDockerClientInitializer())
+                .run("--codesandbox.compile.cache-dir=" + cacheDir.getAbsolutePath(),
+                        "--codesandbox.cgroup.enabled=false");
+        boolean java = "java".equals(language);
+        codeSandbox = java ? applicationContext.getBean(JavaDockerCodeSandbox.class)
+                : applicationContext.getBean(PythonDockerCodeSandbox.class);
+        String[] inputs = new String[caseCount];
+        for (int i = 0; i < caseCount; i++) {
+            inputs[i] = i + " " + (i + 1);
+        }
+        executeCodeRequest = ExecuteCodeRequest.builder()
+                .language(language)
+                .code(ResourceUtil.readStr("testCode/simpleComputeArgs/" + (java ? "Main.java" : "Main.py"),
+                        StandardCharsets.UTF_8))
+                .inputList(Arrays.asList(inputs))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+        FileUtil.del(cacheDir);
+    }
+
+    @Benchmark
+    public ExecuteCodeResponse executeCode() {
+        return codeSandbox.executeCode(executeCodeRequest);
+    }
+}
@@ -0,0 +1,81 @@
+package com.oj.codesandbox.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oj.codesandbox.compile.CompileResult;
+import com.oj.codesandbox.compile.JavaCompileService;
+import com.oj.codesandbox.config.CompileProperties;
+import com.oj.codesandbox.config.WorkerPoolProperties;
+import com.oj.codesandbox.model.ExecuteMessage;
+import com.oj.codesandbox.utils.ProcessUtils;
+import com.oj.codesandbox.worker.JvmWorkerPool;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.resource.ResourceUtil;
+
+/**
+ * 本地沙箱单个用例的执行开销：每个用例启动新的java进程 vs 常驻执行进程
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class JvmWorkerBenchmark {
+
+    private File classDir;
+
+    private JvmWorkerPool jvmWorkerPool;
+
+    @Setup
+    public void setup() throws IOException {
+        // 执行过程会打印日志，避免日志输出影响结果
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        JavaCompileService javaCompileService = new JavaCompileService(new CompileProperties());
+        CompileResult compileResult = javaCompileService.compile("Main",
+                ResourceUtil.readStr("testCode/simpleComputeArgs/Main.java", StandardCharsets.UTF_8));
+        javaCompileService.shutdown();
+        classDir = Files.createTempDirectory("jvm-worker-benchmark").toFile();
+        compileResult.writeClassFiles(classDir);
+        WorkerPoolProperties properties = new WorkerPoolProperties();
+        properties.setWorkerDir("target/worker-benchmark");
+        jvmWorkerPool = new JvmWorkerPool(properties);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jvmWorkerPool.shutdown();
+        FileUtil.del(classDir);
+    }
+
+    @Benchmark
+    public ExecuteMessage newProcess() throws IOException {
+        Process process = Runtime.getRuntime()
+                .exec(String.format("java -Xmx256m -cp %s Main 1 2", classDir.getAbsolutePath()));
+        return ProcessUtils.runProcessAndGetMessage(process, "运行");
+    }
+
+    @Benchmark
+    public ExecuteMessage warmWorker() {
+        return jvmWorkerPool.execute(classDir.getAbsolutePath(), "Main", "1 2", 5000L);
+    }
+}
@@ -0,0 +1,51 @@
+package com.oj.codesandbox.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oj.codesandbox.model.ExecuteMessage;
+import com.oj.codesandbox.utils.ProcessUtils;
+
+/**
+ * 本地进程执行并读取输出的开销（JavaNativeCodeSandbox的执行路径）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ProcessUtilsBenchmark {
+
+    /**
+     * 子进程输出的行数
+     */
+    @Param({ "1", "10000" })
+    private int lines;
+
+    @Setup
+    public void setup() {
+        // ProcessUtils每次执行都会打印日志，避免日志输出影响结果
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Benchmark
+    public ExecuteMessage runProcessAndGetMessage() throws IOException {
+        Process process = new ProcessBuilder("seq", "1", String.valueOf(lines)).start();
+        return ProcessUtils.runProcessAndGetMessage(process, "运行");
+    }
+}
@@ -0,0 +1,63 @@
+package com.oj.codesandbox.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.oj.codesandbox.PythonDockerCodeSandbox;
+import com.oj.codesandbox.config.ExecuteProperties;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.model.ExecuteMessage;
+
+/**
+ * 用例执行结果汇总为响应
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ResponseAggregationBenchmark {
+
+    @Param({ "10", "1000" })
+    private int caseCount;
+
+    private PythonDockerCodeSandbox codeSandbox;
+
+    private List<ExecuteMessage> executeMessages;
+
+    @Setup
+    public void setup() {
+        codeSandbox = new PythonDockerCodeSandbox();
+        ReflectionTestUtils.setField(codeSandbox, "executeProperties", new ExecuteProperties());
+        executeMessages = new ArrayList<>();
+        for (int i = 0; i < caseCount; i++) {
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setValue(0);
+            executeMessage.setMessage(i + "\n");
+            executeMessage.setTime((long) (i % 100));
+            executeMessage.setCpuTime((long) (i % 90));
+            executeMessage.setMemory(1024L * i);
+            executeMessages.add(executeMessage);
+        }
+    }
+
+    @Benchmark
+    public ExecuteCodeResponse getOutputResponse() {
+        return codeSandbox.getOutputResponse(executeMessages, null);
+    }
+}
@@ -0,0 +1,41 @@
+package com.oj.codesandbox.checker;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.oj.codesandbox.model.CheckerMode;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+
+class AnswerCheckerTest {
+
+    @Test
+    void exactIgnoresLineEndingsOnly() {
+        AnswerChecker answerChecker = new AnswerChecker(Arrays.asList("1 2\n3"), CheckerMode.EXACT, 0);
+        assertTrue(answerChecker.check(0, "1 2\r\n3\n"));
+        assertFalse(answerChecker.check(0, "1  2\n3\n"));
+        // 没有期望输出的用例视为通过
+        assertTrue(answerChecker.check(1, "anything"));
+    }
+
+    @Test
+    void ignoreWhitespaceAndFloat() {
+        AnswerChecker ignoreWhitespace = new AnswerChecker(Arrays.asList("1 2\n3"), CheckerMode.IGNORE_WHITESPACE, 0);
+        assertTrue(ignoreWhitespace.check(0, "  1\t2 3 \n\n"));
+        assertFalse(ignoreWhitespace.check(0, "1 2"));
+
+        AnswerChecker floatChecker = new AnswerChecker(Arrays.asList("0.333333 1e9 ok"), CheckerMode.FLOAT, 1e-5);
+        assertTrue(floatChecker.check(0, "0.3333331 1000000001 ok"));
+        assertFalse(floatChecker.check(0, "0.3334 1000000000 ok"));
+        assertFalse(floatChecker.check(0, "0.333333 1e9 no"));
+    }
+
+    @Test
+    void noExpectedOutput() {
+        assertNull(AnswerChecker.of(ExecuteCodeRequest.builder().inputList(Arrays.asList("1 2")).build()));
+    }
+}
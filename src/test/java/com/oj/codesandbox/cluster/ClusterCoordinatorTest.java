@@ -0,0 +1,139 @@
+package com.oj.codesandbox.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oj.codesandbox.config.ClusterProperties;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.scheduler.AdmissionRejectedException;
+import com.sun.net.httpserver.HttpServer;
+
+class ClusterCoordinatorTest {
+
+    private ClusterProperties clusterProperties;
+
+    private ClusterCoordinator clusterCoordinator;
+
+    private HttpServer httpServer;
+
+    @BeforeEach
+    void init() {
+        clusterProperties = new ClusterProperties();
+        clusterProperties.setMode(ClusterProperties.Mode.COORDINATOR);
+        clusterProperties.setForwardTimeout(3000);
+        clusterCoordinator = new ClusterCoordinator(clusterProperties, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+    }
+
+    private static NodeStatus node(String nodeId, String url, int running, int idleContainers, double cpuHeadroom) {
+        NodeStatus nodeStatus = new NodeStatus();
+        nodeStatus.setNodeId(nodeId);
+        nodeStatus.setUrl(url);
+        nodeStatus.setLanguages(new HashSet<>(Arrays.asList("java", "python")));
+        nodeStatus.setRunning(running);
+        nodeStatus.setIdleContainers(idleContainers);
+        nodeStatus.setMaxConcurrent(8);
+        nodeStatus.setCpuHeadroom(cpuHeadroom);
+        return nodeStatus;
+    }
+
+    @Test
+    void selectsLeastLoadedAvailableNode() {
+        clusterCoordinator.heartbeat(node("a", "http://a", 4, 1, 0.9));
+        clusterCoordinator.heartbeat(node("b", "http://b", 2, 1, 0.9));
+        // 执行数少但CPU已被占满
+        clusterCoordinator.heartbeat(node("c", "http://c", 0, 4, 0.05));
+        assertEquals("b", clusterCoordinator.selectNode("java", Collections.emptySet()).status.getNodeId());
+
+        // 上报后转发的提交计入负载
+        clusterCoordinator.selectNode("java", Collections.emptySet()).dispatched.addAndGet(3);
+        assertEquals("a", clusterCoordinator.selectNode("java", Collections.emptySet()).status.getNodeId());
+
+        NodeStatus draining = node("a", "http://a", 0, 4, 1);
+        draining.setDraining(true);
+        clusterCoordinator.heartbeat(draining);
+        assertEquals("b", clusterCoordinator.selectNode("java", Collections.emptySet()).status.getNodeId());
+        assertEquals("c", clusterCoordinator.selectNode("java", Collections.singleton("b")).status.getNodeId());
+        assertNull(clusterCoordinator.selectNode("cpp", Collections.emptySet()));
+    }
+
+    @Test
+    void failedNodeIsRemovedAndSubmissionMovesElsewhere() throws Exception {
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/executeCode", exchange -> {
+            byte[] body = "{\"status\":1,\"outputList\":[\"3\"]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        httpServer.start();
+        // 无法连接的节点负载更低，先被选中
+        clusterCoordinator.heartbeat(node("dead", "http://127.0.0.1:1", 0, 4, 1));
+        clusterCoordinator.heartbeat(
+                node("alive", "http://127.0.0.1:" + httpServer.getAddress().getPort(), 4, 1, 1));
+
+        ExecuteCodeRequest executeCodeRequest = ExecuteCodeRequest.builder()
+                .language("java").code("code").inputList(Arrays.asList("1 2")).build();
+        ExecuteCodeResponse executeCodeResponse = clusterCoordinator.execute(executeCodeRequest, "secretKey");
+        assertEquals(Arrays.asList("3"), executeCodeResponse.getOutputList());
+        assertEquals(1, clusterCoordinator.getNodes().size());
+        assertEquals("alive", clusterCoordinator.getNodes().get(0).getNodeId());
+
+        httpServer.stop(0);
+        httpServer = null;
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> clusterCoordinator.execute(executeCodeRequest, "secretKey"));
+        assertEquals(503, e.getStatus());
+    }
+
+    @Test
+    void readTimeoutFailsSubmissionWithoutEviction() throws Exception {
+        AtomicInteger requests = new AtomicInteger(0);
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/executeCode", exchange -> {
+            requests.incrementAndGet();
+            try {
+                // 节点仍在执行，超过转发超时时间
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        httpServer.start();
+        clusterProperties.setForwardTimeout(200);
+        String url = "http://127.0.0.1:" + httpServer.getAddress().getPort();
+        clusterCoordinator.heartbeat(node("slow", url, 0, 4, 1));
+        clusterCoordinator.heartbeat(node("other", url, 4, 1, 1));
+
+        ExecuteCodeRequest executeCodeRequest = ExecuteCodeRequest.builder()
+                .language("java").code("code").inputList(Arrays.asList("1 2")).build();
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> clusterCoordinator.execute(executeCodeRequest, "secretKey"));
+        assertEquals(504, e.getStatus());
+        // 没有转发给其他节点，节点也没有被移出集群
+        assertEquals(1, requests.get());
+        assertEquals(2, clusterCoordinator.getNodes().size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.oj.codesandbox.compile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.oj.codesandbox.config.CompileProperties;
+
+class CompileCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CompileCache newCache(long maxSize) {
+        CompileProperties compileProperties = new CompileProperties();
+        compileProperties.setCacheDir(tempDir.toString());
+        compileProperties.setCacheMaxSize(maxSize);
+        return new CompileCache(compileProperties);
+    }
+
+    @Test
+    void hitOnlyForSameSourceAndToolchain() {
+        CompileCache compileCache = newCache(1024);
+        compileCache.put("java", "v1", "code", Map.of("Main.class", new byte[] { 1, 2, 3 }));
+
+        Map<String, byte[]> files = compileCache.get("java", "v1", "code");
+        assertNotNull(files);
+        assertArrayEquals(new byte[] { 1, 2, 3 }, files.get("Main.class"));
+        assertNull(compileCache.get("java", "v2", "code"));
+        assertNull(compileCache.get("java", "v1", "other code"));
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        CompileCache compileCache = newCache(20);
+        compileCache.put("java", "v1", "a", Map.of("Main.class", new byte[8]));
+        compileCache.put("java", "v1", "b", Map.of("Main.class", new byte[8]));
+        // 访问a后，b成为最久未使用的条目
+        assertNotNull(compileCache.get("java", "v1", "a"));
+        compileCache.put("java", "v1", "c", Map.of("Main.class", new byte[8]));
+
+        assertEquals(2, compileCache.size());
+        assertNotNull(compileCache.get("java", "v1", "a"));
+        assertNull(compileCache.get("java", "v1", "b"));
+        assertNotNull(compileCache.get("java", "v1", "c"));
+    }
+
+    @Test
+    void reloadEntriesFromDisk() {
+        newCache(1024).put("java", "v1", "code", Map.of("Main.class", new byte[] { 7 }));
+        CompileCache reloaded = newCache(1024);
+        assertEquals(1, reloaded.size());
+        assertNotNull(reloaded.get("java", "v1", "code"));
+    }
+
+    @Test
+    void putAsyncWritesInBackground() throws InterruptedException {
+        CompileCache compileCache = newCache(1024);
+        try {
+            compileCache.putAsync("java", "v1", "code", Map.of("Main.class", new byte[] { 5 }));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (compileCache.get("java", "v1", "code") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertArrayEquals(new byte[] { 5 }, compileCache.get("java", "v1", "code").get("Main.class"));
+        } finally {
+            compileCache.shutdown();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.oj.codesandbox.compile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.oj.codesandbox.compile.GccToolchain.GccLanguage;
+import com.oj.codesandbox.compile.GccToolchain.GccOutput;
+import com.oj.codesandbox.config.GccProperties;
+
+class GccToolchainTest {
+
+    private GccProperties gccProperties;
+
+    private GccToolchain gccToolchain;
+
+    @BeforeEach
+    void init() {
+        gccProperties = new GccProperties();
+        gccToolchain = new GccToolchain();
+        ReflectionTestUtils.setField(gccToolchain, "gccProperties", gccProperties);
+    }
+
+    @Test
+    void imageAndCacheKeyFollowFlags() {
+        String image = gccToolchain.getImage();
+        assertTrue(image.startsWith("codesandbox/gcc-pch:"));
+        String cppVersion = gccToolchain.getToolchainVersion(GccLanguage.CPP);
+        assertNotEquals(cppVersion, gccToolchain.getToolchainVersion(GccLanguage.C));
+
+        gccProperties.setGxxFlags(Arrays.asList("-O2", "-std=gnu++20"));
+        assertNotEquals(image, gccToolchain.getImage());
+        assertNotEquals(cppVersion, gccToolchain.getToolchainVersion(GccLanguage.CPP));
+        String dockerfile = new String(gccToolchain.createImageBuildContext().getFiles().get("Dockerfile"),
+                StandardCharsets.UTF_8);
+        assertTrue(dockerfile.startsWith("FROM gcc:12\n"));
+        assertTrue(dockerfile.contains("g++ -O2 -std=gnu++20 -x c++-header /opt/pch/bits/stdc++.h"));
+
+        gccProperties.setPchEnabled(false);
+        assertEquals("gcc:12", gccToolchain.getImage());
+    }
+
+    @Test
+    void compileCmdAndOutput() {
+        String cppScript = gccToolchain.getCompileCmd(GccLanguage.CPP, "main.cpp")[2];
+        assertTrue(cppScript.contains("g++ -O2 -std=gnu++17 -I/opt/pch -o main main.cpp -lm"));
+        String cScript = gccToolchain.getCompileCmd(GccLanguage.C, "main.c")[2];
+        assertTrue(cScript.contains("gcc -O2 -std=gnu11 -o main main.c -lm"));
+        assertFalse(cScript.contains("/opt/pch"));
+
+        GccOutput gccOutput = GccToolchain.parseOutput("0\nAQID\n#END\n");
+        assertEquals(0, gccOutput.getExitCode());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, gccOutput.getPayload());
+        assertEquals(1, GccToolchain.parseOutput("1\n\n#END\n").getExitCode());
+        // 编译超时，输出不完整
+        assertNull(GccToolchain.parseOutput("0\nAQ"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.oj.codesandbox.compile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.oj.codesandbox.config.CompileProperties;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+
+class JavaCompileServiceTest {
+
+    private static JavaCompileService javaCompileService;
+
+    @BeforeAll
+    static void init() {
+        javaCompileService = new JavaCompileService(new CompileProperties());
+    }
+
+    @AfterAll
+    static void destroy() {
+        javaCompileService.shutdown();
+    }
+
+    @Test
+    void compileSuccess() {
+        String code = ResourceUtil.readStr("testCode/simpleComputeArgs/Main.java", StandardCharsets.UTF_8);
+        CompileResult compileResult = javaCompileService.compile("Main", code);
+        assertTrue(compileResult.isSuccess());
+        assertTrue(compileResult.getClassBytes().containsKey("Main"));
+        assertTrue(compileResult.getClassBytes().get("Main").length > 0);
+    }
+
+    @Test
+    void compileErrorWithDiagnostics() {
+        String code = "public class Main {\n    public static void main(String[] args) {\n        int a = \"x\";\n    }\n}";
+        CompileResult compileResult = javaCompileService.compile("Main", code);
+        assertFalse(compileResult.isSuccess());
+        assertTrue(compileResult.getClassBytes().isEmpty());
+        CompileDiagnostic diagnostic = compileResult.getDiagnostics().get(0);
+        assertEquals("ERROR", diagnostic.getKind());
+        assertEquals(3L, diagnostic.getLine());
+    }
+
+    @Test
+    void rejectOversizedSource() {
+        CompileProperties compileProperties = new CompileProperties();
+        String code = "public class Main {}" + " ".repeat(compileProperties.getMaxSourceLength());
+        CompileResult compileResult = javaCompileService.compile("Main", code);
+        assertFalse(compileResult.isSuccess());
+    }
+
+    @Test
+    void replaceThreadOfTimedOutCompile() throws InterruptedException {
+        CompileProperties compileProperties = new CompileProperties();
+        compileProperties.setThreads(1);
+        compileProperties.setMaxSourceLength(4 * 1024 * 1024);
+        JavaCompileService service = new JavaCompileService(compileProperties);
+        try {
+            String simpleCode = ResourceUtil.readStr("testCode/simpleComputeArgs/Main.java", StandardCharsets.UTF_8);
+            // 等预热编译结束后再缩短超时时间
+            assertTrue(service.compile("Main", simpleCode).isSuccess());
+            compileProperties.setTimeout(1000L);
+            // 两万个方法在同一个编译阶段内完成，远超过超时时间
+            StringBuilder code = new StringBuilder("public class Main {\n");
+            for (int i = 0; i < 20000; i++) {
+                code.append("int m").append(i).append("(int x) { int y = x * ").append(i)
+                        .append("; if (y > 3) { return y - 1; } return m").append(Math.max(i - 1, 0))
+                        .append("(y); }\n");
+            }
+            code.append("}");
+            // 编译超时属于沙箱异常，不作为用户代码的编译错误返回
+            RuntimeException timeoutException = assertThrows(RuntimeException.class,
+                    () -> service.compile("Main", code.toString()));
+            assertEquals("编译超时", timeoutException.getMessage());
+            // 超时的编译仍占着原线程，新线程继续处理后续编译
+            assertEquals(2, service.getPoolSize());
+            assertTrue(service.compile("Main", simpleCode).isSuccess());
+            // 编译在下一个阶段中止后线程池恢复原来的大小
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (service.getPoolSize() > 1 && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            assertEquals(1, service.getPoolSize());
+        } finally {
+            service.shutdown();
+        }
+    }
+}
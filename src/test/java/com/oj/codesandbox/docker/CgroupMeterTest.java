@@ -0,0 +1,48 @@
+package com.oj.codesandbox.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.oj.codesandbox.config.CgroupProperties;
+
+class CgroupMeterTest {
+
+    @TempDir
+    Path cgroupRoot;
+
+    private CgroupMeter newMeter() {
+        CgroupProperties cgroupProperties = new CgroupProperties();
+        cgroupProperties.setRoot(cgroupRoot.toString());
+        return new CgroupMeter(cgroupProperties);
+    }
+
+    @Test
+    void readsPeakAndCpuTimeFromContainerCgroup() throws Exception {
+        Path cgroupDir = Files.createDirectories(cgroupRoot.resolve("docker/abc"));
+        Files.writeString(cgroupDir.resolve("memory.peak"), "999999\n");
+        Files.writeString(cgroupDir.resolve("cpu.stat"), "usage_usec 1000000\nuser_usec 800000\n");
+        PooledContainer pooledContainer = new PooledContainer("abc", "image");
+
+        CgroupMeter.Measurement measurement = newMeter().start(pooledContainer);
+        assertNotNull(measurement);
+        assertEquals(cgroupDir, pooledContainer.getCgroupDir());
+        // 模拟执行期间内核更新峰值和CPU时间
+        Files.writeString(cgroupDir.resolve("memory.peak"), "12345\n");
+        Files.writeString(cgroupDir.resolve("cpu.stat"), "usage_usec 1250000\nuser_usec 1000000\n");
+        measurement.finish();
+        assertEquals(12345L, measurement.getPeakMemory());
+        assertEquals(250L, measurement.getCpuTime());
+    }
+
+    @Test
+    void unavailableWithoutCgroupDir() {
+        assertNull(newMeter().start(new PooledContainer("missing", "image")));
+    }
+}
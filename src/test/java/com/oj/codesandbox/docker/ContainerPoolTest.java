@@ -0,0 +1,117 @@
+package com.oj.codesandbox.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Frame;
+import com.oj.codesandbox.config.ContainerPoolProperties;
+import com.oj.codesandbox.config.ImageProperties;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+import com.oj.codesandbox.stub.FakeDockerClient;
+import com.oj.codesandbox.stub.FakeDockerClient.FakeExecResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ContainerPoolTest {
+
+    /**
+     * 模拟容器中是否有提交结束后仍在运行的进程
+     */
+    private final AtomicBoolean strayProcess = new AtomicBoolean(false);
+
+    /**
+     * 容器中执行过的命令
+     */
+    private final List<String> executedCmds = new CopyOnWriteArrayList<>();
+
+    private DockerClient dockerClient;
+
+    private ContainerPoolProperties containerPoolProperties;
+
+    private ContainerPool containerPool;
+
+    @BeforeEach
+    void init() {
+        dockerClient = FakeDockerClient.create(cmd -> {
+            String cmdLine = String.join(" ", cmd);
+            executedCmds.add(cmdLine);
+            if (cmdLine.endsWith("&")) {
+                // 用户程序启动后台进程后直接退出
+                strayProcess.set(true);
+            } else if (cmdLine.contains("kill -KILL -1")) {
+                strayProcess.set(false);
+            } else if (Arrays.asList(cmd).contains(ContainerPool.SCRUB_SCRIPT) && strayProcess.get()) {
+                return FakeExecResult.exit(2);
+            }
+            return FakeExecResult.of("", 0);
+        });
+        SandboxMetrics sandboxMetrics = new SandboxMetrics(new SimpleMeterRegistry());
+        ImageManager imageManager = new ImageManager();
+        ReflectionTestUtils.setField(imageManager, "imageProperties", new ImageProperties());
+        ReflectionTestUtils.setField(imageManager, "sandboxMetrics", sandboxMetrics);
+        containerPoolProperties = new ContainerPoolProperties();
+        containerPool = new ContainerPool("python:3.8-alpine", new DockerEndpoint("default", dockerClient, 16),
+                imageManager, containerPoolProperties, sandboxMetrics, null);
+    }
+
+    private void runCase(PooledContainer pooledContainer, String... cmd) throws InterruptedException {
+        String execId = dockerClient.execCreateCmd(pooledContainer.getContainerId()).withCmd(cmd).exec().getId();
+        dockerClient.execStartCmd(execId).exec(new ResultCallback.Adapter<Frame>())
+                .awaitCompletion(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void reuseCleanContainer() throws InterruptedException {
+        PooledContainer pooledContainer = containerPool.lease();
+        runCase(pooledContainer, "python3", "Main.py", "1", "2");
+        containerPool.release(pooledContainer);
+        assertEquals(1, containerPool.getIdleCount());
+        assertEquals(pooledContainer.getContainerId(), containerPool.lease().getContainerId());
+    }
+
+    @Test
+    void destroyContainerWithStrayProcess() throws InterruptedException {
+        PooledContainer pooledContainer = containerPool.lease();
+        runCase(pooledContainer, "sh", "-c", "sleep 100 &");
+        containerPool.release(pooledContainer);
+        // 残留进程被结束，容器被销毁而不是放回池中
+        assertTrue(executedCmds.stream().anyMatch(cmdLine -> cmdLine.contains("kill -KILL -1")));
+        assertEquals(0, containerPool.getIdleCount());
+        assertEquals(0, containerPool.getTotalCount());
+        assertNotEquals(pooledContainer.getContainerId(), containerPool.lease().getContainerId());
+    }
+
+    @Test
+    void waitingLeaseCreatesContainerAfterDestroy() throws Exception {
+        containerPoolProperties.setMaxSize(2);
+        containerPoolProperties.setLeaseTimeout(5000L);
+        PooledContainer first = containerPool.lease();
+        PooledContainer second = containerPool.lease();
+        CompletableFuture<PooledContainer> waiting = CompletableFuture.supplyAsync(containerPool::lease);
+        Thread.sleep(200);
+        assertFalse(waiting.isDone());
+
+        // 有残留进程的容器被销毁而不是放回池中，等待的租借方应新建容器
+        runCase(first, "sh", "-c", "sleep 100 &");
+        containerPool.release(first);
+        PooledContainer leased = waiting.get(2, TimeUnit.SECONDS);
+        assertNotEquals(first.getContainerId(), leased.getContainerId());
+        assertNotEquals(second.getContainerId(), leased.getContainerId());
+        assertEquals(2, containerPool.getTotalCount());
+    }
+}
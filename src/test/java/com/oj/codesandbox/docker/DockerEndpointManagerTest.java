@@ -0,0 +1,99 @@
+package com.oj.codesandbox.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.SocketException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.dockerjava.api.exception.InternalServerErrorException;
+import com.oj.codesandbox.config.DockerClientProperties;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+import com.oj.codesandbox.stub.FakeDockerClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DockerEndpointManagerTest {
+
+    private DockerClientProperties dockerClientProperties;
+
+    private DockerEndpointManager dockerEndpointManager;
+
+    @BeforeEach
+    void init() {
+        dockerClientProperties = new DockerClientProperties();
+        dockerClientProperties.setEndpoints(Arrays.asList(endpoint("a", 2), endpoint("b", 2)));
+        dockerClientProperties.setAcquireTimeout(100L);
+        dockerClientProperties.setEjectErrors(2);
+        dockerEndpointManager = new DockerEndpointManager(dockerClientProperties, FakeDockerClient.create(),
+                new SandboxMetrics(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dockerEndpointManager.shutdown();
+    }
+
+    private static DockerClientProperties.Endpoint endpoint(String name, int maxInFlight) {
+        DockerClientProperties.Endpoint endpoint = new DockerClientProperties.Endpoint();
+        endpoint.setName(name);
+        // 只创建客户端，不会连接
+        endpoint.setHost("unix:///tmp/codesandbox-test-" + name + ".sock");
+        endpoint.setMaxInFlight(maxInFlight);
+        return endpoint;
+    }
+
+    @Test
+    void placesOnLeastInFlightWithinLimit() {
+        DockerEndpoint first = dockerEndpointManager.acquire();
+        DockerEndpoint second = dockerEndpointManager.acquire();
+        assertEquals("a", first.getName());
+        assertEquals("b", second.getName());
+        dockerEndpointManager.acquire();
+        dockerEndpointManager.acquire();
+        // 两个守护进程都达到上限，等待超时
+        assertThrows(RuntimeException.class, dockerEndpointManager::acquire);
+
+        dockerEndpointManager.release(second, false);
+        assertSame(second, dockerEndpointManager.acquire());
+    }
+
+    @Test
+    void ejectsFailingEndpointUntilNoneLeft() {
+        DockerEndpoint a = dockerEndpointManager.getEndpoints().get(0);
+        dockerEndpointManager.release(dockerEndpointManager.acquire(), true);
+        assertFalse(a.isEjected(System.currentTimeMillis()));
+        dockerEndpointManager.release(dockerEndpointManager.acquire(), true);
+        assertTrue(a.isEjected(System.currentTimeMillis()));
+
+        // 被移出的守护进程执行中的操作更少也不再选择
+        DockerEndpoint b = dockerEndpointManager.acquire();
+        assertEquals("b", b.getName());
+        assertEquals("b", dockerEndpointManager.acquire().getName());
+        // 其余守护进程都达到上限时仍可使用被移出的守护进程
+        assertSame(a, dockerEndpointManager.acquire());
+    }
+
+    @Test
+    void ejectsOnlyOnDaemonErrors() {
+        DockerEndpoint a = dockerEndpointManager.getEndpoints().get(0);
+        // 获取容器超时不是守护进程的错误，多次出现也不移出调度
+        for (int i = 0; i < 3; i++) {
+            dockerEndpointManager.release(dockerEndpointManager.acquire(),
+                    new RuntimeException("获取容器超时：python:3.8-alpine"));
+        }
+        assertFalse(a.isEjected(System.currentTimeMillis()));
+
+        dockerEndpointManager.release(dockerEndpointManager.acquire(), new InternalServerErrorException("boom"));
+        dockerEndpointManager.release(dockerEndpointManager.acquire(),
+                new RuntimeException(new SocketException("Connection refused")));
+        assertTrue(a.isEjected(System.currentTimeMillis()));
+    }
+}
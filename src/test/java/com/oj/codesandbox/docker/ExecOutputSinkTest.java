@@ -0,0 +1,49 @@
+package com.oj.codesandbox.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+
+class ExecOutputSinkTest {
+
+    @Test
+    void appendsAllFramesAndDecodesOnce() {
+        ExecOutputSink execOutputSink = new ExecOutputSink(1024);
+        byte[] bytes = "结果：3\n".getBytes(StandardCharsets.UTF_8);
+        // 多字节字符被拆分到两帧中
+        execOutputSink.onNext(new Frame(StreamType.STDOUT, Arrays.copyOfRange(bytes, 0, 2)));
+        execOutputSink.onNext(new Frame(StreamType.STDOUT, Arrays.copyOfRange(bytes, 2, bytes.length)));
+        execOutputSink.onNext(new Frame(StreamType.STDOUT, "4\n".getBytes(StandardCharsets.UTF_8)));
+        execOutputSink.onComplete();
+
+        assertEquals("结果：3\n4\n", execOutputSink.getStdout());
+        assertNull(execOutputSink.getStderr());
+        assertTrue(execOutputSink.isCompleted());
+        assertFalse(execOutputSink.isOutputLimitExceeded());
+    }
+
+    @Test
+    void stopsWhenOutputLimitExceeded() throws InterruptedException {
+        ExecOutputSink execOutputSink = new ExecOutputSink(10);
+        execOutputSink.onNext(new Frame(StreamType.STDOUT, new byte[6]));
+        execOutputSink.onNext(new Frame(StreamType.STDERR, new byte[6]));
+        execOutputSink.onNext(new Frame(StreamType.STDOUT, new byte[1]));
+
+        assertTrue(execOutputSink.isOutputLimitExceeded());
+        assertFalse(execOutputSink.isCompleted());
+        assertEquals(6, execOutputSink.getStdout().length());
+        assertNull(execOutputSink.getStderr());
+        // 超限后关闭，等待立即返回
+        assertTrue(execOutputSink.awaitCompletion(1, TimeUnit.SECONDS));
+    }
+}
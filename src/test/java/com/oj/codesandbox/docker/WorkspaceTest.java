@@ -0,0 +1,49 @@
+package com.oj.codesandbox.docker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.jupiter.api.Test;
+
+class WorkspaceTest {
+
+    @Test
+    void archiveContainsAllFiles() throws IOException {
+        Workspace workspace = new Workspace(1024);
+        workspace.writeString("Main.py", "print(1)");
+        workspace.writeBytes("com/oj/Harness.class", new byte[] { 1, 2, 3 });
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(
+                new ByteArrayInputStream(workspace.toTarArchive()))) {
+            TarArchiveEntry entry;
+            while ((entry = tarArchiveInputStream.getNextTarEntry()) != null) {
+                entries.put(entry.getName(), tarArchiveInputStream.readAllBytes());
+            }
+        }
+        assertEquals(2, entries.size());
+        assertArrayEquals("print(1)".getBytes(StandardCharsets.UTF_8), entries.get("Main.py"));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, entries.get("com/oj/Harness.class"));
+    }
+
+    @Test
+    void rejectFilesOverLimit() {
+        Workspace workspace = new Workspace(10);
+        workspace.writeBytes("a", new byte[6]);
+        // 覆盖同名文件按新内容计算大小
+        workspace.writeBytes("a", new byte[8]);
+        assertThrows(IllegalStateException.class, () -> workspace.writeBytes("b", new byte[3]));
+        assertEquals(8, workspace.getSize());
+        assertNull(workspace.getFiles().get("b"));
+    }
+}
@@ -0,0 +1,26 @@
+package com.oj.codesandbox.execute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ExecutionDeadlineTest {
+
+    @Test
+    void caseTimeoutCappedBySubmissionBudget() throws InterruptedException {
+        ExecutionDeadline deadline = new ExecutionDeadline(1000, 200);
+        assertTrue(deadline.nextCaseTimeout() <= 200);
+        Thread.sleep(250);
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.nextCaseTimeout());
+    }
+
+    @Test
+    void unlimitedSubmissionBudget() {
+        ExecutionDeadline deadline = new ExecutionDeadline(1000, 0);
+        assertFalse(deadline.isExpired());
+        assertEquals(1000, deadline.nextCaseTimeout());
+    }
+}
@@ -0,0 +1,145 @@
+package com.oj.codesandbox.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oj.codesandbox.CodeSandbox;
+import com.oj.codesandbox.config.JobProperties;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.model.JudgeJob;
+import com.oj.codesandbox.model.JudgeJobStatus;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JudgeJobServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JudgeJobService judgeJobService;
+
+    private HttpServer httpServer;
+
+    @AfterEach
+    void tearDown() {
+        if (judgeJobService != null) {
+            judgeJobService.shutdown();
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+    }
+
+    private JudgeJobService newService(int workers, int queueCapacity) {
+        JobProperties jobProperties = new JobProperties();
+        jobProperties.setWorkers(workers);
+        jobProperties.setQueueCapacity(queueCapacity);
+        return new JudgeJobService(jobProperties, objectMapper, new SandboxMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void pollAndCallbackAfterCompletion() throws Exception {
+        BlockingQueue<String> callbackBodies = new LinkedBlockingQueue<>();
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/callback", exchange -> {
+            callbackBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        httpServer.start();
+
+        judgeJobService = newService(1, 10);
+        CodeSandbox codeSandbox = request -> ExecuteCodeResponse.builder()
+                .outputList(request.getInputList())
+                .status(1)
+                .build();
+        ExecuteCodeRequest executeCodeRequest = ExecuteCodeRequest.builder()
+                .inputList(Arrays.asList("1 2", "3 4"))
+                .language("java")
+                .callbackUrl("http://127.0.0.1:" + httpServer.getAddress().getPort() + "/callback")
+                .build();
+        String jobId = judgeJobService.submit(executeCodeRequest, codeSandbox).getJobId();
+
+        String body = callbackBodies.poll(10, TimeUnit.SECONDS);
+        assertNotNull(body);
+        JudgeJob callbackJob = objectMapper.readValue(body, JudgeJob.class);
+        assertEquals(jobId, callbackJob.getJobId());
+        assertEquals(JudgeJobStatus.SUCCEED, callbackJob.getStatus());
+        assertEquals(Arrays.asList("1 2", "3 4"), callbackJob.getExecuteCodeResponse().getOutputList());
+
+        JudgeJob polledJob = judgeJobService.getJob(jobId);
+        assertEquals(JudgeJobStatus.SUCCEED, polledJob.getStatus());
+        assertNotNull(polledJob.getFinishTime());
+    }
+
+    @Test
+    void slowCallbackDoesNotBlockNextJob() throws Exception {
+        CountDownLatch callbackBlocker = new CountDownLatch(1);
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/callback", exchange -> {
+            try {
+                callbackBlocker.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        httpServer.start();
+
+        judgeJobService = newService(1, 10);
+        CodeSandbox codeSandbox = request -> new ExecuteCodeResponse();
+        ExecuteCodeRequest callbackRequest = ExecuteCodeRequest.builder()
+                .callbackUrl("http://127.0.0.1:" + httpServer.getAddress().getPort() + "/callback")
+                .build();
+        judgeJobService.submit(callbackRequest, codeSandbox);
+        String jobId = judgeJobService.submit(new ExecuteCodeRequest(), codeSandbox).getJobId();
+
+        long deadline = System.currentTimeMillis() + 2000L;
+        while (judgeJobService.getJob(jobId).getStatus() != JudgeJobStatus.SUCCEED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(JudgeJobStatus.SUCCEED, judgeJobService.getJob(jobId).getStatus());
+        callbackBlocker.countDown();
+    }
+
+    @Test
+    void rejectWhenQueueFull() throws Exception {
+        judgeJobService = newService(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CodeSandbox codeSandbox = request -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ExecuteCodeResponse();
+        };
+        ExecuteCodeRequest executeCodeRequest = new ExecuteCodeRequest();
+        judgeJobService.submit(executeCodeRequest, codeSandbox);
+        started.await(5, TimeUnit.SECONDS);
+        JudgeJob waitingJob = judgeJobService.submit(executeCodeRequest, codeSandbox);
+        assertEquals(JudgeJobStatus.WAITING, waitingJob.getStatus());
+        assertThrows(RejectedExecutionException.class, () -> judgeJobService.submit(executeCodeRequest, codeSandbox));
+        blocker.countDown();
+    }
+}
@@ -0,0 +1,94 @@
+package com.oj.codesandbox.jvm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.oj.codesandbox.compile.CompileResult;
+import com.oj.codesandbox.compile.JavaCompileService;
+import com.oj.codesandbox.config.CompileProperties;
+import com.oj.codesandbox.config.JvmProfileProperties;
+import com.oj.codesandbox.docker.Workspace;
+import com.oj.codesandbox.harness.JvmLauncher;
+
+import cn.hutool.core.io.IoUtil;
+
+class JvmProfileServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JvmProfileService jvmProfileService;
+
+    @BeforeEach
+    void init() {
+        jvmProfileService = new JvmProfileService();
+        ReflectionTestUtils.setField(jvmProfileService, "jvmProfileProperties", new JvmProfileProperties());
+    }
+
+    @Test
+    void optionsCombineCommonArchiveAndProfile() {
+        List<String> options = jvmProfileService.getOptions("recursion");
+        assertEquals("-XX:+UseSerialGC", options.get(0));
+        assertTrue(options.contains("-XX:SharedArchiveFile=/opt/cds/judge.jsa"));
+        assertTrue(options.contains("-Xss64m"));
+        assertEquals("-Dcodesandbox.jvm.profile=recursion", options.get(options.size() - 1));
+
+        List<String> fallback = jvmProfileService.getOptions("unknown");
+        assertTrue(fallback.contains("-XX:TieredStopAtLevel=1"));
+        assertEquals("-Dcodesandbox.jvm.profile=default", fallback.get(fallback.size() - 1));
+    }
+
+    @Test
+    void writesArgFileLauncherAndBuildContext() {
+        Workspace workspace = new Workspace(1024 * 1024L);
+        jvmProfileService.writeLaunchFiles(workspace, null);
+        Map<String, byte[]> files = workspace.getFiles();
+        String argFile = new String(files.get(JvmProfileService.ARG_FILE_NAME), StandardCharsets.UTF_8);
+        assertEquals(String.join("\n", jvmProfileService.getOptions("default")) + "\n", argFile);
+        assertTrue(files.containsKey("com/oj/codesandbox/harness/JvmLauncher.class"));
+
+        Map<String, byte[]> buildFiles = jvmProfileService.createImageBuildContext().getFiles();
+        String dockerfile = new String(buildFiles.get("Dockerfile"), StandardCharsets.UTF_8);
+        assertTrue(dockerfile.startsWith("FROM openjdk:17-jdk-alpine\n"));
+        assertTrue(dockerfile.contains("-Xshare:dump"));
+        assertTrue(buildFiles.containsKey("com/oj/codesandbox/harness/CdsWarmup.class"));
+    }
+
+    @Test
+    void launcherRunsPackagePrivateMain() throws Exception {
+        JavaCompileService javaCompileService = new JavaCompileService(new CompileProperties());
+        CompileResult compileResult;
+        try {
+            compileResult = javaCompileService.compile("Main",
+                    "class Main { public static void main(String[] args) { System.out.println(args[0]); } }");
+        } finally {
+            javaCompileService.shutdown();
+        }
+        assertTrue(compileResult.isSuccess());
+        compileResult.writeClassFiles(tempDir.toFile());
+
+        // 与容器中相同，执行器和用户代码在同一个类路径下
+        String launcherDir = Paths.get(JvmLauncher.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .toString();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", launcherDir + File.pathSeparator + tempDir,
+                JvmLauncher.class.getName(), String.valueOf(System.currentTimeMillis()), "Main", "ok")
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        String output = IoUtil.readUtf8(process.getInputStream());
+        assertEquals(0, process.waitFor());
+        assertEquals("ok", output.trim());
+    }
+}
@@ -0,0 +1,351 @@
+package com.oj.codesandbox.loadtest;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oj.codesandbox.CodesandboxApplication;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+import com.oj.codesandbox.stub.FakeDockerClient;
+import com.oj.codesandbox.stub.FakeDockerClient.FakeExecResult;
+import com.oj.codesandbox.stub.FakeDockerClientInitializer;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.resource.ResourceUtil;
+
+/**
+ * POST /executeCode 压力测试
+ * 按权重混合java/python的多种负载（简单计算、CPU密集、大量输出、超时）并发提交，统计吞吐量、延迟分位数和错误率
+ * 未指定 --url 时以替身模式在进程内启动沙箱：DockerClient替换为 {@link FakeDockerClient}，按负载模拟执行耗时和输出，
+ * 测得的是HTTP和编排本身的开销
+ *
+ * 运行：mvn -Pload-test -DskipTests test -Dloadtest.args="--concurrency=32 --duration=60"
+ * 参数：
+ * --url=http://host:8102 目标沙箱，不指定时使用替身模式
+ * --concurrency=16 并发数（同时在途的请求数上限）
+ * --rate=0 每秒到达的请求数，0表示闭环模式（每个并发完成后立即发起下一个请求）
+ * --duration=30 压测时长（秒）
+ * --warmup=5 预热时长（秒），不计入结果
+ * --mix=java-simple:4,python-simple:4,java-cpu:1,python-cpu:1,java-output:1,python-output:1,java-tle:1,python-tle:1
+ * --output=target/load-test-result.json 结果文件
+ */
+public class LoadTest {
+
+    private static final String AUTH_REQUEST_HEADER = "auth";
+
+    private static final String AUTH_REQUEST_SECRET = "secretKey";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String DEFAULT_MIX = "java-simple:4,python-simple:4,java-cpu:1,python-cpu:1,"
+            + "java-output:1,python-output:1,java-tle:1,python-tle:1";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "5"));
+        List<Workload> workloads = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        File outputFile = new File(options.getOrDefault("output", "target/load-test-result.json"));
+
+        PrintStream console = System.out;
+        ConfigurableApplicationContext applicationContext = null;
+        File cacheDir = null;
+        String url = options.get("url");
+        if (url == null) {
+            // 替身模式：沙箱日志输出量很大，只保留压测报告；devtools的重启会中断当前main线程，需要关闭
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            cacheDir = Files.createTempDirectory("compile-cache").toFile();
+            applicationContext = new SpringApplicationBuilder(CodesandboxApplication.class)
+                    .initializers(new FakeDockerClientInitializer(FakeDockerClient.create(LoadTest::simulate)))
+                    .run("--server.port=0", "--codesandbox.cgroup.enabled=false",
+                            "--codesandbox.compile.cache-dir=" + cacheDir.getAbsolutePath());
+            url = "http://127.0.0.1:" + applicationContext.getEnvironment().getProperty("local.server.port");
+        }
+        console.println("目标：" + url + (applicationContext != null ? "（替身模式）" : "")
+                + "，并发：" + concurrency + "，到达率：" + (rate > 0 ? rate + "/s" : "闭环")
+                + "，时长：" + duration + "s，预热：" + warmup + "s");
+        try {
+            LoadTest loadTest = new LoadTest(url, concurrency, rate, workloads);
+            loadTest.run(TimeUnit.SECONDS.toMillis(warmup), null);
+            LoadTestReport report = new LoadTestReport(TimeUnit.SECONDS.toMillis(duration));
+            loadTest.run(TimeUnit.SECONDS.toMillis(duration), report);
+            report.print(console);
+            FileUtil.mkParentDirs(outputFile);
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(outputFile, report.toMap());
+            console.println("结果已写入：" + outputFile.getAbsolutePath());
+        } finally {
+            if (applicationContext != null) {
+                applicationContext.close();
+                FileUtil.del(cacheDir);
+            }
+            System.setOut(console);
+        }
+    }
+
+    private final String url;
+
+    private final int concurrency;
+
+    private final double rate;
+
+    private final List<Workload> workloads;
+
+    private final int totalWeight;
+
+    private final HttpClient httpClient;
+
+    private LoadTest(String url, int concurrency, double rate, List<Workload> workloads) {
+        this.url = url;
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.workloads = workloads;
+        this.totalWeight = workloads.stream().mapToInt(Workload::getWeight).sum();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+    }
+
+    /**
+     * 压测一段时间
+     *
+     * @param durationMillis
+     * @param report         为null时只预热不统计
+     */
+    private void run(long durationMillis, LoadTestReport report) throws InterruptedException {
+        long endTime = System.currentTimeMillis() + durationMillis;
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        if (rate <= 0) {
+            // 闭环：每个并发完成一个请求后立即发起下一个
+            for (int i = 0; i < concurrency; i++) {
+                workers.execute(() -> {
+                    while (System.currentTimeMillis() < endTime) {
+                        send(pickWorkload(), System.nanoTime(), report);
+                    }
+                });
+            }
+        } else {
+            // 开环：按固定间隔到达，延迟从计划到达时间算起，包含客户端排队时间
+            long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            long nextArrival = System.nanoTime();
+            while (System.currentTimeMillis() < endTime) {
+                long scheduledTime = nextArrival;
+                Workload workload = pickWorkload();
+                workers.execute(() -> send(workload, scheduledTime, report));
+                nextArrival += intervalNanos;
+                long sleepNanos = nextArrival - System.nanoTime();
+                if (sleepNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+            }
+        }
+        workers.shutdown();
+        // 等待在途请求完成，超时用例最长需要数秒
+        if (!workers.awaitTermination(durationMillis + TimeUnit.SECONDS.toMillis(60), TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void send(Workload workload, long startNanos, LoadTestReport report) {
+        Integer status = null;
+        boolean error;
+        try {
+            HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(url + "/executeCode"))
+                    .timeout(Duration.ofSeconds(120))
+                    .header("Content-Type", "application/json")
+                    .header(AUTH_REQUEST_HEADER, AUTH_REQUEST_SECRET)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(workload.getRequestBody()))
+                    .build();
+            HttpResponse<byte[]> httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+            error = httpResponse.statusCode() != 200;
+            if (!error) {
+                status = OBJECT_MAPPER.readValue(httpResponse.body(), ExecuteCodeResponse.class).getStatus();
+            } else {
+                status = -httpResponse.statusCode();
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            error = true;
+        }
+        if (report != null) {
+            report.record(workload.getName(), System.nanoTime() - startNanos, error, status);
+        }
+    }
+
+    private Workload pickWorkload() {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Workload workload : workloads) {
+            value -= workload.getWeight();
+            if (value < 0) {
+                return workload;
+            }
+        }
+        return workloads.get(workloads.size() - 1);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static List<Workload> parseMix(String mix) throws Exception {
+        List<Workload> workloads = new ArrayList<>();
+        for (String item : mix.split(",")) {
+            String[] nameAndWeight = item.trim().split(":");
+            WorkloadType workloadType = WorkloadType.of(nameAndWeight[0]);
+            int weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1]) : 1;
+            workloads.add(new Workload(nameAndWeight[0], weight, workloadType.toRequestBody()));
+        }
+        return workloads;
+    }
+
+    /**
+     * 替身模式下按输入参数模拟各负载的执行
+     *
+     * @param cmd
+     * @return
+     */
+    private static FakeExecResult simulate(String[] cmd) {
+        for (WorkloadType workloadType : WorkloadType.values()) {
+            if (workloadType.matches(cmd)) {
+                return workloadType.simulate();
+            }
+        }
+        return FakeDockerClient.FakeProgram.SUM_ARGS.run(cmd);
+    }
+
+    /**
+     * 负载类型，每种负载的输入各不相同，替身模式据此区分
+     */
+    private enum WorkloadType {
+
+        JAVA_SIMPLE("java-simple", "java", "simpleComputeArgs", "1 2", "3 4"),
+        PYTHON_SIMPLE("python-simple", "python", "simpleComputeArgs", "1 2", "3 4"),
+        JAVA_CPU("java-cpu", "java", "cpuHeavy", "200000000"),
+        PYTHON_CPU("python-cpu", "python", "cpuHeavy", "3000000"),
+        JAVA_OUTPUT("java-output", "java", "outputHeavy", "200000"),
+        PYTHON_OUTPUT("python-output", "python", "outputHeavy", "200001"),
+        JAVA_TLE("java-tle", "java", "timeLimit", "7"),
+        PYTHON_TLE("python-tle", "python", "timeLimit", "8");
+
+        private final String name;
+
+        private final String language;
+
+        private final String codeDir;
+
+        private final String[] inputs;
+
+        WorkloadType(String name, String language, String codeDir, String... inputs) {
+            this.name = name;
+            this.language = language;
+            this.codeDir = codeDir;
+            this.inputs = inputs;
+        }
+
+        static WorkloadType of(String name) {
+            for (WorkloadType workloadType : values()) {
+                if (workloadType.name.equals(name)) {
+                    return workloadType;
+                }
+            }
+            throw new IllegalArgumentException("未知负载：" + name);
+        }
+
+        byte[] toRequestBody() throws Exception {
+            String codeFile = "java".equals(language) ? "Main.java" : "Main.py";
+            ExecuteCodeRequest executeCodeRequest = ExecuteCodeRequest.builder()
+                    .language(language)
+                    .code(ResourceUtil.readStr("testCode/" + codeDir + "/" + codeFile, StandardCharsets.UTF_8))
+                    .inputList(Arrays.asList(inputs))
+                    .build();
+            return OBJECT_MAPPER.writeValueAsBytes(executeCodeRequest);
+        }
+
+        boolean matches(String[] cmd) {
+            if (cmd.length == 0 || "simpleComputeArgs".equals(codeDir)
+                    || !("java".equals(language) ? "java" : "python3").equals(cmd[0])) {
+                return false;
+            }
+            return inputs[0].equals(cmd[cmd.length - 1]);
+        }
+
+        /**
+         * 模拟执行：CPU密集约300ms，大量输出约3MB，超时的程序不会结束
+         *
+         * @return
+         */
+        FakeExecResult simulate() {
+            switch (codeDir) {
+                case "cpuHeavy":
+                    return FakeExecResult.of("结果:1\n", 300);
+                case "outputHeavy":
+                    StringBuilder output = new StringBuilder();
+                    for (int i = 0; i < 200000; i++) {
+                        output.append(i).append(' ').append(i * 2).append('\n');
+                    }
+                    return FakeExecResult.of(output.toString(), 50);
+                default:
+                    return FakeExecResult.hang();
+            }
+        }
+    }
+
+    private static class Workload {
+
+        private final String name;
+
+        private final int weight;
+
+        private final byte[] requestBody;
+
+        Workload(String name, int weight, byte[] requestBody) {
+            this.name = name;
+            this.weight = weight;
+            this.requestBody = requestBody;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getWeight() {
+            return weight;
+        }
+
+        byte[] getRequestBody() {
+            return requestBody;
+        }
+    }
+}
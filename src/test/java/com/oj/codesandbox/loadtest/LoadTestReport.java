@@ -0,0 +1,124 @@
+package com.oj.codesandbox.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测结果统计：按负载和总体统计请求数、错误率、吞吐量和延迟分位数
+ */
+class LoadTestReport {
+
+    private static final String TOTAL = "total";
+
+    private final long durationMillis;
+
+    /**
+     * 负载名称 => 统计，total为总体
+     */
+    private final Map<String, Stats> statsMap = new TreeMap<>();
+
+    LoadTestReport(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * 记录一个请求
+     *
+     * @param workload
+     * @param latencyNanos
+     * @param error        请求失败（连接异常或非200响应）
+     * @param status       响应中的执行状态，非200响应为负的http状态码
+     */
+    synchronized void record(String workload, long latencyNanos, boolean error, Integer status) {
+        statsMap.computeIfAbsent(workload, key -> new Stats()).add(latencyNanos, error, status);
+        statsMap.computeIfAbsent(TOTAL, key -> new Stats()).add(latencyNanos, error, status);
+    }
+
+    synchronized void print(PrintStream printStream) {
+        printStream.printf("%-16s %8s %8s %10s %10s %10s %10s %10s  %s%n", "workload", "requests", "errors",
+                "req/s", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)", "status");
+        statsMap.forEach((name, stats) -> printStream.printf("%-16s %8d %7.2f%% %10.2f %10.1f %10.1f %10.1f %10.1f  %s%n",
+                name, stats.count, stats.getErrorRate() * 100, stats.getThroughput(durationMillis),
+                stats.percentile(0.50), stats.percentile(0.95), stats.percentile(0.99), stats.percentile(1.0),
+                stats.statusCounts));
+    }
+
+    synchronized Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("durationMillis", durationMillis);
+        Map<String, Object> workloads = new LinkedHashMap<>();
+        statsMap.forEach((name, stats) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("requests", stats.count);
+            item.put("errors", stats.errors);
+            item.put("errorRate", stats.getErrorRate());
+            item.put("throughput", stats.getThroughput(durationMillis));
+            item.put("p50", stats.percentile(0.50));
+            item.put("p95", stats.percentile(0.95));
+            item.put("p99", stats.percentile(0.99));
+            item.put("max", stats.percentile(1.0));
+            item.put("status", stats.statusCounts);
+            workloads.put(name, item);
+        });
+        result.put("workloads", workloads);
+        return result;
+    }
+
+    private static class Stats {
+
+        private long[] latencies = new long[1024];
+
+        private int count;
+
+        private int errors;
+
+        /**
+         * 执行状态 => 次数
+         */
+        private final Map<String, Integer> statusCounts = new TreeMap<>();
+
+        private boolean sorted;
+
+        void add(long latencyNanos, boolean error, Integer status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            sorted = false;
+            if (error) {
+                errors++;
+            }
+            statusCounts.merge(String.valueOf(status), 1, Integer::sum);
+        }
+
+        double getErrorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+
+        double getThroughput(long durationMillis) {
+            return count * 1000.0 / durationMillis;
+        }
+
+        /**
+         * 延迟分位数
+         *
+         * @param quantile
+         * @return 毫秒
+         */
+        double percentile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            if (!sorted) {
+                Arrays.sort(latencies, 0, count);
+                sorted = true;
+            }
+            int index = (int) Math.ceil(quantile * count) - 1;
+            return latencies[Math.max(0, Math.min(count - 1, index))] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.oj.codesandbox.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.oj.codesandbox.CodeSandbox;
+import com.oj.codesandbox.config.AdmissionProperties;
+import com.oj.codesandbox.metrics.SandboxMetrics;
+import com.oj.codesandbox.model.ExecuteCodeRequest;
+import com.oj.codesandbox.model.ExecuteCodeResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ExecutionSchedulerTest {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+
+    private final CountDownLatch blocker = new CountDownLatch(1);
+
+    private final CodeSandbox blockingSandbox = request -> {
+        try {
+            blocker.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return ExecuteCodeResponse.builder().status(1).build();
+    };
+
+    @AfterEach
+    void tearDown() {
+        blocker.countDown();
+        executorService.shutdownNow();
+    }
+
+    private ExecutionScheduler newScheduler(int maxConcurrent, int javaMaxConcurrent, int queueCapacity,
+            long queueTimeout) {
+        AdmissionProperties admissionProperties = new AdmissionProperties();
+        admissionProperties.setMaxConcurrent(maxConcurrent);
+        admissionProperties.setLanguageMaxConcurrent(Map.of("java", javaMaxConcurrent));
+        admissionProperties.setQueueCapacity(queueCapacity);
+        admissionProperties.setQueueTimeout(queueTimeout);
+        return new ExecutionScheduler(admissionProperties, new SandboxMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static ExecuteCodeRequest request(String language) {
+        return ExecuteCodeRequest.builder().language(language).build();
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void languageLimitQueuesAndTimesOut() throws Exception {
+        ExecutionScheduler executionScheduler = newScheduler(4, 1, 10, 200);
+        executorService.submit(() -> executionScheduler.execute(blockingSandbox, request("java")));
+        awaitCondition(() -> executionScheduler.getRunningCount() == 1);
+
+        // java已达上限，排队超时后拒绝；其他语言不受影响
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> executionScheduler.execute(blockingSandbox, request("java")));
+        assertEquals(503, e.getStatus());
+        assertEquals(1, executionScheduler.execute(request -> ExecuteCodeResponse.builder().status(1).build(),
+                request("python")).getStatus());
+        assertEquals(1L, executionScheduler.getStats().get("rejectedQueueTimeout"));
+    }
+
+    @Test
+    void rejectWhenQueueFullAndAdmitAfterRelease() throws Exception {
+        ExecutionScheduler executionScheduler = newScheduler(1, 1, 1, 10000);
+        executorService.submit(() -> executionScheduler.execute(blockingSandbox, request("java")));
+        awaitCondition(() -> executionScheduler.getRunningCount() == 1);
+        Future<ExecuteCodeResponse> waiting = executorService
+                .submit(() -> executionScheduler.execute(blockingSandbox, request("java")));
+        awaitCondition(() -> executionScheduler.getWaitingCount() == 1);
+
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> executionScheduler.execute(blockingSandbox, request("python")));
+        assertEquals(429, e.getStatus());
+
+        blocker.countDown();
+        assertEquals(1, waiting.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(0, executionScheduler.getWaitingCount());
+        assertEquals(2L, executionScheduler.getStats().get("admitted"));
+    }
+}
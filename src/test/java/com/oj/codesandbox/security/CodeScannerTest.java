@@ -0,0 +1,90 @@
+package com.oj.codesandbox.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class CodeScannerTest {
+
+    private static final CodeScanner PYTHON_SCANNER = new PythonCodeScanner(Arrays.asList("open", "eval", "input",
+            "random", "exit", "os.system", "os._exit", "subprocess", ".__subclasses__"));
+
+    private static final CodeScanner JAVA_SCANNER = new JavaCodeScanner(Arrays.asList("java.io.File",
+            "java.lang.Runtime", "java.lang.System.exit"));
+
+    private static List<String> rules(List<ScanViolation> violations) {
+        return violations.stream().map(ScanViolation::getRule).collect(Collectors.toList());
+    }
+
+    @Test
+    void pythonIgnoresCommentsStringsAndLongerIdentifiers() {
+        String code = "randomized_input = 1\n"
+                + "reopen = f.reopen\n"
+                + "# os.system('ls')\n"
+                + "s = 'eval(x)' + \"\"\"open\"\"\" + r'input'\n";
+        assertTrue(PYTHON_SCANNER.scan(code).isEmpty());
+    }
+
+    @Test
+    void pythonResolvesImportsAndReportsAll() {
+        String code = "import os\n"
+                + "os.system('ls')\n"
+                + "from subprocess import call\n"
+                + "import random as r\n"
+                + "x = r.randint(1, 2)\n"
+                + "from os import *\n"
+                + "system('ls')\n"
+                + "print(f\"{eval('1')}\")\n"
+                + "().__class__.__subclasses__()\n"
+                + "os . \\\n    system('ls')\n";
+        List<ScanViolation> violations = PYTHON_SCANNER.scan(code);
+        assertEquals(Arrays.asList("os.system", "subprocess", "random", "random", "os.system", "eval",
+                "__subclasses__", "os.system"), rules(violations));
+        assertEquals(2, violations.get(0).getLine());
+        assertEquals(1, violations.get(0).getColumn());
+        assertEquals(5, violations.get(3).getLine());
+    }
+
+    @Test
+    void pythonMatchesBareNamesAsMembers() {
+        assertEquals(Arrays.asList("open"), rules(PYTHON_SCANNER.scan("import io\nio.open('/etc/passwd')\n")));
+        assertEquals(Arrays.asList("open"), rules(PYTHON_SCANNER.scan("import os\nos.open('a', os.O_RDONLY)\n")));
+        assertEquals(Arrays.asList("open"), rules(PYTHON_SCANNER.scan("import codecs\ncodecs.open('a')\n")));
+        assertEquals(Arrays.asList("open"), rules(PYTHON_SCANNER.scan("Path('a').open()\n")));
+        assertEquals(Arrays.asList("exit"), rules(PYTHON_SCANNER.scan("import sys\nsys.exit(0)\n")));
+        assertEquals(Arrays.asList("os._exit"), rules(PYTHON_SCANNER.scan("import os\nos._exit(0)\n")));
+        // 导入时重命名，调用处不再是原名称
+        assertEquals(Arrays.asList("open"), rules(PYTHON_SCANNER.scan("from io import open as o\no('a')\n")));
+        assertEquals(Arrays.asList("exit"), rules(PYTHON_SCANNER.scan("from sys import (exit)\n")));
+    }
+
+    @Test
+    void javaResolvesDefaultAndWildcardImports() {
+        String code = "import java.io.*;\n"
+                + "import static java.lang.System.exit;\n"
+                + "public class Main {\n"
+                + "    // Runtime.getRuntime()\n"
+                + "    String s = \"new File(x) \\\\u0041\";\n"
+                + "    void run() throws Exception {\n"
+                + "        new File(\"a\");\n"
+                + "        Runtime.getRuntime().exec(\"ls\");\n"
+                + "        exit(0);\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals(Arrays.asList("java.lang.System.exit", "java.io.File", "java.lang.Runtime",
+                "java.lang.System.exit"), rules(JAVA_SCANNER.scan(code)));
+    }
+
+    @Test
+    void javaRejectsUnicodeEscapes() {
+        String code = "public class Main {\n"
+                + "    // \\u000a Runtime.getRuntime().exec(\"ls\");\n"
+                + "}\n";
+        assertEquals(Arrays.asList(JavaCodeScanner.UNICODE_ESCAPE_RULE), rules(JAVA_SCANNER.scan(code)));
+    }
+}
@@ -0,0 +1,323 @@
+package com.oj.codesandbox.stub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.ExecCreateCmd;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.command.ExecStartCmd;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.command.InspectExecResponse;
+import com.github.dockerjava.api.command.InspectImageResponse;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+
+/**
+ * 内存中的DockerClient替身，不连接Docker守护进程
+ * 只实现沙箱用到的命令：创建/启动/删除容器、在容器中执行命令、检查镜像；
+ * 在容器中执行的命令交给 {@link FakeProgram} 模拟，其余辅助命令（写入、清理工作目录）立即成功
+ */
+public class FakeDockerClient {
+
+    private static final int FRAME_SIZE = 8192;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ScheduledExecutorService DELAY_EXECUTOR = Executors.newScheduledThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "fake-docker-exec");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final FakeProgram fakeProgram;
+
+    private final AtomicLong idGenerator = new AtomicLong(0);
+
+    /**
+     * 执行id => 执行的命令
+     */
+    private final Map<String, String[]> execCmdMap = new ConcurrentHashMap<>();
+
+    /**
+     * 执行id => 模拟程序的退出码
+     */
+    private final Map<String, Integer> execExitCodeMap = new ConcurrentHashMap<>();
+
+    private FakeDockerClient(FakeProgram fakeProgram) {
+        this.fakeProgram = fakeProgram;
+    }
+
+    /**
+     * 使用默认的程序模拟：对命令行参数求和
+     *
+     * @return
+     */
+    public static DockerClient create() {
+        return create(FakeProgram.SUM_ARGS);
+    }
+
+    public static DockerClient create(FakeProgram fakeProgram) {
+        FakeDockerClient fakeDockerClient = new FakeDockerClient(fakeProgram);
+        return (DockerClient) Proxy.newProxyInstance(FakeDockerClient.class.getClassLoader(),
+                new Class<?>[] { DockerClient.class }, fakeDockerClient::invokeClient);
+    }
+
+    private Object invokeClient(Object proxy, Method method, Object[] args) {
+        if (method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        Class<?> returnType = method.getReturnType();
+        if (returnType.isInterface()) {
+            Object[] commandArgs = args == null ? new Object[0] : args;
+            CommandHandler commandHandler = new CommandHandler(returnType, commandArgs);
+            return Proxy.newProxyInstance(FakeDockerClient.class.getClassLoader(), new Class<?>[] { returnType },
+                    commandHandler);
+        }
+        return null;
+    }
+
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "FakeDockerClient";
+        }
+    }
+
+    private String nextId(String prefix) {
+        return prefix + idGenerator.incrementAndGet();
+    }
+
+    private static <T> T response(Class<T> type, String json) {
+        try {
+            return OBJECT_MAPPER.readValue(json, type);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 单个命令的替身，链式设置方法返回自身，exec时模拟执行
+     */
+    private class CommandHandler implements InvocationHandler {
+
+        private final Class<?> commandType;
+
+        private final Object[] commandArgs;
+
+        private String[] cmd;
+
+        private InputStream stdin;
+
+        private CommandHandler(Class<?> commandType, Object[] commandArgs) {
+            this.commandType = commandType;
+            this.commandArgs = commandArgs;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args);
+            }
+            String name = method.getName();
+            if ("withCmd".equals(name) && args != null && args.length == 1) {
+                cmd = args[0] instanceof List ? ((List<?>) args[0]).toArray(new String[0]) : (String[]) args[0];
+            } else if ("withStdIn".equals(name) && args != null && args.length == 1) {
+                stdin = (InputStream) args[0];
+            } else if ("exec".equals(name)) {
+                return args == null || args.length == 0 ? exec() : execAsync((ResultCallback<?>) args[0]);
+            }
+            if (method.getReturnType().isAssignableFrom(commandType)) {
+                return proxy;
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        private Object exec() {
+            if (commandType == ExecCreateCmd.class) {
+                String execId = nextId("exec-");
+                execCmdMap.put(execId, cmd == null ? new String[0] : cmd);
+                return response(ExecCreateCmdResponse.class, "{\"Id\":\"" + execId + "\"}");
+            }
+            String simpleName = commandType.getSimpleName();
+            switch (simpleName) {
+                case "CreateContainerCmd":
+                    return response(CreateContainerResponse.class,
+                            "{\"Id\":\"" + nextId("container-") + "\"}");
+                case "InspectExecCmd":
+                    return response(InspectExecResponse.class, "{\"ExitCode\":"
+                            + execExitCodeMap.getOrDefault(String.valueOf(commandArgs[0]), 0) + "}");
+                case "InspectImageCmd":
+                    return response(InspectImageResponse.class,
+                            "{\"Id\":\"sha256:fake-" + commandArgs[0] + "\"}");
+                case "InspectContainerCmd":
+                    return response(InspectContainerResponse.class, "{\"State\":{\"Running\":true}}");
+                default:
+                    return null;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object execAsync(ResultCallback<?> resultCallback) throws IOException {
+            if (commandType != ExecStartCmd.class) {
+                // stats、日志等流式命令不产生数据
+                return resultCallback;
+            }
+            if (stdin != null) {
+                stdin.readAllBytes();
+            }
+            ResultCallback<Frame> frameCallback = (ResultCallback<Frame>) resultCallback;
+            String[] execCmd = execCmdMap.remove(String.valueOf(commandArgs[0]));
+            FakeExecResult fakeExecResult = fakeProgram.run(execCmd == null ? new String[0] : execCmd);
+            execExitCodeMap.put(String.valueOf(commandArgs[0]), fakeExecResult.getExitCode());
+            if (fakeExecResult.isHang()) {
+                // 模拟不会结束的程序，由调用方超时处理
+                return resultCallback;
+            }
+            if (fakeExecResult.getDurationMillis() > 0) {
+                DELAY_EXECUTOR.schedule(() -> deliver(frameCallback, fakeExecResult),
+                        fakeExecResult.getDurationMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                deliver(frameCallback, fakeExecResult);
+            }
+            return resultCallback;
+        }
+    }
+
+    private static void deliver(ResultCallback<Frame> frameCallback, FakeExecResult fakeExecResult) {
+        frameCallback.onStart(() -> {
+        });
+        deliverStream(frameCallback, StreamType.STDOUT, fakeExecResult.getStdout());
+        deliverStream(frameCallback, StreamType.STDERR, fakeExecResult.getStderr());
+        frameCallback.onComplete();
+    }
+
+    private static void deliverStream(ResultCallback<Frame> frameCallback, StreamType streamType, byte[] bytes) {
+        for (int offset = 0; offset < bytes.length; offset += FRAME_SIZE) {
+            frameCallback.onNext(new Frame(streamType,
+                    Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + FRAME_SIZE))));
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class || type == long.class || type == short.class || type == byte.class) {
+            return 0;
+        }
+        return null;
+    }
+
+    /**
+     * 模拟在容器中运行的程序
+     */
+    @FunctionalInterface
+    public interface FakeProgram {
+
+        /**
+         * 对java/python程序的整数参数求和，与 testCode/simpleComputeArgs 的输出一致；其他命令没有输出
+         */
+        FakeProgram SUM_ARGS = cmd -> {
+            if (cmd.length == 0 || !("java".equals(cmd[0]) || "python3".equals(cmd[0]))) {
+                return FakeExecResult.of("", 0);
+            }
+            long sum = 0;
+            for (String arg : cmd) {
+                if (arg.matches("-?\\d+")) {
+                    sum += Long.parseLong(arg);
+                }
+            }
+            return FakeExecResult.of(("java".equals(cmd[0]) ? "结果:" : "") + sum + "\n", 0);
+        };
+
+        FakeExecResult run(String[] cmd);
+    }
+
+    /**
+     * 模拟程序的执行结果
+     */
+    public static class FakeExecResult {
+
+        private final byte[] stdout;
+
+        private final byte[] stderr;
+
+        private final long durationMillis;
+
+        private final boolean hang;
+
+        private final int exitCode;
+
+        public FakeExecResult(byte[] stdout, byte[] stderr, long durationMillis, boolean hang) {
+            this(stdout, stderr, durationMillis, hang, 0);
+        }
+
+        public FakeExecResult(byte[] stdout, byte[] stderr, long durationMillis, boolean hang, int exitCode) {
+            this.stdout = stdout;
+            this.stderr = stderr;
+            this.durationMillis = durationMillis;
+            this.hang = hang;
+            this.exitCode = exitCode;
+        }
+
+        public static FakeExecResult of(String stdout, long durationMillis) {
+            return new FakeExecResult(stdout.getBytes(StandardCharsets.UTF_8), new byte[0], durationMillis, false);
+        }
+
+        /**
+         * 没有输出、以指定退出码结束的命令
+         *
+         * @param exitCode
+         * @return
+         */
+        public static FakeExecResult exit(int exitCode) {
+            return new FakeExecResult(new byte[0], new byte[0], 0, false, exitCode);
+        }
+
+        public static FakeExecResult hang() {
+            return new FakeExecResult(new byte[0], new byte[0], 0, true);
+        }
+
+        public byte[] getStdout() {
+            return stdout;
+        }
+
+        public byte[] getStderr() {
+            return stderr;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public boolean isHang() {
+            return hang;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+    }
+}
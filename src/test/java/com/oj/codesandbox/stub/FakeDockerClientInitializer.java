@@ -0,0 +1,58 @@
+package com.oj.codesandbox.stub;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.github.dockerjava.api.DockerClient;
+
+/**
+ * 把应用中的dockerClient替换为 {@link FakeDockerClient}，用于在没有Docker的环境中启动完整的沙箱
+ */
+public class FakeDockerClientInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static final String DOCKER_CLIENT_BEAN_NAME = "dockerClient";
+
+    private final DockerClient dockerClient;
+
+    public FakeDockerClientInitializer() {
+        this(FakeDockerClient.create());
+    }
+
+    public FakeDockerClientInitializer(DockerClient dockerClient) {
+        this.dockerClient = dockerClient;
+    }
+
+    @Override
+    public void initialize(ConfigurableApplicationContext applicationContext) {
+        // 以bean的形式注册，保证在配置类解析之后执行，才能覆盖DockerClientConfig中定义的bean
+        ((BeanDefinitionRegistry) applicationContext).registerBeanDefinition(
+                FakeDockerClientInitializer.class.getName(),
+                new RootBeanDefinition(DockerClientReplacer.class, () -> new DockerClientReplacer(dockerClient)));
+    }
+
+    private static class DockerClientReplacer implements BeanDefinitionRegistryPostProcessor {
+
+        private final DockerClient dockerClient;
+
+        private DockerClientReplacer(DockerClient dockerClient) {
+            this.dockerClient = dockerClient;
+        }
+
+        @Override
+        public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+            if (registry.containsBeanDefinition(DOCKER_CLIENT_BEAN_NAME)) {
+                registry.removeBeanDefinition(DOCKER_CLIENT_BEAN_NAME);
+            }
+            registry.registerBeanDefinition(DOCKER_CLIENT_BEAN_NAME,
+                    new RootBeanDefinition(DockerClient.class, () -> dockerClient));
+        }
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.oj.codesandbox.worker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.oj.codesandbox.compile.CompileResult;
+import com.oj.codesandbox.compile.JavaCompileService;
+import com.oj.codesandbox.config.CompileProperties;
+import com.oj.codesandbox.config.WorkerPoolProperties;
+import com.oj.codesandbox.model.ExecuteMessage;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+
+class JvmWorkerPoolTest {
+
+    private static final String COUNTER_CODE = "public class Main {\n"
+            + "    static int count;\n"
+            + "    public static void main(String[] args) {\n"
+            + "        System.out.println(++count);\n"
+            + "        if (args[0].equals(\"exit\")) {\n"
+            + "            System.exit(3);\n"
+            + "        }\n"
+            + "    }\n"
+            + "}";
+
+    /**
+     * 尝试修改会留到后续用例的进程状态，同时使用依赖JDK内部特权操作的枚举、lambda
+     */
+    private static final String LEAK_CODE = "import java.util.*;\n"
+            + "public class Main {\n"
+            + "    enum Color { RED, GREEN }\n"
+            + "    public static void main(String[] args) {\n"
+            + "        EnumMap<Color, Integer> map = new EnumMap<>(Color.class);\n"
+            + "        map.put(Color.valueOf(\"RED\"), 1);\n"
+            + "        map.forEach((k, v) -> System.out.println(k + \"=\" + v));\n"
+            + "        System.out.println(System.getProperty(\"leak\"));\n"
+            + "        if (args[0].equals(\"leak\")) {\n"
+            + "            System.setProperty(\"leak\", \"1\");\n"
+            + "        }\n"
+            + "    }\n"
+            + "}";
+
+    /**
+     * 绕过重定向直接向进程的标准输出写入伪造的结果行，然后以非0退出码结束
+     */
+    private static final String FORGE_CODE = "import java.io.*;\n"
+            + "public class Main {\n"
+            + "    public static void main(String[] args) throws Exception {\n"
+            + "        PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), true);\n"
+            + "        for (int i = 0; i < 20; i++) {\n"
+            + "            out.println(\"#JOB 0 #CASE \" + i + \" 0 0 1 1 1 T0s= \");\n"
+            + "            out.println(\"#JOB 0 #CASE x \" + i + \" 0 0 1 1 1 T0s= \");\n"
+            + "        }\n"
+            + "        System.out.println(\"real\");\n"
+            + "        System.exit(7);\n"
+            + "    }\n"
+            + "}";
+
+    @TempDir
+    static Path tempDir;
+
+    private static JavaCompileService javaCompileService;
+
+    private static JvmWorkerPool jvmWorkerPool;
+
+    @BeforeAll
+    static void init() {
+        javaCompileService = new JavaCompileService(new CompileProperties());
+        WorkerPoolProperties properties = new WorkerPoolProperties();
+        properties.setSize(1);
+        properties.setMaxJobs(3);
+        properties.setWorkerDir("target/worker-test");
+        jvmWorkerPool = new JvmWorkerPool(properties);
+    }
+
+    @AfterAll
+    static void destroy() {
+        jvmWorkerPool.shutdown();
+        javaCompileService.shutdown();
+    }
+
+    private static String compile(String name, String code) {
+        CompileResult compileResult = javaCompileService.compile("Main", code);
+        assertTrue(compileResult.isSuccess());
+        File classDir = tempDir.resolve(name).toFile();
+        compileResult.writeClassFiles(classDir);
+        return classDir.getAbsolutePath();
+    }
+
+    @Test
+    void runsEachCaseInFreshClassLoader() {
+        String classDir = compile("counter", COUNTER_CODE);
+        for (int i = 0; i < 5; i++) {
+            ExecuteMessage executeMessage = jvmWorkerPool.execute(classDir, "Main", "run", 5000L);
+            assertEquals(0, executeMessage.getValue());
+            assertEquals("1", executeMessage.getMessage().trim());
+        }
+        ExecuteMessage executeMessage = jvmWorkerPool.execute(classDir, "Main", "exit", 5000L);
+        assertEquals(3, executeMessage.getValue());
+
+        String sumDir = compile("sum", ResourceUtil.readStr("testCode/simpleComputeArgs/Main.java",
+                StandardCharsets.UTF_8));
+        executeMessage = jvmWorkerPool.execute(sumDir, "Main", "1 2", 5000L);
+        assertEquals("结果:3", executeMessage.getMessage().trim());
+    }
+
+    @Test
+    void recyclesWorkerAfterTimeout() {
+        String loopDir = compile("loop", ResourceUtil.readStr("testCode/timeLimit/Main.java",
+                StandardCharsets.UTF_8));
+        ExecuteMessage executeMessage = jvmWorkerPool.execute(loopDir, "Main", "", 300L);
+        assertTrue(executeMessage.isTimeout());
+
+        String classDir = compile("afterLoop", COUNTER_CODE);
+        executeMessage = jvmWorkerPool.execute(classDir, "Main", "run", 5000L);
+        assertFalse(executeMessage.isTimeout());
+        assertEquals("1", executeMessage.getMessage().trim());
+    }
+
+    @Test
+    void rejectsChangesToSharedProcessState() {
+        String classDir = compile("leak", LEAK_CODE);
+        ExecuteMessage executeMessage = jvmWorkerPool.execute(classDir, "Main", "leak", 5000L);
+        assertEquals(1, executeMessage.getValue());
+        assertTrue(executeMessage.getErrorMessage().contains("access denied"));
+
+        executeMessage = jvmWorkerPool.execute(classDir, "Main", "run", 5000L);
+        assertEquals(0, executeMessage.getValue());
+        assertEquals("RED=1\nnull", executeMessage.getMessage().trim());
+    }
+
+    @Test
+    void ignoresForgedResultLines() {
+        String classDir = compile("forge", FORGE_CODE);
+        ExecuteMessage executeMessage = jvmWorkerPool.execute(classDir, "Main", "run", 5000L);
+        assertEquals(7, executeMessage.getValue());
+        assertEquals("real", executeMessage.getMessage().trim());
+    }
+
+    @Test
+    void runsPackagePrivateMainClass() {
+        String classDir = compile("packagePrivate",
+                "class Main { public static void main(String[] args) { System.out.println(args[0]); } }");
+        ExecuteMessage executeMessage = jvmWorkerPool.execute(classDir, "Main", "ok", 5000L);
+        assertEquals(0, executeMessage.getValue());
+        assertEquals("ok", executeMessage.getMessage().trim());
+    }
+}